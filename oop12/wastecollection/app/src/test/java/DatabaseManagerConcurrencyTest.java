@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sign-ups, logins, suspensions and login recording from many threads at once, checked
+ * against the accounts and login history read back from the data directory afterwards.
+ * The surefire configuration points bsk.dataDir at target/test-data.
+ */
+class DatabaseManagerConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 25;
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static Path dataDir;
+
+    @BeforeAll
+    static void emptyDataDirectory() throws IOException {
+        dataDir = Paths.get(System.getProperty("bsk.dataDir", "target/test-data"));
+        if (Files.exists(dataDir)) {
+            try (Stream<Path> files = Files.walk(dataDir)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(file);
+            }
+        }
+        DatabaseManager.initializeDatabase();
+    }
+
+    private static String username(int thread, int i) {
+        return "user-" + thread + "-" + i;
+    }
+
+    @Test
+    void concurrentAccountChangesAreAllStoredAndReloaded() throws Exception {
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger logins = new AtomicInteger();
+        AtomicInteger contestedWins = new AtomicInteger();
+        List<Future<Void>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            results.add(pool.submit((Callable<Void>) () -> {
+                start.await();
+                if (DatabaseManager.registerUser("contested", "pw", "Contested " + thread, "CONT-0001", "Garbage Collector")) {
+                    contestedWins.incrementAndGet();
+                }
+                for (int i = 0; i < USERS_PER_THREAD; i++) {
+                    String name = username(thread, i);
+                    assertTrue(DatabaseManager.registerUser(name, "pw-" + name, "Name " + name, "EMP" + thread + "-" + i, "Barangay Official"));
+                    UserInfo user = DatabaseManager.authenticateUser(name, "pw-" + name);
+                    assertNotNull(user, name);
+                    DatabaseManager.recordLogin(LocalDateTime.now().format(STAMP) + " - " + user.getFullName() + " (" + user.getRole() + ")");
+                    logins.incrementAndGet();
+                    // Every other account ends suspended; the rest are suspended and then reactivated
+                    assertTrue(DatabaseManager.setUserSuspended(name, true));
+                    if (i % 2 == 1) assertTrue(DatabaseManager.setUserSuspended(name, false));
+                    assertNull(DatabaseManager.authenticateUser(name, "wrong"));
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> result : results) result.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertEquals(1, contestedWins.get(), "exactly one thread registers a contested username");
+        assertEquals(THREADS * USERS_PER_THREAD, logins.get());
+
+        for (int t = 0; t < THREADS; t++) {
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                String name = username(t, i);
+                assertEquals(i % 2 == 0, DatabaseManager.isUserSuspended(name), name);
+                UserInfo user = DatabaseManager.authenticateUser(name, "pw-" + name);
+                if (i % 2 == 0) assertNull(user, name);
+                else assertNotNull(user, name);
+            }
+        }
+
+        // Read everything back through a fresh backend, as the next start would
+        DatabaseManager.shutdown();
+        FileStorageBackend reopened = new FileStorageBackend(dataDir);
+        try {
+            Map<String, UserInfo> reloaded = new HashMap<>();
+            reopened.loadUsers(reloaded);
+            assertEquals(THREADS * USERS_PER_THREAD + 1, reloaded.size());
+            for (int t = 0; t < THREADS; t++) {
+                for (int i = 0; i < USERS_PER_THREAD; i++) {
+                    String name = username(t, i);
+                    UserInfo user = reloaded.get(name);
+                    assertNotNull(user, name);
+                    assertEquals("Name " + name, user.getFullName());
+                    assertEquals("EMP" + t + "-" + i, user.getEmployeeId());
+                    assertEquals(i % 2 == 0, user.isSuspended(), name);
+                    assertTrue(user.checkPassword("pw-" + name), name);
+                    assertFalse(user.checkPassword("pw-" + name + "x"), name);
+                }
+            }
+            assertTrue(reloaded.get("contested").checkPassword("pw"));
+            assertEquals(logins.get(), reopened.lastLogins(logins.get() + 100).size());
+        } finally {
+            reopened.close();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Accounts and record log edits from several terminals sharing one database, against
+ * an in-memory H2 database in MySQL mode standing in for the server.
+ */
+class JdbcStorageBackendTest {
+
+    private static int databases;
+
+    private String url;
+    private final List<JdbcStorageBackend> backends = new ArrayList<>();
+
+    @BeforeEach
+    void createDatabase() {
+        url = "jdbc:h2:mem:bsk" + (++databases) + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+
+    @AfterEach
+    void closeBackends() {
+        for (JdbcStorageBackend backend : backends) backend.close();
+    }
+
+    private JdbcStorageBackend openBackend() throws IOException {
+        JdbcStorageBackend backend = new JdbcStorageBackend(new ConnectionPool(url, "sa", "", 2));
+        backends.add(backend);
+        return backend;
+    }
+
+    /** A terminal: its own connection pool and copy of the records, replayed from the database. */
+    private WasteRecords openTerminal() throws IOException {
+        WasteRecords records = new WasteRecords();
+        records.open(openBackend().openRecordLog());
+        return records;
+    }
+
+    private static UserInfo account(String password, String role, boolean suspended) {
+        return new UserInfo("Juan Dela Cruz", "TRK0-0005", role, "juan", password, suspended);
+    }
+
+    private static Object[] giver(String name, double weight) {
+        return new Object[]{LocalDate.of(2024, 3, 1), "Purok 1", name, "Biodegradable", weight, "oya123"};
+    }
+
+    private static List<String> giverNames(WasteRecords records) {
+        ColumnarLogStore store = records.store(RecordLog.TABLE_GIVER);
+        List<String> names = new ArrayList<>();
+        for (int row = 0; row < store.size(); row++) names.add(store.getValue(row, 2) + " " + store.getValue(row, 4));
+        return names;
+    }
+
+    @Test
+    void rehashFromAStaleCopyKeepsAnotherTerminalsSuspension() throws IOException {
+        JdbcStorageBackend first = openBackend();
+        JdbcStorageBackend second = openBackend();
+        first.addUser(account("old-hash", "Garbage Collector", false));
+        UserInfo seenBySecond = second.loadUser("juan");
+
+        assertTrue(first.updateUser(seenBySecond, account("old-hash", "Garbage Collector", true)));
+        // The second terminal still has the active copy and upgrades its password hash
+        assertTrue(second.updateUser(seenBySecond, account("new-hash", "Garbage Collector", false)));
+
+        UserInfo stored = first.loadUser("juan");
+        assertEquals("new-hash", stored.getPassword());
+        assertTrue(stored.isSuspended());
+    }
+
+    @Test
+    void changeToAFieldAnotherTerminalChangedIsRefused() throws IOException {
+        JdbcStorageBackend first = openBackend();
+        JdbcStorageBackend second = openBackend();
+        first.addUser(account("hash", "Garbage Collector", false));
+        UserInfo seenBySecond = second.loadUser("juan");
+
+        assertTrue(first.updateUser(seenBySecond, account("hash", "Barangay Official", false)));
+        assertFalse(second.updateUser(seenBySecond, account("hash", "Administrator", false)));
+
+        assertEquals("Barangay Official", second.loadUser("juan").getRole());
+        assertNull(second.loadUser("nobody"));
+    }
+
+    @Test
+    void addingAnAccountTwiceFails() throws IOException {
+        openBackend().addUser(account("hash", "Garbage Collector", false));
+        assertThrows(IOException.class, () -> openBackend().addUser(account("other", "Administrator", false)));
+    }
+
+    @Test
+    void editsFromTwoTerminalsReplayOntoTheRecordsTheyNamed() throws IOException {
+        WasteRecords setup = openTerminal();
+        setup.add(RecordLog.TABLE_GIVER, giver("Ana", 1.0));
+        setup.add(RecordLog.TABLE_GIVER, giver("Ben", 2.0));
+        setup.add(RecordLog.TABLE_GIVER, giver("Cora", 3.0));
+        setup.close();
+
+        // Both terminals start from Ana, Ben, Cora
+        WasteRecords first = openTerminal();
+        WasteRecords second = openTerminal();
+        first.remove(RecordLog.TABLE_GIVER, 0);                          // Ana
+        second.update(RecordLog.TABLE_GIVER, 1, giver("Ben", 2.5));      // Ben, still row 1 on this terminal
+        second.remove(RecordLog.TABLE_GIVER, 2);                          // Cora
+        first.add(RecordLog.TABLE_GIVER, giver("Dina", 4.0));
+        first.update(RecordLog.TABLE_GIVER, 1, giver("Cora", 3.5));      // Cora, already deleted by the other terminal
+        first.close();
+        second.close();
+
+        assertEquals(List.of("Ben 2.5", "Dina 4.0"), giverNames(openTerminal()));
+    }
+
+    @Test
+    void pollingBringsInAnotherTerminalsChanges() throws Exception {
+        WasteRecords setup = openTerminal();
+        setup.add(RecordLog.TABLE_GIVER, giver("Ana", 1.0));
+        setup.add(RecordLog.TABLE_GIVER, giver("Ben", 2.0));
+        setup.close();
+
+        WasteRecords first = openTerminal();
+        WasteRecords second = openTerminal();
+
+        // Polled changes are handed to the executor; the test thread applies them, as the EDT would
+        BlockingQueue<Runnable> polled = new LinkedBlockingQueue<>();
+        System.setProperty("bsk.records.pollSeconds", "1");
+        try {
+            first.startPolling(polled::add);
+        } finally {
+            System.clearProperty("bsk.records.pollSeconds");
+        }
+        second.remove(RecordLog.TABLE_GIVER, 0);                         // Ana
+        second.update(RecordLog.TABLE_GIVER, 0, giver("Ben", 2.5));
+        second.add(RecordLog.TABLE_GIVER, giver("Cora", 3.0));
+        first.add(RecordLog.TABLE_GIVER, giver("Dina", 4.0));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!giverNames(first).equals(List.of("Ben 2.5", "Dina 4.0", "Cora 3.0")) && System.nanoTime() < deadline) {
+            Runnable apply = polled.poll(1, TimeUnit.SECONDS);
+            if (apply != null) apply.run();
+        }
+        assertEquals(List.of("Ben 2.5", "Dina 4.0", "Cora 3.0"), giverNames(first));
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void replayKeepsRecordIdsSoLaterEditsStillApply() throws IOException {
+        WasteRecords before = openTerminal();
+        before.add(RecordLog.TABLE_GIVER, giver("Ana", 1.0));
+        before.add(RecordLog.TABLE_GIVER, giver("Ben", 2.0));
+        before.close();
+
+        WasteRecords after = openTerminal();
+        after.remove(RecordLog.TABLE_GIVER, 0);
+        after.update(RecordLog.TABLE_GIVER, 0, giver("Ben", 2.25));
+        after.close();
+
+        assertEquals(List.of("Ben 2.25"), giverNames(openTerminal()));
+    }
+}
@@ -0,0 +1,65 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The Prometheus exposition of a histogram: cumulative buckets labelled with their
+ * upper bound, then _sum and _count.
+ */
+class MetricsTest {
+
+    @Test
+    void histogramBucketsAreCumulative() throws IOException {
+        Metrics.Histogram h = Metrics.histogram("bsk_test_seconds", "Test latencies", "op", "a\"b");
+        h.observeNanos(300_000L);         // 0.3 ms, first bucket
+        h.observeNanos(500_000L);         // exactly on the 0.5 ms bound, still the first bucket
+        h.observeNanos(2_000_000L);       // 2 ms, the 0.0025 bucket
+        h.observeNanos(40_000_000_000L);  // 40 s, only +Inf
+
+        List<String> lines = exposition("bsk_test_seconds");
+        assertEquals("# HELP bsk_test_seconds Test latencies", lines.get(0));
+        assertEquals("# TYPE bsk_test_seconds histogram", lines.get(1));
+        assertEquals("bsk_test_seconds_bucket{op=\"a\\\"b\",le=\"0.0005\"} 2", lines.get(2));
+        assertEquals("bsk_test_seconds_bucket{op=\"a\\\"b\",le=\"0.001\"} 2", lines.get(3));
+        assertEquals("bsk_test_seconds_bucket{op=\"a\\\"b\",le=\"0.0025\"} 3", lines.get(4));
+        assertEquals("bsk_test_seconds_bucket{op=\"a\\\"b\",le=\"30\"} 3", lines.get(16));
+        assertEquals("bsk_test_seconds_bucket{op=\"a\\\"b\",le=\"+Inf\"} 4", lines.get(17));
+        assertEquals("bsk_test_seconds_sum{op=\"a\\\"b\"} 40.002800000", lines.get(18));
+        assertEquals("bsk_test_seconds_count{op=\"a\\\"b\"} 4", lines.get(19));
+        assertEquals(20, lines.size());
+
+        long previous = 0;
+        for (String line : lines.subList(2, 18)) {
+            long count = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+            assertTrue(count >= previous, line);
+            previous = count;
+        }
+    }
+
+    @Test
+    void unlabelledHistogramGetsOnlyLe() throws IOException {
+        Metrics.histogram("bsk_test_plain_seconds", "Unlabelled").observeNanos(1_000_000L);
+
+        List<String> lines = exposition("bsk_test_plain_seconds");
+        assertEquals("bsk_test_plain_seconds_bucket{le=\"0.0005\"} 0", lines.get(2));
+        assertEquals("bsk_test_plain_seconds_bucket{le=\"0.001\"} 1", lines.get(3));
+        assertEquals("bsk_test_plain_seconds_count 1", lines.get(19));
+    }
+
+    /** The exposition lines of one metric family, HELP and TYPE first. */
+    private static List<String> exposition(String name) throws IOException {
+        StringBuilder text = new StringBuilder();
+        Metrics.writePrometheus(text);
+        List<String> lines = new ArrayList<>();
+        for (String line : text.toString().split("\n")) {
+            String metric = line.startsWith("# ") ? line.split(" ")[2] : line.split("[{ ]")[0];
+            if (metric.equals(name) || metric.startsWith(name + "_")) lines.add(line);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,76 @@
+package bsk.benchmarks;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What the analytics screen computes on SEARCH or a breakdown change
+ * (AnalyticsReport.compute), over Waste Giver and Collection Log tables of the given
+ * size spread across three years. The records are kept in memory only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private static final String[] PUROKS = {"Purok 1", "Purok 2", "Purok 3", "Purok 4", "Purok 5", "Purok 6"};
+    private static final String[] WASTE_TYPES = {"Biodegradable", "Recyclable", "Residual"};
+    private static final IntConsumer NO_PROGRESS = percent -> { };
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    /** Date filter as typed on the screen; empty means all time. */
+    @Param({"", "2024", "Jan 1, 2024 to Mar 31, 2024"})
+    public String filter;
+
+    @Param({"By Purok", "By Route", "By Month", "By Day"})
+    public String breakdown;
+
+    private Object records;
+
+    @Setup(Level.Trial)
+    public void loadRecords() throws Throwable {
+        records = AppHandles.NEW_WASTE_RECORDS.invokeExact();
+        Random random = new Random(42);
+        LocalDate first = LocalDate.of(2023, 1, 1);
+        List<Object[]> givers = new ArrayList<>();
+        List<Object[]> collections = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            LocalDate date = first.plusDays(random.nextInt(3 * 365));
+            givers.add(new Object[]{date, PUROKS[random.nextInt(PUROKS.length)], "Giver " + random.nextInt(5000),
+                WASTE_TYPES[random.nextInt(WASTE_TYPES.length)], random.nextInt(500) / 10.0, "oya123"});
+            int route = random.nextInt(12);
+            collections.add(new Object[]{date, "T-" + String.format("%03d", random.nextInt(40)), "Route " + (char) ('A' + route),
+                "Driver " + random.nextInt(60), random.nextInt(2000) / 10.0, random.nextInt(800) / 10.0,
+                random.nextInt(1200) / 10.0, "jayjay"});
+        }
+        AppHandles.ADD_ALL.invokeExact(records, AppHandles.TABLE_GIVER, givers);
+        AppHandles.ADD_ALL.invokeExact(records, AppHandles.TABLE_COLLECTION, collections);
+    }
+
+    @Benchmark
+    public Object computeAnalytics() throws Throwable {
+        return AppHandles.COMPUTE_ANALYTICS.invokeExact(records, filter, breakdown, NO_PROGRESS);
+    }
+}
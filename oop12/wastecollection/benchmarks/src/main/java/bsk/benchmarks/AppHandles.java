@@ -0,0 +1,85 @@
+package bsk.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Handles to the application classes the benchmarks call.
+ *
+ * The application lives in the unnamed package, which code in a named package (and
+ * JMH requires one) cannot reference by name, so its methods are looked up once here.
+ * The handles are static final, so the JIT inlines calls through them like direct calls.
+ * Classes are resolved without initializing them: a benchmark's setup can still set the
+ * system properties (bsk.dataDir, ...) that they read when first used.
+ */
+final class AppHandles {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+    private static final Class<?> DATABASE_MANAGER = type("DatabaseManager");
+    private static final Class<?> USER_INFO = type("UserInfo");
+    private static final Class<?> WASTE_RECORDS = type("WasteRecords");
+    private static final Class<?> ANALYTICS_REPORT = type("AnalyticsReport");
+
+    // DatabaseManager
+    static final MethodHandle INITIALIZE_DATABASE = staticMethod(DATABASE_MANAGER, "initializeDatabase", void.class);
+    static final MethodHandle AUTHENTICATE_USER = staticMethod(DATABASE_MANAGER, "authenticateUser", USER_INFO, String.class, String.class)
+        .asType(MethodType.methodType(Object.class, String.class, String.class));
+    static final MethodHandle REGISTER_USER = staticMethod(DATABASE_MANAGER, "registerUser", boolean.class,
+        String.class, String.class, String.class, String.class, String.class);
+    static final MethodHandle RECORD_LOGIN = staticMethod(DATABASE_MANAGER, "recordLogin", void.class, String.class);
+    static final MethodHandle SAVE_ALL_USERS = staticMethod(DATABASE_MANAGER, "saveAllUsers", void.class);
+    static final MethodHandle SHUTDOWN = staticMethod(DATABASE_MANAGER, "shutdown", void.class);
+
+    // PasswordHasher
+    static final MethodHandle HASH_PASSWORD = staticMethod(type("PasswordHasher"), "hash", String.class, String.class);
+
+    // WasteRecords and the analytics screen's computation
+    static final MethodHandle NEW_WASTE_RECORDS = constructor(WASTE_RECORDS);
+    static final MethodHandle ADD_ALL = virtualMethod(WASTE_RECORDS, "addAll", void.class, byte.class, List.class)
+        .asType(MethodType.methodType(void.class, Object.class, byte.class, List.class));
+    static final MethodHandle COMPUTE_ANALYTICS = staticMethod(ANALYTICS_REPORT, "compute", ANALYTICS_REPORT,
+            WASTE_RECORDS, String.class, String.class, IntConsumer.class)
+        .asType(MethodType.methodType(Object.class, Object.class, String.class, String.class, IntConsumer.class));
+
+    /** RecordLog.TABLE_COLLECTION */
+    static final byte TABLE_COLLECTION = 2;
+    /** RecordLog.TABLE_GIVER */
+    static final byte TABLE_GIVER = 1;
+
+    private AppHandles() {}
+
+    private static Class<?> type(String name) {
+        try {
+            return Class.forName(name, false, AppHandles.class.getClassLoader());
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalStateException("Application class not on the classpath: " + name, ex);
+        }
+    }
+
+    private static MethodHandle staticMethod(Class<?> owner, String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            return LOOKUP.findStatic(owner, name, MethodType.methodType(returnType, parameters));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Missing " + owner.getName() + "." + name, ex);
+        }
+    }
+
+    private static MethodHandle virtualMethod(Class<?> owner, String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            return LOOKUP.findVirtual(owner, name, MethodType.methodType(returnType, parameters));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Missing " + owner.getName() + "." + name, ex);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner) {
+        try {
+            return LOOKUP.findConstructor(owner, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Missing " + owner.getName() + "()", ex);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package bsk.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DatabaseManager against a user directory of the given size, on the file backend in
+ * a scratch data directory. Every fork starts from a freshly written users.txt.
+ *
+ * Passwords are hashed at the production cost (bsk.auth.iterations), so
+ * authenticateUser and registerUser measure what a login or sign-up costs; all
+ * generated accounts share one hash so setup does not take hours.
+ *
+ * To pick bsk.auth.iterations for a machine, run authenticateUser there over a few
+ * costs and take the highest whose p0.95 stays within the login budget:
+ *
+ *   java -jar benchmarks.jar UserDirectoryBenchmark.authenticateUser -p users=100 -p authIterations=100000,210000,310000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDirectoryBenchmark {
+
+    private static final String PASSWORD = "Benchmark@2025";
+    private static final String[] ROLES = {"Administrator", "Garbage Collector", "Barangay Official"};
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Param({"100", "10000", "100000"})
+    public int users;
+
+    /** PBKDF2 iterations for the generated accounts; empty keeps bsk.auth.iterations. */
+    @Param({""})
+    public String authIterations;
+
+    private Path dataDir;
+    private final AtomicLong registered = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void createDirectory() throws Throwable {
+        dataDir = Files.createTempDirectory("bsk-bench");
+        System.setProperty("bsk.dataDir", dataDir.toString());
+        if (!authIterations.isEmpty()) System.setProperty("bsk.auth.iterations", authIterations);
+        String hash = (String) AppHandles.HASH_PASSWORD.invokeExact(PASSWORD);
+        try (BufferedWriter out = Files.newBufferedWriter(dataDir.resolve("users.txt"), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < users; i++) {
+                out.write(String.join("|", "user" + i, hash, "Resident " + i,
+                    String.format("BRGY-%04d", i % 10000), ROLES[i % ROLES.length], "false"));
+                out.newLine();
+            }
+        }
+        AppHandles.INITIALIZE_DATABASE.invokeExact();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDirectory() throws Throwable {
+        AppHandles.SHUTDOWN.invokeExact();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.delete(p);
+                } catch (IOException ex) {
+                    // scratch space; the OS cleans up
+                }
+            });
+        }
+    }
+
+    /** Startup load of the whole directory (users.bin once the first load has migrated it). */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void initializeDatabase() throws Throwable {
+        AppHandles.INITIALIZE_DATABASE.invokeExact();
+    }
+
+    /** A full login: lookup, PBKDF2 verify and the suspension check; sampled for percentiles too. */
+    @Benchmark
+    @BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object authenticateUser() throws Throwable {
+        String username = "user" + ThreadLocalRandom.current().nextInt(users);
+        return AppHandles.AUTHENTICATE_USER.invokeExact(username, PASSWORD);
+    }
+
+    /** Hash plus a synced append to users.log; the directory grows as this runs. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean registerUser() throws Throwable {
+        String username = "new" + registered.incrementAndGet();
+        return (boolean) AppHandles.REGISTER_USER.invokeExact(username, PASSWORD, "New Resident", "NEW0-0001", "Barangay Official");
+    }
+
+    /** Caller's cost of recording a login: the entry is queued and written in the background. */
+    @Benchmark
+    public void recordLogin() throws Throwable {
+        String entry = LocalDateTime.now().format(STAMP) + " - Resident (Garbage Collector)";
+        AppHandles.RECORD_LOGIN.invokeExact(entry);
+    }
+
+    /** Full snapshot rewrite (users.txt and users.bin). */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void saveAllUsers() throws Throwable {
+        AppHandles.SAVE_ALL_USERS.invokeExact();
+    }
+}
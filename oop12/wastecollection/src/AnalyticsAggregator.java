@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps running biodegradable/recyclable/residual totals for the Collection Log by
+ * listening to the column store, and tells listeners when they change. Reading the
+ * overall totals is O(1); a date range is answered from the {@link RollupCube}'s
+ * collection totals, which touch a few dozen buckets no matter how many rows have
+ * been logged. The cube must be attached to the store before this aggregator, so it
+ * is up to date by the time the change listeners run.
+ */
+public class AnalyticsAggregator implements ColumnarLogStore.Listener {
+
+    /** Immutable snapshot of the three waste totals. */
+    public static final class Totals {
+        public static final Totals EMPTY = new Totals(0, 0, 0);
+
+        private final double bio;
+        private final double recy;
+        private final double resi;
+
+        Totals(double bio, double recy, double resi) {
+            this.bio = bio;
+            this.recy = recy;
+            this.resi = resi;
+        }
+
+        public double getBio() { return bio; }
+        public double getRecy() { return recy; }
+        public double getResi() { return resi; }
+        public double getTotal() { return bio + recy + resi; }
+    }
+
+    /** Running sums for one group of rows. */
+    private static final class Bucket {
+        double bio, recy, resi;
+        int rows;
+
+        void add(double b, double rc, double rs, int sign) {
+            bio += sign * b;
+            recy += sign * rc;
+            resi += sign * rs;
+            rows += sign;
+            if (rows == 0) {
+                // Reset so repeated add/subtract cannot leave rounding residue behind
+                bio = recy = resi = 0;
+            }
+        }
+
+        Totals snapshot() {
+            return new Totals(bio, recy, resi);
+        }
+    }
+
+    private final ColumnarLogStore store;
+    private final RollupCube rollups;
+    private final int bioColumn, recyColumn, resiColumn;
+    private final Bucket overall = new Bucket();
+    private final List<Runnable> changeListeners = new ArrayList<>();
+
+    public AnalyticsAggregator(ColumnarLogStore store, RollupCube rollups, int bioColumn, int recyColumn, int resiColumn) {
+        this.store = store;
+        this.rollups = rollups;
+        this.bioColumn = bioColumn;
+        this.recyColumn = recyColumn;
+        this.resiColumn = resiColumn;
+        for (int row = 0; row < store.size(); row++) addStoreRow(row, 1);
+        store.addListener(this);
+    }
+
+    /** Runs after every change to the totals. */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public Totals getTotals() {
+        return overall.snapshot();
+    }
+
+    /** Totals for records dated within [fromDay, toDay] (epoch days, inclusive). */
+    public Totals getTotals(int fromDay, int toDay) {
+        return rollups.breakdown(RollupCube.Dimension.TOTAL, fromDay, toDay)
+            .getOrDefault(RollupCube.Dimension.TOTAL.toString(), Totals.EMPTY);
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int lastRow) {
+        for (int row = firstRow; row <= lastRow; row++) addStoreRow(row, 1);
+        fireChanged();
+    }
+
+    @Override
+    public void rowUpdated(int row, Object[] oldValues) {
+        addValues(oldValues, -1);
+        addStoreRow(row, 1);
+        fireChanged();
+    }
+
+    @Override
+    public void rowDeleted(int row, int slot, Object[] oldValues) {
+        addValues(oldValues, -1);
+        fireChanged();
+    }
+
+    private void addStoreRow(int row, int sign) {
+        overall.add(store.getNumber(row, bioColumn), store.getNumber(row, recyColumn), store.getNumber(row, resiColumn), sign);
+    }
+
+    private void addValues(Object[] values, int sign) {
+        overall.add(number(values[bioColumn]), number(values[recyColumn]), number(values[resiColumn]), sign);
+    }
+
+    private void fireChanged() {
+        for (Runnable r : changeListeners) r.run();
+    }
+
+    private static double number(Object value) {
+        return (value instanceof Number) ? ((Number) value).doubleValue() : 0.0;
+    }
+}
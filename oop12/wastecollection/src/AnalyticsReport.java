@@ -0,0 +1,73 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Everything the analytics screen shows: totals for the date filter, the same period
+ * last year and the selected breakdown. Computed off the EDT by {@link #compute}.
+ */
+public final class AnalyticsReport {
+
+    public int[] range;              // null = all time
+    public boolean invalidFilter;
+    public AnalyticsAggregator.Totals totals;
+    public double lastYear;          // same period last year, when filtered
+    public final List<Map.Entry<String, AnalyticsAggregator.Totals>> breakdown = new ArrayList<>();
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy");
+
+    /**
+     * Reads totals, year-over-year and the breakdown under one read lock so the numbers
+     * come from a single consistent state even while records are being added.
+     *
+     * @param filterDate      date filter text (see LogDates.parseRange), or null/blank for all time
+     * @param breakdownChoice "By Purok", "By Route", "By Truck", "By Month", "By Week" or "By Day"; null for none
+     */
+    public static AnalyticsReport compute(WasteRecords records, String filterDate, String breakdownChoice, IntConsumer progress) {
+        AnalyticsReport result = new AnalyticsReport();
+        boolean filtered = filterDate != null && !filterDate.trim().isEmpty();
+        result.range = filtered ? LogDates.parseRange(filterDate) : null;
+        if (filtered && result.range == null) {
+            result.invalidFilter = true;
+            return result;
+        }
+        int[] range = result.range;
+
+        records.getLock().readLock().lock();
+        try {
+            // Totals are maintained incrementally by the aggregator, so this is a lookup, not a scan
+            result.totals = filtered ? records.getAnalytics().getTotals(range[0], range[1]) : records.getAnalytics().getTotals();
+            if (filtered) {
+                int[] previous = LogDates.previousYear(range);
+                result.lastYear = records.getAnalytics().getTotals(previous[0], previous[1]).getTotal();
+            }
+            progress.accept(50);
+            if (Thread.currentThread().isInterrupted() || breakdownChoice == null) return result;
+
+            int[] span = range != null ? range : records.getRollups().bounds();
+            if (span == null) return result;
+            if ("By Month".equals(breakdownChoice) || "By Week".equals(breakdownChoice) || "By Day".equals(breakdownChoice)) {
+                RollupCube.Granularity g = "By Month".equals(breakdownChoice) ? RollupCube.Granularity.MONTH
+                    : "By Week".equals(breakdownChoice) ? RollupCube.Granularity.WEEK : RollupCube.Granularity.DAY;
+                for (Map.Entry<Integer, AnalyticsAggregator.Totals> e : records.getRollups().series(g, span[0], span[1]).entrySet()) {
+                    LocalDate start = LocalDate.ofEpochDay(e.getKey());
+                    String name = g == RollupCube.Granularity.MONTH ? start.format(MONTH_FORMAT)
+                        : g == RollupCube.Granularity.WEEK ? "Week of " + LogDates.format(start) : LogDates.format(start);
+                    result.breakdown.add(new AbstractMap.SimpleEntry<>(name, e.getValue()));
+                }
+            } else {
+                RollupCube.Dimension dim = "By Purok".equals(breakdownChoice) ? RollupCube.Dimension.PUROK
+                    : "By Route".equals(breakdownChoice) ? RollupCube.Dimension.ROUTE : RollupCube.Dimension.TRUCK;
+                result.breakdown.addAll(records.getRollups().breakdown(dim, span[0], span[1]).entrySet());
+            }
+            progress.accept(100);
+        } finally {
+            records.getLock().readLock().unlock();
+        }
+        return result;
+    }
+}
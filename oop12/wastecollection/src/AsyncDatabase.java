@@ -0,0 +1,107 @@
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * CompletableFuture versions of the DatabaseManager calls the portal makes from
+ * Swing listeners, run on a small pool of I/O threads so a slow disk or database
+ * never holds up the Event Dispatch Thread. Results are delivered on an I/O thread;
+ * Swing callers continue with {@code whenCompleteAsync(..., SwingUtilities::invokeLater)}.
+ *
+ * Ordering: calls for the same username run one at a time, in the order they were
+ * made, so a suspend followed by an activate is stored in that order even though
+ * they are queued from different clicks. Calls for different users (and
+ * saveAllUsers) run in parallel. A failed call does not stop the next one for that
+ * user; its future completes exceptionally.
+ *
+ * Pool size: bsk.io.threads (default 4).
+ */
+public class AsyncDatabase {
+
+    private static final ThreadPoolExecutor IO;
+    // Last queued call per username; removed again once it finishes and nothing follows it
+    private static final Map<String, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+
+    static {
+        int threads = Math.max(1, Integer.getInteger("bsk.io.threads", 4));
+        AtomicInteger count = new AtomicInteger();
+        IO = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "db-io-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        IO.allowCoreThreadTimeOut(true);
+        Metrics.gauge("bsk_io_queue_depth", "DatabaseManager calls waiting for an I/O thread", () -> IO.getQueue().size());
+    }
+
+    private AsyncDatabase() {}
+
+    public static CompletableFuture<UserInfo> authenticateUser(String username, String password) {
+        return forUser(username, () -> DatabaseManager.authenticateUser(username, password));
+    }
+
+    public static CompletableFuture<Boolean> registerUser(String username, String password,
+                                                          String fullName, String employeeId, String role) {
+        return forUser(username, () -> DatabaseManager.registerUser(username, password, fullName, employeeId, role));
+    }
+
+    /** Queues a login entry for the user; completes once it is handed to the login recorder. */
+    public static CompletableFuture<Void> recordLogin(String username, String entry) {
+        return forUser(username, () -> {
+            DatabaseManager.recordLogin(entry);
+            return null;
+        });
+    }
+
+    public static CompletableFuture<Boolean> setUserSuspended(String username, boolean suspended) {
+        return forUser(username, () -> DatabaseManager.setUserSuspended(username, suspended));
+    }
+
+    public static CompletableFuture<Boolean> updateUser(UserInfo updated) {
+        return forUser(updated.getUsername(), () -> DatabaseManager.updateUser(updated));
+    }
+
+    /** Every account; read from the database with shared storage. */
+    public static CompletableFuture<List<UserInfo>> getAllUsers() {
+        return CompletableFuture.supplyAsync(DatabaseManager::getAllUsers, IO);
+    }
+
+    /** Rewrites the users snapshot; not ordered with per-user calls (it saves whatever is current). */
+    public static CompletableFuture<Void> saveAllUsers() {
+        return CompletableFuture.runAsync(DatabaseManager::saveAllUsers, IO);
+    }
+
+    /** Runs the call after every earlier call for the same user has finished. */
+    private static <T> CompletableFuture<T> forUser(String username, Supplier<T> call) {
+        AtomicReference<CompletableFuture<T>> queued = new AtomicReference<>();
+        tails.compute(username, (k, tail) -> {
+            queued.set(tail == null
+                ? CompletableFuture.supplyAsync(call, IO)
+                : tail.handle((result, failure) -> null).thenApplyAsync(ignored -> call.get(), IO));
+            return queued.get();
+        });
+        CompletableFuture<T> future = queued.get();
+        future.whenComplete((result, failure) -> tails.remove(username, future));
+        return future;
+    }
+
+    /** Waits up to the timeout for queued calls to finish; call before DatabaseManager.shutdown(). */
+    public static void shutdown(long timeoutMillis) {
+        IO.shutdown();
+        try {
+            if (!IO.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                System.err.println("Database I/O still running at shutdown: " + IO.getActiveCount() + " active, "
+                    + IO.getQueue().size() + " queued");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
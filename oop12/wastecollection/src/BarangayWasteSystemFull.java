@@ -3,12 +3,13 @@ import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
+import javax.swing.table.TableModel;
 import javax.swing.Timer;
 
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
 import java.net.URI;
 import java.text.DecimalFormat;
 import java.time.LocalDate;
@@ -56,20 +57,47 @@ public class BarangayWasteSystemFull extends JFrame {
     private JLabel dashboardGreetingLabel;
     private JLabel nameLabel, roleLabel, idLabel; // Sidebar references
     private JLabel totalWeightLabel, totalBioLabel, totalRecyLabel, totalResiLabel; // Analytics references
+    private JLabel yearOverYearLabel; // Same period last year, shown when a date filter is active
+    private JComboBox<String> breakdownDropdown; // Analytics breakdown dimension / period
+    private DefaultTableModel breakdownTableModel;
+    private final String[] BREAKDOWN_OPTIONS = {"By Purok", "By Route", "By Truck", "By Month", "By Week", "By Day"};
+    private JProgressBar analyticsProgress; // Shown while analytics are computed in the background
+    private SwingWorker<AnalyticsReport, Void> analyticsWorker; // Latest analytics computation, cancelled when superseded
     private String currentFilterDate = null; // For date filtering in analytics
     private JPanel cardHolder; // Dashboard card container for role-based visibility
     private JPanel wasteGiverCard, collectionLogCard, analyticsCard, mrfCard; // Dashboard card references for visibility control
     // Admin control button (login activity persisted in DatabaseManager)
     private JButton viewLoginsBtn;
     private JButton viewDatabaseBtn;
+    private JButton systemHealthBtn;
+
+    // --- Startup ---
+    private static final long LAUNCH_NANOS = System.nanoTime(); // class load, i.e. just after the JVM started
+    // Screens are built the first time they are shown; builders not yet run are kept here
+    private final java.util.Map<String, java.util.function.Supplier<JPanel>> pendingCards = new java.util.HashMap<>();
+    private JButton proceedButton;          // Disabled until users and records are loaded
+    private JProgressBar startupProgress;   // Shown on the welcome screen while they load
+
+    // --- Metrics: shown in System Health, published by MetricsExporter ---
+    private static final String AUTH_SECONDS = "Time from LOG IN or SIGN UP to the result, password hashing included";
+    private static final String AUTH_TOTAL = "Login and sign-up attempts by outcome";
+    private static final Metrics.Histogram LOGIN_SECONDS = Metrics.histogram("bsk_auth_seconds", AUTH_SECONDS, "action", "login");
+    private static final Metrics.Histogram SIGNUP_SECONDS = Metrics.histogram("bsk_auth_seconds", AUTH_SECONDS, "action", "signup");
+    private static final Metrics.Counter LOGIN_ACCEPTED = Metrics.counter("bsk_auth_total", AUTH_TOTAL, "action", "login", "result", "accepted");
+    private static final Metrics.Counter LOGIN_REJECTED = Metrics.counter("bsk_auth_total", AUTH_TOTAL, "action", "login", "result", "rejected");
+    private static final Metrics.Counter SIGNUP_ACCEPTED = Metrics.counter("bsk_auth_total", AUTH_TOTAL, "action", "signup", "result", "accepted");
+    private static final Metrics.Counter SIGNUP_REJECTED = Metrics.counter("bsk_auth_total", AUTH_TOTAL, "action", "signup", "result", "rejected");
+    private static final Metrics.Histogram ANALYTICS_SECONDS = Metrics.histogram("bsk_analytics_refresh_seconds",
+        "Time from an analytics request to its results on screen");
+    private static final Metrics.Counter ANALYTICS_SUPERSEDED = Metrics.counter("bsk_analytics_superseded_total",
+        "Analytics computations cancelled by a newer request");
     
     // --- Waste Data Model ---
-    private DefaultTableModel wasteGiverTableModel;
-    private DefaultTableModel collectionLogTableModel;
-    private final String[] WASTE_GIVER_COLUMNS = {"Date", "Purok", "Giver Name", "Waste Type", "Weight (kg)", "Entered By"};
-    private final String[] COLLECTION_LOG_COLUMNS = {"Date", "Truck ID", "Purok/Route","Driver", "Biodegradable (kg)", "Recyclable (kg)", "Residual (kg)", "Entered By"};
-    private final String[] PUROK_OPTIONS = {"Purok 1", "Purok 2", "Purok 3", "Purok 4", "Purok 5", "Purok 6"};
-    private final String[] WASTE_TYPE_OPTIONS = {"Biodegradable", "Recyclable", "Residual"};
+    private LogTableModel wasteGiverTableModel;
+    private LogTableModel collectionLogTableModel;
+    // Records, indexes and the record log; mutations (on the EDT) take its write lock,
+    // background analytics/search take the read lock for a consistent snapshot
+    private final WasteRecords records = new WasteRecords();
 
     // --- Pattern for Employee ID ---
     private static final Pattern EMPLOYEE_ID_PATTERN = Pattern.compile("^[A-Z0-9]{4}-[A-Z0-9]{4}$");
@@ -80,6 +108,7 @@ public class BarangayWasteSystemFull extends JFrame {
     public BarangayWasteSystemFull() {
         super("Barangay Waste Management & MRF Portal");
 
+        long lookAndFeel = System.nanoTime();
         try {
             for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
                 if ("Nimbus".equals(info.getName())) {
@@ -88,6 +117,7 @@ public class BarangayWasteSystemFull extends JFrame {
                 }
             }
         } catch (Exception e) { /* Fall back to default */ }
+        logStartupPhase("look and feel", lookAndFeel);
 
         addWindowListener(new WindowAdapter() {
             @Override
@@ -96,30 +126,97 @@ public class BarangayWasteSystemFull extends JFrame {
             }
         });
 
-        // Initialize the database
-        DatabaseManager.initializeDatabase();
-        initializeDefaultUsers();
-
-        initializeDataModel();
-
+        long phase = System.nanoTime();
         mainCardPanel = new JPanel(cardLayout);
 
-        // Initialize and add all panels
+        // Only the welcome screen is built up front; the rest are built on first navigation
         mainCardPanel.add(createWelcomeScreen(), "Welcome");
-        mainCardPanel.add(createNavigationChoiceScreen(), "NavChoice");
-        mainCardPanel.add(createAuthPanel(true), "Login");
-        mainCardPanel.add(createAuthPanel(false), "SignUp");
-        mainCardPanel.add(createSystemDashboard(), "Dashboard");
-        mainCardPanel.add(createMRFPlaceholderScreen(), "MRFPlaceholder");
-        mainCardPanel.add(createWasteAnalyticsScreen(), "Analytics");
+        pendingCards.put("NavChoice", this::createNavigationChoiceScreen);
+        pendingCards.put("Login", () -> createAuthPanel(true));
+        pendingCards.put("SignUp", () -> createAuthPanel(false));
+        pendingCards.put("Dashboard", this::createSystemDashboard);
+        pendingCards.put("MRFPlaceholder", this::createMRFPlaceholderScreen);
+        pendingCards.put("Analytics", this::createWasteAnalyticsScreen);
 
         setContentPane(mainCardPanel);
         pack();
         setMinimumSize(new Dimension(1000, 750));
         setLocationRelativeTo(null);
         setVisible(true);
+        logStartupPhase("window shown", phase);
+
+        loadDataInBackground();
+        MetricsExporter.start();
+    }
 
-        cardLayout.show(mainCardPanel, "Welcome");
+    /** Prints how long a startup phase took, and the time since launch, to stderr. */
+    private static void logStartupPhase(String name, long startNanos) {
+        long now = System.nanoTime();
+        System.err.printf("Startup: %s in %d ms (%d ms since launch)%n", name,
+            (now - startNanos) / 1_000_000, (now - LAUNCH_NANOS) / 1_000_000);
+    }
+
+    /**
+     * Loads the user accounts and replays the record log off the EDT while the welcome
+     * screen is up, then attaches the table models on the EDT and enables PROCEED.
+     * The stores are not yet visible to any screen while they load, so replaying them
+     * from the loader thread cannot race with the UI.
+     */
+    private void loadDataInBackground() {
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                long phase = System.nanoTime();
+                DatabaseManager.initializeDatabase();
+                logStartupPhase("users loaded", phase);
+                phase = System.nanoTime();
+                initializeDefaultUsers();
+                logStartupPhase("default users checked", phase);
+                phase = System.nanoTime();
+                int replayed = records.open();
+                logStartupPhase(replayed + " record log entries replayed", phase);
+                return replayed;
+            }
+
+            @Override
+            protected void done() {
+                long phase = System.nanoTime();
+                int replayed = 0;
+                try {
+                    replayed = get();
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    System.err.println("Startup loading failed: " + cause);
+                    if (cause instanceof IllegalStateException) {
+                        // no storage, e.g. the API server already has the data directory
+                        JOptionPane.showMessageDialog(BarangayWasteSystemFull.this, cause.getMessage(),
+                            "Cannot Start", JOptionPane.ERROR_MESSAGE);
+                        System.exit(1);
+                    }
+                }
+                initializeDataModel(replayed);
+                records.startPolling(SwingUtilities::invokeLater); // other terminals' changes, on a shared database
+                startupProgress.setVisible(false);
+                proceedButton.setText("PROCEED ➡️");
+                proceedButton.setEnabled(true);
+                logStartupPhase("table models ready", phase);
+            }
+        }.execute();
+    }
+
+    /** Shows a screen, building it first if this is its first visit. */
+    private void showCard(String name) {
+        ensureCard(name);
+        cardLayout.show(mainCardPanel, name);
+    }
+
+    /** Builds a screen that has not been shown yet, so its components can be set up before it is. */
+    private void ensureCard(String name) {
+        java.util.function.Supplier<JPanel> builder = pendingCards.remove(name);
+        if (builder == null) return;
+        long phase = System.nanoTime();
+        mainCardPanel.add(builder.get(), name);
+        logStartupPhase("built " + name + " screen", phase);
     }
 
     
@@ -136,30 +233,76 @@ public class BarangayWasteSystemFull extends JFrame {
         if (!DatabaseManager.userExists("jayjay")) {
             DatabaseManager.registerUser("jayjay", "password123", "Jayjay Reyes", "TRK0-0006", "Garbage Collector");
         }
-        // Ensure all current users (including any previously requested accounts) are persisted
-        DatabaseManager.saveAllUsers();
     }
 
    
-    private void initializeDataModel() {
-        wasteGiverTableModel = new DefaultTableModel(WASTE_GIVER_COLUMNS, 0);
-        collectionLogTableModel = new DefaultTableModel(COLLECTION_LOG_COLUMNS, 0);
+    private void initializeDataModel(int replayed) {
+        // The table models are read-only; edits go through the journaled Edit dialog.
+        wasteGiverTableModel = new LogTableModel(records.store(RecordLog.TABLE_GIVER));
+        collectionLogTableModel = new LogTableModel(records.store(RecordLog.TABLE_COLLECTION));
+
+        // Keep the analytics labels live while the screen is up
+        records.getAnalytics().addChangeListener(() -> {
+            if (totalWeightLabel != null && totalWeightLabel.isShowing()) calculateAndDisplayAnalytics(currentFilterDate);
+        });
+
+        // Records were restored from the journal by the startup loader
+        if (replayed == 0) {
+            try {
+                records.addSampleRecords();
+            } catch (IOException ex) {
+                System.err.println("Failed to add the sample records: " + ex.getMessage());
+            }
+        }
+    }
+
+    private DateIndex dateIndexFor(LogTableModel model) {
+        return records.dateIndex(tableOf(model));
+    }
+
+    private SearchIndex searchIndexFor(LogTableModel model) {
+        return records.searchIndex(tableOf(model));
+    }
 
-        String date1 = LocalDate.now().minusDays(1).format(DateTimeFormatter.ofPattern("MMM d"));
-        String date2 = LocalDate.now().minusDays(2).format(DateTimeFormatter.ofPattern("MMM d"));
+    private byte tableOf(LogTableModel model) {
+        return records.tableOf(model.getStore());
+    }
 
-        // Records for oya123 (Barangay Official)
-        wasteGiverTableModel.addRow(new Object[]{date1, "Purok 4", "Ana Lopez", "Biodegradable", 5.2, "oya123"});
-        wasteGiverTableModel.addRow(new Object[]{date2, "Purok 5", "Carlos Mendoza", "Recyclable", 2.8, "oya123"});
+    // --- Journaled mutations: every change to a log table goes through these ---
+    // Each returns false, after telling the user, when the change could not be saved
+    private boolean addLoggedRow(LogTableModel model, Object[] row) {
+        try {
+            records.add(tableOf(model), row);
+            return true;
+        } catch (IOException ex) {
+            showSaveFailed(ex);
+            return false;
+        }
+    }
 
-        String today = LocalDate.now().format(DateTimeFormatter.ofPattern("MMM d"));
-        collectionLogTableModel.addRow(new Object[]{today, "T-001", "Route A (Puroks 1, 2)", "Ramon Cruz", 125.5, 45.2, 80.0, "jayjay"});
-        collectionLogTableModel.addRow(new Object[]{today, "T-002", "Route B (Puroks 3, 4)", "Liza Morales", 98.0, 31.7, 65.5, "jayjay"});
-        collectionLogTableModel.addRow(new Object[]{date1, "T-003", "Route C (Puroks 5, 6)", "Jose Alvarez", 150.0, 50.0, 70.0, "jayjay"});
+    private boolean updateLoggedRow(LogTableModel model, int modelRow, Object[] values) {
+        try {
+            records.update(tableOf(model), modelRow, values);
+            return true;
+        } catch (IOException ex) {
+            showSaveFailed(ex);
+            return false;
+        }
+    }
 
-        // Records for jayjay (Garbage Collector)
-        collectionLogTableModel.addRow(new Object[]{date1, "T-004", "Route D (Puroks 1, 3)", "Pedro Garcia", 110.0, 40.0, 75.0, "jayjay"});
-        collectionLogTableModel.addRow(new Object[]{date2, "T-005", "Route E (Puroks 2, 4)", "Maria Santos", 95.0, 35.0, 60.0, "jayjay"});
+    private boolean removeLoggedRow(LogTableModel model, int modelRow) {
+        try {
+            records.remove(tableOf(model), modelRow);
+            return true;
+        } catch (IOException ex) {
+            showSaveFailed(ex);
+            return false;
+        }
+    }
+
+    private void showSaveFailed(IOException ex) {
+        JOptionPane.showMessageDialog(this, "The change could not be saved and was not made.\n" + ex.getMessage(),
+            "Save Error", JOptionPane.ERROR_MESSAGE);
     }
 
 
@@ -185,14 +328,24 @@ public class BarangayWasteSystemFull extends JFrame {
                 JOptionPane.QUESTION_MESSAGE
             );
             if (result == JOptionPane.YES_OPTION) {
-                System.exit(0);
+                shutdown();
             }
         } else {
              // If not logged in, just exit immediately from the frame listener 
-             System.exit(0);
+             shutdown();
         }
     }
 
+    /** Flushes pending journal and login writes before the JVM exits. */
+    private void shutdown() {
+        AsyncDatabase.shutdown(5000);
+        records.close();
+        DatabaseManager.shutdown();
+        EdtWatchdog.stop();
+        MetricsExporter.stop();
+        System.exit(0);
+    }
+
     private JPanel createNavCard(String title, String description, Color baseColor, String cardName) {
         JPanel card = new NewCardGradientPanel(baseColor);
         card.setBorder(BorderFactory.createCompoundBorder(
@@ -216,10 +369,11 @@ public class BarangayWasteSystemFull extends JFrame {
         
         card.addMouseListener(new java.awt.event.MouseAdapter() {
             public void mouseClicked(java.awt.event.MouseEvent e) {
+                ensureCard(cardName);
                 if (cardName.equals("Analytics")) {
                     calculateAndDisplayAnalytics();
                 }
-                cardLayout.show(mainCardPanel, cardName);
+                showCard(cardName);
             }
         });
         
@@ -227,57 +381,94 @@ public class BarangayWasteSystemFull extends JFrame {
     }
 
     private void calculateAndDisplayAnalytics() {
+        currentFilterDate = null;
         calculateAndDisplayAnalytics(null);
     }
 
     private void calculateAndDisplayAnalytics(String filterDate) {
-        // Simple calculation using simulated data from the Collection Log
-        double totalWeight = 0;
-        double totalBio = 0;
-        double totalRecy = 0;
-        double totalResi = 0;
-
-        for (int i = 0; i < collectionLogTableModel.getRowCount(); i++) {
-            String rowDate = (String) collectionLogTableModel.getValueAt(i, 0);
-            if (filterDate != null && !filterDate.trim().isEmpty() && !rowDate.equalsIgnoreCase(filterDate.trim())) {
-                continue; // Skip rows that don't match the filter date
-            }
+        // A newer request supersedes one still running (e.g. the filter changed again)
+        if (analyticsWorker != null && !analyticsWorker.isDone() && analyticsWorker.cancel(true)) {
+            ANALYTICS_SUPERSEDED.increment();
+        }
 
-            // Ensure data types are handled correctly (assuming doubles based on init data)
-            try {
-                // Get values and handle potential errors in casting
-                Object bioValue = collectionLogTableModel.getValueAt(i, 4);
-                Object recyValue = collectionLogTableModel.getValueAt(i, 5);
-                Object resiValue = collectionLogTableModel.getValueAt(i, 6);
-
-                double bio = (bioValue instanceof Number) ? ((Number) bioValue).doubleValue() : 0.0;
-                double recy = (recyValue instanceof Number) ? ((Number) recyValue).doubleValue() : 0.0;
-                double resi = (resiValue instanceof Number) ? ((Number) resiValue).doubleValue() : 0.0;
-
-                totalBio += bio;
-                totalRecy += recy;
-                totalResi += resi;
-                totalWeight += bio + recy + resi;
-            } catch (Exception ex) {
-                System.err.println("Error calculating analytics: Data conversion failed at row " + i + ". " + ex.getMessage());
+        long requested = System.nanoTime();
+        String breakdownChoice = breakdownDropdown == null ? null : (String) breakdownDropdown.getSelectedItem();
+        SwingWorker<AnalyticsReport, Void> worker = new SwingWorker<AnalyticsReport, Void>() {
+            @Override
+            protected AnalyticsReport doInBackground() {
+                return AnalyticsReport.compute(records, filterDate, breakdownChoice, this::setProgress);
+            }
 
+            @Override
+            protected void done() {
+                if (isCancelled() || analyticsWorker != this) return;
+                analyticsProgress.setVisible(false);
+                try {
+                    displayAnalytics(filterDate, get());
+                    ANALYTICS_SECONDS.observeSince(requested);
+                } catch (Exception ex) {
+                    System.err.println("Analytics computation failed: " + ex.getMessage());
+                }
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName()) && worker == analyticsWorker) {
+                analyticsProgress.setValue((Integer) evt.getNewValue());
             }
+        });
+        analyticsWorker = worker;
+        if (analyticsProgress != null) {
+            analyticsProgress.setValue(0);
+            analyticsProgress.setVisible(true);
         }
+        worker.execute();
+    }
+
+    /** Publishes a computed result to the analytics labels and breakdown table (EDT only). */
+    private void displayAnalytics(String filterDate, AnalyticsReport result) {
+        if (result.invalidFilter) {
+            totalWeightLabel.setText("Unrecognized date: " + filterDate);
+            totalBioLabel.setText("Try Jan 5, Jan 2025, 2025 or Jan 1 to Mar 31");
+            totalRecyLabel.setText(" ");
+            totalResiLabel.setText(" ");
+            yearOverYearLabel.setText(" ");
+            breakdownTableModel.setRowCount(0);
+            return;
+        }
+        int[] range = result.range;
+        double totalWeight = result.totals.getTotal();
+        double totalBio = result.totals.getBio();
+        double totalRecy = result.totals.getRecy();
+        double totalResi = result.totals.getResi();
 
         // Handle division by zero if totalWeight is 0
         String bioPercent = (totalWeight > 0) ? df.format((totalBio / totalWeight) * 100) : "0.00";
         String recyPercent = (totalWeight > 0) ? df.format((totalRecy / totalWeight) * 100) : "0.00";
         String resiPercent = (totalWeight > 0) ? df.format((totalResi / totalWeight) * 100) : "0.00";
 
-        String dateSuffix = (filterDate != null && !filterDate.trim().isEmpty()) ? " on " + filterDate : "";
+        String dateSuffix = range != null ? (range[0] == range[1] ? " on " : " from ") + LogDates.describe(range) : "";
         totalWeightLabel.setText("Total Collected: " + df.format(totalWeight) + " kg" + dateSuffix);
         totalBioLabel.setText("Biodegradable: " + df.format(totalBio) + " kg (" + bioPercent + "%)");
         totalRecyLabel.setText("Recyclable: " + df.format(totalRecy) + " kg (" + recyPercent + "%)");
         totalResiLabel.setText("Residual: " + df.format(totalResi) + " kg (" + resiPercent + "%)");
+
+        // Year-over-year comparison for the same period
+        if (range != null) {
+            double lastYear = result.lastYear;
+            String change = lastYear > 0 ? " (" + (totalWeight >= lastYear ? "+" : "") + df.format((totalWeight - lastYear) / lastYear * 100) + "%)" : "";
+            yearOverYearLabel.setText("Same period last year: " + df.format(lastYear) + " kg" + change);
+        } else {
+            yearOverYearLabel.setText(" ");
+        }
+
+        breakdownTableModel.setRowCount(0);
+        for (java.util.Map.Entry<String, AnalyticsAggregator.Totals> e : result.breakdown) {
+            AnalyticsAggregator.Totals t = e.getValue();
+            breakdownTableModel.addRow(new Object[]{e.getKey(), df.format(t.getBio()), df.format(t.getRecy()), df.format(t.getResi()), df.format(t.getTotal())});
+        }
     }
 
-    
-    private JPanel createLogScreen(String title, DefaultTableModel model, boolean isGiverLog) {
+    private JPanel createLogScreen(String title, LogTableModel model, boolean isGiverLog) {
         JPanel panel = new JPanel(new BorderLayout());
 
         // Header Panel (Title + Back Button)
@@ -289,7 +480,7 @@ public class BarangayWasteSystemFull extends JFrame {
 
         // "Back to Dashboard" button
         JButton backButton = createStyledButton("⬅️ Back to Dashboard", INFO_BLUE, Color.WHITE);
-        backButton.addActionListener(e -> cardLayout.show(mainCardPanel, "Dashboard"));
+        backButton.addActionListener(e -> showCard("Dashboard"));
         JPanel backWrap = new JPanel(new FlowLayout(FlowLayout.LEFT));
         backWrap.setBorder(new EmptyBorder(20, 20, 0, 0));
         backWrap.add(backButton);
@@ -305,50 +496,121 @@ public class BarangayWasteSystemFull extends JFrame {
         searchLabel.setFont(FONT_PLAIN_16);
         JTextField searchField = new JTextField(15);
         searchField.setFont(FONT_PLAIN_16);
+        searchField.setToolTipText(isGiverLog ? "Matches Purok and giver name" : "Matches truck ID, route and driver");
+        JLabel fromLabel = new JLabel("From: ");
+        fromLabel.setFont(FONT_PLAIN_16);
+        JTextField fromField = new JTextField(9);
+        fromField.setFont(FONT_PLAIN_16);
+        fromField.setToolTipText("Start date, e.g. Jan 1, 2025 or Jan 2025");
+        JLabel toLabel = new JLabel("To: ");
+        toLabel.setFont(FONT_PLAIN_16);
+        JTextField toField = new JTextField(9);
+        toField.setFont(FONT_PLAIN_16);
+        toField.setToolTipText("End date, e.g. Mar 31, 2025 or Mar 2025");
         JButton searchBtn = createStyledButton("SEARCH", PRIMARY_GREEN, Color.WHITE);
         JButton clearSearchBtn = createStyledButton("CLEAR SEARCH", INFO_BLUE, Color.WHITE);
         searchPanel.add(searchLabel);
         searchPanel.add(searchField);
+        searchPanel.add(fromLabel);
+        searchPanel.add(fromField);
+        searchPanel.add(toLabel);
+        searchPanel.add(toField);
         searchPanel.add(searchBtn);
         searchPanel.add(clearSearchBtn);
 
         JTable table = createStyledTable(model);
-        TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(model);
-        table.setRowSorter(sorter);
-
-        // Define role-based filter
-        final RowFilter<DefaultTableModel, Integer> roleFilter;
-        if (loggedInUser != null && !"Administrator".equalsIgnoreCase(loggedInUser.getRole())) {
-            int enteredByColumn = model.getColumnCount() - 1; // "Entered By" is the last column
-            roleFilter = RowFilter.regexFilter("^" + loggedInUser.getUsername() + "$", enteredByColumn);
-        } else {
-            roleFilter = null;
-        }
 
-        // Apply initial role-based filtering
-        sorter.setRowFilter(roleFilter);
+        // Role-based filtering and sorting run in the model, against the column store
+        int enteredByColumn = model.getColumnCount() - 1; // "Entered By" is the last column
+        boolean ownRowsOnly = loggedInUser != null && !"Administrator".equalsIgnoreCase(loggedInUser.getRole());
+        model.reset(enteredByColumn, ownRowsOnly ? loggedInUser.getUsername() : null);
+        table.getTableHeader().addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column < 0) return;
+                model.toggleSort(table.convertColumnIndexToModel(column));
+                for (int c = 0; c < table.getColumnCount(); c++) {
+                    int modelColumn = table.convertColumnIndexToModel(c);
+                    String name = model.getColumnName(modelColumn);
+                    if (modelColumn == model.getSortColumn()) name += model.isAscending() ? " \u25B2" : " \u25BC";
+                    table.getColumnModel().getColumn(c).setHeaderValue(name);
+                }
+                table.getTableHeader().repaint();
+            }
+        });
 
         JScrollPane scrollPane = new JScrollPane(table);
+        // Load the pages around the visible rows ahead of the renderer asking for them
+        scrollPane.getViewport().addChangeListener(e -> {
+            Rectangle visible = scrollPane.getViewport().getViewRect();
+            int first = table.rowAtPoint(visible.getLocation());
+            int last = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+            if (first >= 0) model.prefetch(first, last < 0 ? model.getRowCount() - 1 : last);
+        });
 
-        // Search action
+        // Search action: index lookups run in the background, the resulting filter is applied on the EDT
+        final java.util.List<SwingWorker<?, ?>> pendingSearch = new java.util.ArrayList<>(1);
         searchBtn.addActionListener(e -> {
             String searchText = searchField.getText().trim();
-            if (!searchText.isEmpty()) {
-                RowFilter<DefaultTableModel, Integer> searchFilter = RowFilter.regexFilter(searchText);
-                if (roleFilter != null) {
-                    sorter.setRowFilter(RowFilter.andFilter(java.util.Arrays.asList(roleFilter, searchFilter)));
-                } else {
-                    sorter.setRowFilter(searchFilter);
-                }
-            } else {
-                sorter.setRowFilter(roleFilter);
+            String fromText = fromField.getText().trim();
+            String toText = toField.getText().trim();
+            int[] from = fromText.isEmpty() ? null : LogDates.parseRange(fromText);
+            int[] to = toText.isEmpty() ? null : LogDates.parseRange(toText);
+            if ((!fromText.isEmpty() && from == null) || (!toText.isEmpty() && to == null)) {
+                JOptionPane.showMessageDialog(this, "Dates must look like Jan 5, 2025, Jan 2025 or 2025-01-05.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            boolean byDate = from != null || to != null;
+
+            // Cancel a search still running for this screen
+            if (!pendingSearch.isEmpty()) pendingSearch.remove(0).cancel(true);
+            if (searchText.isEmpty() && !byDate) {
+                model.setSlotFilter(null);
+                return;
             }
+            SwingWorker<java.util.BitSet, Void> worker = new SwingWorker<java.util.BitSet, Void>() {
+                @Override
+                protected java.util.BitSet doInBackground() {
+                    // Resolve the matching record ids from the text and date indexes;
+                    // the table then only tests membership per row
+                    records.getLock().readLock().lock();
+                    try {
+                        java.util.BitSet slots = searchIndexFor(model).search(searchText);
+                        if (byDate) {
+                            java.util.BitSet inRange = dateIndexFor(model).slotsBetween(
+                                from == null ? Integer.MIN_VALUE + 1 : from[0],
+                                to == null ? Integer.MAX_VALUE : to[1]);
+                            if (slots == null) slots = inRange;
+                            else slots.and(inRange);
+                        }
+                        return slots;
+                    } finally {
+                        records.getLock().readLock().unlock();
+                    }
+                }
+
+                @Override
+                protected void done() {
+                    if (isCancelled()) return;
+                    try {
+                        model.setSlotFilter(get());
+                    } catch (Exception ex) {
+                        System.err.println("Search failed: " + ex.getMessage());
+                    }
+                }
+            };
+            pendingSearch.add(worker);
+            worker.execute();
         });
 
         // Clear search action
         clearSearchBtn.addActionListener(e -> {
+            if (!pendingSearch.isEmpty()) pendingSearch.remove(0).cancel(true);
             searchField.setText("");
-            sorter.setRowFilter(roleFilter);
+            fromField.setText("");
+            toField.setText("");
+            model.setSlotFilter(null);
         });
 
         // --- Center Panel (Search + Table) ---
@@ -373,17 +635,38 @@ public class BarangayWasteSystemFull extends JFrame {
             JButton addButton = createStyledButton("+ ADD NEW RECORD", isGiverLog ? PRIMARY_GREEN : DARK_GREEN, Color.WHITE);
             addButton.addActionListener(e -> launchAddRecordDialog(isGiverLog, model));
 
+            JButton importButton = createStyledButton("📥 IMPORT CSV", REPORT_ORANGE, Color.WHITE);
+            importButton.addActionListener(e -> importCsvRecords(model));
+
             footer.add(deleteButton);
             footer.add(editButton);
+            footer.add(importButton);
             footer.add(addButton);
         }
 
+        // Exports exactly what the table shows: the role filter, search and sort
+        JButton exportButton = createStyledButton("📤 EXPORT", REPORT_ORANGE, Color.WHITE);
+        exportButton.addActionListener(e -> {
+            // The row numbers and the deletion count they are valid for, read together
+            int[] rows;
+            int removals;
+            records.getLock().readLock().lock();
+            try {
+                rows = model.viewRows();
+                removals = model.getStore().getRemovalCount();
+            } finally {
+                records.getLock().readLock().unlock();
+            }
+            exportRecords(tableOf(model), rows, removals, null, null, title);
+        });
+        footer.add(exportButton, 0);
+
         panel.add(footer, BorderLayout.SOUTH);
 
         return panel;
     }
 
-    private void launchAddRecordDialog(boolean isGiverLog, DefaultTableModel model) {
+    private void launchAddRecordDialog(boolean isGiverLog, LogTableModel model) {
         if (isGiverLog) {
             addWasteGiverRecord(model);
         } else {
@@ -391,13 +674,165 @@ public class BarangayWasteSystemFull extends JFrame {
         }
     }
 
-    private void launchEditRecordDialog(boolean isGiverLog, JTable table, DefaultTableModel model) {
+    /**
+     * Bulk-loads a CSV file into the table. Parsing runs in the background; each batch of
+     * valid rows is inserted on the EDT as one change, and rejected lines are listed after.
+     */
+    private void importCsvRecords(LogTableModel model) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV files", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+        byte table = tableOf(model);
+        CsvImporter importer = new CsvImporter(table, loggedInUser.getUsername());
+        ProgressMonitor monitor = new ProgressMonitor(this, "Importing " + file.getFileName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        SwingWorker<CsvImporter.Result, Void> worker = new SwingWorker<CsvImporter.Result, Void>() {
+            @Override
+            protected CsvImporter.Result doInBackground() throws Exception {
+                return importer.run(file, rows -> {
+                    try {
+                        SwingUtilities.invokeAndWait(() -> {
+                            try {
+                                records.addAll(table, rows);
+                            } catch (IOException ex) {
+                                throw new java.io.UncheckedIOException(ex.getMessage(), ex);
+                            }
+                        });
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Import interrupted", ex);
+                    } catch (java.lang.reflect.InvocationTargetException ex) {
+                        if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+                        throw new IllegalStateException(ex.getCause());
+                    }
+                }, this::setProgress, this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                CsvImporter.Result result;
+                try {
+                    result = get();
+                } catch (java.util.concurrent.CancellationException ex) {
+                    JOptionPane.showMessageDialog(BarangayWasteSystemFull.this, "Import cancelled. Rows already inserted were kept.", "Import CSV", JOptionPane.WARNING_MESSAGE);
+                    return;
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(BarangayWasteSystemFull.this, "Import failed: " + cause.getMessage(), "Import CSV", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                String summary = "Imported " + result.imported + " record(s)"
+                    + (result.rejected > 0 ? "; " + result.rejected + " line(s) rejected." : ".");
+                if (result.errors.isEmpty()) {
+                    JOptionPane.showMessageDialog(BarangayWasteSystemFull.this, summary, "Import CSV", JOptionPane.INFORMATION_MESSAGE);
+                    return;
+                }
+                StringBuilder report = new StringBuilder();
+                for (String error : result.errors) report.append(error).append('\n');
+                if (result.rejected > result.errors.size()) report.append("... and ").append(result.rejected - result.errors.size()).append(" more");
+                JTextArea area = new JTextArea(report.toString(), 15, 60);
+                area.setEditable(false);
+                JPanel panel = new JPanel(new BorderLayout(0, 10));
+                panel.add(new JLabel(summary), BorderLayout.NORTH);
+                panel.add(new JScrollPane(area), BorderLayout.CENTER);
+                JOptionPane.showMessageDialog(BarangayWasteSystemFull.this, panel, "Import CSV", JOptionPane.WARNING_MESSAGE);
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if (!"progress".equals(evt.getPropertyName())) return;
+            monitor.setProgress((Integer) evt.getNewValue());
+            if (monitor.isCanceled()) worker.cancel(false);
+        });
+        worker.execute();
+    }
+
+    /**
+     * Streams the given rows to a CSV or JSON Lines file chosen by the user. The export
+     * runs in the background, reading the store a chunk at a time, so the portal stays
+     * responsive and memory use does not grow with the number of rows.
+     */
+    private void exportRecords(byte table, int[] rows, int removals, int[] dayRange, String enteredBy, String title) {
+        JFileChooser chooser = new JFileChooser();
+        javax.swing.filechooser.FileNameExtensionFilter csv = new javax.swing.filechooser.FileNameExtensionFilter("CSV files (*.csv)", "csv");
+        javax.swing.filechooser.FileNameExtensionFilter jsonl = new javax.swing.filechooser.FileNameExtensionFilter("JSON Lines files (*.jsonl)", "jsonl");
+        chooser.addChoosableFileFilter(csv);
+        chooser.addChoosableFileFilter(jsonl);
+        chooser.setFileFilter(csv);
+        chooser.setSelectedFile(new java.io.File((table == RecordLog.TABLE_GIVER ? "waste-givers" : "collection-log") + ".csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+        String name = file.getFileName().toString();
+        if (!name.contains(".")) {
+            file = file.resolveSibling(name + "." + (chooser.getFileFilter() == jsonl ? RecordExporter.Format.JSON_LINES : RecordExporter.Format.CSV).extension);
+        }
+        if (java.nio.file.Files.exists(file) && JOptionPane.showConfirmDialog(this, file.getFileName() + " already exists. Replace it?",
+                "Export", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) != JOptionPane.YES_OPTION) return;
+        java.nio.file.Path target = file;
+        RecordExporter.Format format = RecordExporter.Format.forFile(target);
+        RecordExporter exporter = new RecordExporter(records, table);
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting to " + target.getFileName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                return exporter.export(rows, removals, dayRange, enteredBy, target, format, this::setProgress, this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    int written = get();
+                    JOptionPane.showMessageDialog(BarangayWasteSystemFull.this, "Exported " + written + " record(s) to " + target.getFileName() + ".", title, JOptionPane.INFORMATION_MESSAGE);
+                } catch (java.util.concurrent.CancellationException ex) {
+                    JOptionPane.showMessageDialog(BarangayWasteSystemFull.this, "Export cancelled. No file was written.", title, JOptionPane.WARNING_MESSAGE);
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(BarangayWasteSystemFull.this, "Export failed: " + cause.getMessage(), title, JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if (!"progress".equals(evt.getPropertyName())) return;
+            monitor.setProgress((Integer) evt.getNewValue());
+            if (monitor.isCanceled()) worker.cancel(false);
+        });
+        worker.execute();
+    }
+
+    /** Exports the Collection Log rows behind the analytics, limited to the current date filter. */
+    private void exportAnalyticsRecords() {
+        int[] range = null;
+        if (currentFilterDate != null) {
+            range = LogDates.parseRange(currentFilterDate);
+            if (range == null) {
+                JOptionPane.showMessageDialog(this, "Unrecognized date: " + currentFilterDate, "Export", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+        }
+        // Raw rows follow the same rule as the log screens: non-admins only see their own
+        boolean ownRowsOnly = loggedInUser != null && !"Administrator".equalsIgnoreCase(loggedInUser.getRole());
+        int removals;
+        records.getLock().readLock().lock();
+        try {
+            removals = records.store(RecordLog.TABLE_COLLECTION).getRemovalCount();
+        } finally {
+            records.getLock().readLock().unlock();
+        }
+        exportRecords(RecordLog.TABLE_COLLECTION, null, removals, range, ownRowsOnly ? loggedInUser.getUsername() : null, "Export Analytics Records");
+    }
+
+    private void launchEditRecordDialog(boolean isGiverLog, JTable table, LogTableModel model) {
         int selectedRow = table.getSelectedRow();
         if (selectedRow < 0) {
             JOptionPane.showMessageDialog(this, "Please select a row to edit.", "No Selection", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        int modelRow = table.convertRowIndexToModel(selectedRow);
+        int modelRow = model.toStoreRow(selectedRow);
 
         if (isGiverLog) {
             editWasteGiverRecord(model, modelRow);
@@ -406,18 +841,18 @@ public class BarangayWasteSystemFull extends JFrame {
         }
     }
     
-    private void editCollectionLogRecord(DefaultTableModel model, int modelRow) {
+    private void editCollectionLogRecord(LogTableModel model, int modelRow) {
         // Retrieve existing values
-        String date = (String) model.getValueAt(modelRow, 0);
-        String truckId = (String) model.getValueAt(modelRow, 1);
-        String route = (String) model.getValueAt(modelRow, 2);
-        String driver = (String) model.getValueAt(modelRow, 3);
-        double bio = ((Number) model.getValueAt(modelRow, 4)).doubleValue();
-        double recy = ((Number) model.getValueAt(modelRow, 5)).doubleValue();
-        double resi = ((Number) model.getValueAt(modelRow, 6)).doubleValue();
+        LocalDate date = (LocalDate) model.getStore().getValue(modelRow, 0);
+        String truckId = (String) model.getStore().getValue(modelRow, 1);
+        String route = (String) model.getStore().getValue(modelRow, 2);
+        String driver = (String) model.getStore().getValue(modelRow, 3);
+        double bio = ((Number) model.getStore().getValue(modelRow, 4)).doubleValue();
+        double recy = ((Number) model.getStore().getValue(modelRow, 5)).doubleValue();
+        double resi = ((Number) model.getStore().getValue(modelRow, 6)).doubleValue();
 
         // Create fields pre-filled with existing data
-        JTextField dateField = new JTextField(date);
+        JTextField dateField = new JTextField(LogDates.format(date));
         JTextField truckIdField = new JTextField(truckId);
         JTextField routeField = new JTextField(route);
         JTextField driverField = new JTextField(driver);
@@ -439,23 +874,24 @@ public class BarangayWasteSystemFull extends JFrame {
         if (result == JOptionPane.OK_OPTION) {
             try {
                 // Parse values, ensuring they are valid numbers
+                LocalDate newDate = parseDateField(dateField);
                 double newBio = parseNumericField(bioWeightField);
                 double newRecy = parseNumericField(recyWeightField);
                 double newResi = parseNumericField(resiWeightField);
 
-                // Update the model row
-                model.setValueAt(dateField.getText(), modelRow, 0);
-                model.setValueAt(truckIdField.getText().trim(), modelRow, 1);
-                model.setValueAt(routeField.getText().trim(), modelRow, 2);
-                model.setValueAt(driverField.getText().trim(), modelRow, 3);
-                model.setValueAt(newBio, modelRow, 4);
-                model.setValueAt(newRecy, modelRow, 5);
-                model.setValueAt(newResi, modelRow, 6);
-                // Entered By remains unchanged
+                // Update the model row (Entered By remains unchanged)
+                if (!updateLoggedRow(model, modelRow, new Object[]{
+                    newDate,
+                    parseTextField(truckIdField),
+                    parseTextField(routeField),
+                    parseTextField(driverField),
+                    newBio, newRecy, newResi,
+                    model.getStore().getValue(modelRow, 7)
+                })) return;
 
                 JOptionPane.showMessageDialog(this, "Collection Log entry updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
             } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid numeric data entered: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(this, "Invalid data entered: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Please fill all fields correctly.", "Input Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -463,20 +899,20 @@ public class BarangayWasteSystemFull extends JFrame {
     }
 
 
-    private void editWasteGiverRecord(DefaultTableModel model, int modelRow) {
+    private void editWasteGiverRecord(LogTableModel model, int modelRow) {
         // Retrieve existing values
-        String date = (String) model.getValueAt(modelRow, 0);
-        String purok = (String) model.getValueAt(modelRow, 1);
-        String giverName = (String) model.getValueAt(modelRow, 2);
-        String wasteType = (String) model.getValueAt(modelRow, 3);
-        double weight = ((Number) model.getValueAt(modelRow, 4)).doubleValue();
+        LocalDate date = (LocalDate) model.getStore().getValue(modelRow, 0);
+        String purok = (String) model.getStore().getValue(modelRow, 1);
+        String giverName = (String) model.getStore().getValue(modelRow, 2);
+        String wasteType = (String) model.getStore().getValue(modelRow, 3);
+        double weight = ((Number) model.getStore().getValue(modelRow, 4)).doubleValue();
 
         // Create fields pre-filled with existing data
-        JTextField dateField = new JTextField(date);
-        JComboBox<String> purokDropdown = new JComboBox<>(PUROK_OPTIONS);
+        JTextField dateField = new JTextField(LogDates.format(date));
+        JComboBox<String> purokDropdown = new JComboBox<>(WasteRecords.PUROK_OPTIONS);
         purokDropdown.setSelectedItem(purok);
         JTextField giverNameField = new JTextField(giverName);
-        JComboBox<String> wasteTypeDropdown = new JComboBox<>(WASTE_TYPE_OPTIONS);
+        JComboBox<String> wasteTypeDropdown = new JComboBox<>(WasteRecords.WASTE_TYPE_OPTIONS);
         wasteTypeDropdown.setSelectedItem(wasteType);
         JFormattedTextField weightField = createNumericInputField();
         weightField.setValue(weight);
@@ -492,19 +928,22 @@ public class BarangayWasteSystemFull extends JFrame {
         if (result == JOptionPane.OK_OPTION) {
             try {
                 // Parse values, ensuring they are valid numbers
+                LocalDate newDate = parseDateField(dateField);
                 double newWeight = parseNumericField(weightField);
 
-                // Update the model row
-                model.setValueAt(dateField.getText(), modelRow, 0);
-                model.setValueAt(purokDropdown.getSelectedItem(), modelRow, 1);
-                model.setValueAt(giverNameField.getText().trim(), modelRow, 2);
-                model.setValueAt(wasteTypeDropdown.getSelectedItem(), modelRow, 3);
-                model.setValueAt(newWeight, modelRow, 4);
-                // Entered By remains unchanged
+                // Update the model row (Entered By remains unchanged)
+                if (!updateLoggedRow(model, modelRow, new Object[]{
+                    newDate,
+                    purokDropdown.getSelectedItem(),
+                    parseTextField(giverNameField),
+                    wasteTypeDropdown.getSelectedItem(),
+                    newWeight,
+                    model.getStore().getValue(modelRow, 5)
+                })) return;
 
                 JOptionPane.showMessageDialog(this, "Waste Giver record updated successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
             } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid numeric data entered: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(this, "Invalid data entered: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Please fill all fields correctly.", "Input Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -513,11 +952,11 @@ public class BarangayWasteSystemFull extends JFrame {
 
 
     // --- Giver Log Record ---
-    private void addWasteGiverRecord(DefaultTableModel model) {
-        JTextField dateField = new JTextField(LocalDate.now().format(DateTimeFormatter.ofPattern("MMM d")));
-        JComboBox<String> purokDropdown = new JComboBox<>(PUROK_OPTIONS);
+    private void addWasteGiverRecord(LogTableModel model) {
+        JTextField dateField = new JTextField(LogDates.format(LocalDate.now()));
+        JComboBox<String> purokDropdown = new JComboBox<>(WasteRecords.PUROK_OPTIONS);
         JTextField giverNameField = new JTextField();
-        JComboBox<String> wasteTypeDropdown = new JComboBox<>(WASTE_TYPE_OPTIONS);
+        JComboBox<String> wasteTypeDropdown = new JComboBox<>(WasteRecords.WASTE_TYPE_OPTIONS);
         JFormattedTextField weightField = createNumericInputField();
 
         JPanel panel = createFormPanel(
@@ -530,19 +969,20 @@ public class BarangayWasteSystemFull extends JFrame {
 
         if (result == JOptionPane.OK_OPTION) {
             try {
+                LocalDate date = parseDateField(dateField);
                 double weight = parseNumericField(weightField);
 
-                model.addRow(new Object[]{
-                    dateField.getText(),
+                if (!addLoggedRow(model, new Object[]{
+                    date,
                     purokDropdown.getSelectedItem(),
-                    giverNameField.getText().trim(),
+                    parseTextField(giverNameField),
                     wasteTypeDropdown.getSelectedItem(),
                     weight,
                     loggedInUser.getUsername()
-                });
+                })) return;
                 JOptionPane.showMessageDialog(this, "Waste Giver record added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
             } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid number entered for Weight.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(this, "Invalid data entered: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
                  JOptionPane.showMessageDialog(this, "Please fill all fields correctly.", "Input Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -550,8 +990,8 @@ public class BarangayWasteSystemFull extends JFrame {
     }
     
     // --- Collection Log Record ---
-    private void addCollectionLogRecord(DefaultTableModel model) {
-        JTextField dateField = new JTextField(LocalDate.now().format(DateTimeFormatter.ofPattern("MMM d")));
+    private void addCollectionLogRecord(LogTableModel model) {
+        JTextField dateField = new JTextField(LogDates.format(LocalDate.now()));
         JTextField truckIdField = new JTextField("T-00X");
         JTextField routeField = new JTextField();
         JTextField driverField = new JTextField("Driver Name");
@@ -570,21 +1010,22 @@ public class BarangayWasteSystemFull extends JFrame {
         if (result == JOptionPane.OK_OPTION) {
             try {
                 // Parse values, ensuring they are valid numbers
+                LocalDate date = parseDateField(dateField);
                 double bio = parseNumericField(bioWeightField);
                 double recy = parseNumericField(recyWeightField);
                 double resi = parseNumericField(resiWeightField);
 
-                model.addRow(new Object[]{
-                    dateField.getText(),
-                    truckIdField.getText().trim(),
-                    routeField.getText().trim(),
-                    driverField.getText().trim(),
+                if (!addLoggedRow(model, new Object[]{
+                    date,
+                    parseTextField(truckIdField),
+                    parseTextField(routeField),
+                    parseTextField(driverField),
                     bio, recy, resi,
                     loggedInUser.getUsername()
-                });
+                })) return;
                 JOptionPane.showMessageDialog(this, "Collection Log entry added successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
             } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(this, "Invalid numeric data entered: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(this, "Invalid data entered: " + ex.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
             } catch (Exception ex) {
                  JOptionPane.showMessageDialog(this, "Please fill all fields correctly.", "Input Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -616,18 +1057,22 @@ public class BarangayWasteSystemFull extends JFrame {
   
     private double parseNumericField(JFormattedTextField field) throws NumberFormatException {
          Object value = field.getValue();
-         if (value instanceof Number) {
-             double num = ((Number) value).doubleValue();
-             if (num < 0) throw new NumberFormatException("Value cannot be negative.");
-             return num;
-         }
+         if (value instanceof Number) return WasteRecords.checkWeight(((Number) value).doubleValue());
          throw new NumberFormatException("Field value is not a valid number.");
     }
 
-    private void deleteSelectedRow(JTable table, DefaultTableModel model) {
+    private String parseTextField(JTextField field) throws NumberFormatException {
+        return WasteRecords.checkText(field.getText().trim());
+    }
+
+    private LocalDate parseDateField(JTextField field) throws NumberFormatException {
+        return WasteRecords.parseDate(field.getText());
+    }
+
+    private void deleteSelectedRow(JTable table, LogTableModel model) {
         int selectedRow = table.getSelectedRow();
         if (selectedRow >= 0) {
-            int modelRow = table.convertRowIndexToModel(selectedRow);
+            int modelRow = model.toStoreRow(selectedRow);
             int confirm = JOptionPane.showConfirmDialog(
                 this, 
                 "Are you sure you want to delete the selected record?", 
@@ -635,8 +1080,9 @@ public class BarangayWasteSystemFull extends JFrame {
                 JOptionPane.YES_NO_OPTION
             );
             if (confirm == JOptionPane.YES_OPTION) {
-                model.removeRow(modelRow);
-                JOptionPane.showMessageDialog(this, "Record deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                if (removeLoggedRow(model, modelRow)) {
+                    JOptionPane.showMessageDialog(this, "Record deleted successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                }
             }
         } else {
             JOptionPane.showMessageDialog(this, 
@@ -645,7 +1091,7 @@ public class BarangayWasteSystemFull extends JFrame {
         }
     }
 
-    private JTable createStyledTable(DefaultTableModel model) {
+    private JTable createStyledTable(TableModel model) {
         JTable table = new JTable(model);
         table.setRowHeight(30);
         table.setFont(FONT_PLAIN_16);
@@ -654,6 +1100,13 @@ public class BarangayWasteSystemFull extends JFrame {
         table.getTableHeader().setForeground(TEXT_COLOR_LIGHT);
         table.setSelectionBackground(LIGHT_GREEN);
         table.setSelectionForeground(TEXT_COLOR_DARK);
+        // Show record dates as "Jan 5, 2025" while still sorting them chronologically
+        table.setDefaultRenderer(LocalDate.class, new javax.swing.table.DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                setText(LogDates.format((LocalDate) value));
+            }
+        });
         return table;
     }
 
@@ -711,14 +1164,21 @@ public class BarangayWasteSystemFull extends JFrame {
         // --- Button Row ---
         gbc.fill = GridBagConstraints.NONE;
         
-        JButton proceedButton = createStyledButton("PROCEED ➡️", PRIMARY_GREEN, Color.WHITE);
+        proceedButton = createStyledButton("LOADING...", PRIMARY_GREEN, Color.WHITE);
         proceedButton.setFont(FONT_BOLD_16);
         proceedButton.setPreferredSize(new Dimension(250, 45));
+        proceedButton.setEnabled(false); // until the startup loader finishes
         
         gbc.gridy = 3; gbc.insets = new Insets(30, 15, 20, 15);
         panel.add(proceedButton, gbc);
 
-        proceedButton.addActionListener(e -> cardLayout.show(mainCardPanel, "NavChoice"));
+        startupProgress = new JProgressBar();
+        startupProgress.setIndeterminate(true);
+        startupProgress.setPreferredSize(new Dimension(250, 12));
+        gbc.gridy = 4; gbc.insets = new Insets(0, 15, 20, 15);
+        panel.add(startupProgress, gbc);
+
+        proceedButton.addActionListener(e -> showCard("NavChoice"));
         return panel;
     }
 
@@ -763,8 +1223,8 @@ public class BarangayWasteSystemFull extends JFrame {
         gbc.gridx = 1; gbc.gridy = 2;
         panel.add(registerButton, gbc);
         
-        loginButton.addActionListener(e -> cardLayout.show(mainCardPanel, "Login"));
-        registerButton.addActionListener(e -> cardLayout.show(mainCardPanel, "SignUp"));
+        loginButton.addActionListener(e -> showCard("Login"));
+        registerButton.addActionListener(e -> showCard("SignUp"));
 
         return panel;
     }
@@ -903,8 +1363,12 @@ public class BarangayWasteSystemFull extends JFrame {
             String password = new String(passField.getPassword()).trim(); 
             String confirmPassword = new String(confirmPassField.getPassword()).trim();
 
-            handleAuthAction(isLogin, fullName, employeeId, role, username, password, confirmPassword, authFeedbackLabel);
+            handleAuthAction(isLogin, fullName, employeeId, role, username, password, confirmPassword, authFeedbackLabel, submitButton);
         });
+        // Enter submits through the button, so it is ignored too while the button is disabled
+        userField.addActionListener(e -> submitButton.doClick());
+        passField.addActionListener(e -> submitButton.doClick());
+        confirmPassField.addActionListener(e -> submitButton.doClick());
         
         switchLabel.addMouseListener(new java.awt.event.MouseAdapter() {
             public void mouseClicked(java.awt.event.MouseEvent e) {
@@ -916,7 +1380,7 @@ public class BarangayWasteSystemFull extends JFrame {
                 confirmPassField.setText("");
                 authFeedbackLabel.setText("");
                 
-                cardLayout.show(mainCardPanel, isLogin ? "SignUp" : "Login");
+                showCard(isLogin ? "SignUp" : "Login");
             }
         });
 
@@ -968,31 +1432,48 @@ public class BarangayWasteSystemFull extends JFrame {
 
     private void handleAuthAction(boolean isLogin,
                                   String fullName, String employeeId, String role, String username, String password,
-                                  String confirmPassword, JLabel feedback) {
+                                  String confirmPassword, JLabel feedback, JButton submitButton) {
         if (isLogin) {
             if (username.isEmpty() || password.isEmpty()) { feedback.setText("Username and Password are required."); feedback.setForeground(ERROR_RED); return; }
             
-            // Authenticate from database
-            UserInfo user = DatabaseManager.authenticateUser(username, password);
-            if (user != null) {
-                feedback.setText("Authentication successful! Loading portal...");
-                feedback.setForeground(LIGHT_GREEN.brighter());
-                Timer timer = new Timer(500, e -> {
-                    startSystem(user);
-                    ((Timer)e.getSource()).stop();
-                });
-                timer.setRepeats(false);
-                timer.start();
-            } else {
-                // Check if user exists and is suspended
-                if (DatabaseManager.userExists(username) && DatabaseManager.isUserSuspended(username)) {
-                    feedback.setText("LogIn Failed: Account is Suspended.");
-                    feedback.setForeground(ERROR_RED);
+            // Authenticate from database; password hashing is deliberately slow, so keep it off the EDT
+            feedback.setText("Checking credentials...");
+            feedback.setForeground(LIGHT_GREEN.brighter());
+            long started = System.nanoTime();
+            // No second attempt while this one is being checked; enabled again once it is answered
+            submitButton.setEnabled(false);
+            AsyncDatabase.authenticateUser(username, password).whenCompleteAsync((result, failure) -> {
+                UserInfo user = result;
+                if (failure != null) {
+                    System.err.println("Authentication failed: " + failure.getMessage());
+                    user = null;
+                }
+                LOGIN_SECONDS.observeSince(started);
+                (user != null ? LOGIN_ACCEPTED : LOGIN_REJECTED).increment();
+                if (user != null) {
+                    UserInfo authenticated = user;
+                    feedback.setText("Authentication successful! Loading portal...");
+                    feedback.setForeground(LIGHT_GREEN.brighter());
+                    Timer timer = new Timer(500, e -> {
+                        startSystem(authenticated);
+                        submitButton.setEnabled(true);
+                        ((Timer)e.getSource()).stop();
+                    });
+                    timer.setRepeats(false);
+                    timer.start();
                 } else {
-                    feedback.setText("Login failed: Invalid username or password.");
-                    feedback.setForeground(ERROR_RED);
+                    submitButton.setEnabled(true);
+                    // Check if user exists and is suspended (authenticateUser just re-read the account)
+                    UserInfo known = DatabaseManager.getUser(username);
+                    if (known != null && known.isSuspended()) {
+                        feedback.setText("LogIn Failed: Account is Suspended.");
+                        feedback.setForeground(ERROR_RED);
+                    } else {
+                        feedback.setText("Login failed: Invalid username or password.");
+                        feedback.setForeground(ERROR_RED);
+                    }
                 }
-            }
+            }, SwingUtilities::invokeLater);
         } else {
             // Sign Up logic
             if (fullName.isEmpty() || employeeId.isEmpty() || username.isEmpty() || password.isEmpty() || confirmPassword.isEmpty()) {
@@ -1014,40 +1495,58 @@ public class BarangayWasteSystemFull extends JFrame {
                 feedback.setText("Invalid Employee ID format. Use the format XXXX-XXXX."); feedback.setForeground(ERROR_RED); return;
             }
 
-            // Register user in database
-            boolean registrationSuccess = DatabaseManager.registerUser(username, password, fullName, employeeId, role);
-            if (!registrationSuccess) {
-                feedback.setText("Registration failed. Please try again."); feedback.setForeground(ERROR_RED); return;
-            }
+            // Register user in database (hashes the password, off the EDT)
+            feedback.setText("Creating account...");
+            feedback.setForeground(LIGHT_GREEN.brighter());
+            long started = System.nanoTime();
+            submitButton.setEnabled(false);
+            AsyncDatabase.registerUser(username, password, fullName, employeeId, role).whenCompleteAsync((result, failure) -> {
+                boolean registrationSuccess = failure == null && result;
+                if (failure != null) System.err.println("Registration failed: " + failure.getMessage());
+                SIGNUP_SECONDS.observeSince(started);
+                (registrationSuccess ? SIGNUP_ACCEPTED : SIGNUP_REJECTED).increment();
+                if (!registrationSuccess) {
+                    submitButton.setEnabled(true);
+                    feedback.setText("Registration failed. Please try again."); feedback.setForeground(ERROR_RED); return;
+                }
 
-            // Create UserInfo for auto-login
-            UserInfo newUser = new UserInfo(fullName, employeeId, role, username, password);
+                // Stored account (with the hashed password) for auto-login
+                UserInfo newUser = DatabaseManager.getUser(username);
 
-            // AUTO-LOGIN AND PROCEED TO DASHBOARD
-            feedback.setText("<html><center>Registration successful! Logging you in...</center></html>");
-            feedback.setForeground(LIGHT_GREEN.brighter());
+                // AUTO-LOGIN AND PROCEED TO DASHBOARD
+                feedback.setText("<html><center>Registration successful! Logging you in...</center></html>");
+                feedback.setForeground(LIGHT_GREEN.brighter());
 
-            Timer timer = new Timer(1500, e -> {
-                startSystem(newUser); // Auto-login the new user
-                ((Timer)e.getSource()).stop();
-            });
-            timer.setRepeats(false);
-            timer.start();
+                Timer timer = new Timer(1500, e -> {
+                    startSystem(newUser); // Auto-login the new user
+                    submitButton.setEnabled(true);
+                    ((Timer)e.getSource()).stop();
+                });
+                timer.setRepeats(false);
+                timer.start();
+            }, SwingUtilities::invokeLater);
         }
     }
 
     /** Initializes the system dashboard after successful login. */
     private void startSystem(UserInfo user) {
         loggedInUser = user;
+        ensureCard("Dashboard");
         // Record login activity with timestamp and user details (persisted to DatabaseManager)
         String ts = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        DatabaseManager.recordLogin(ts + " - " + user.getFullName() + " (" + user.getRole() + ")");
+        AsyncDatabase.recordLogin(user.getUsername(), ts + " - " + user.getFullName() + " (" + user.getRole() + ")");
         updateSidebar(user.getFullName(), user.getRole(), user.getEmployeeId());
         dashboardGreetingLabel.setText("Welcome, " + user.getFullName() + "!");
 
-        // Add log screens now that loggedInUser is set
-        mainCardPanel.add(createWasteGiverLogScreen(), "GiverLog");
-        mainCardPanel.add(createCollectionLogScreen(), "CollectionLog");
+        // Log screens depend on loggedInUser, so drop any built for a previous login
+        for (Component c : mainCardPanel.getComponents()) {
+            if ("GiverLog".equals(c.getName()) || "CollectionLog".equals(c.getName())) {
+                mainCardPanel.remove(c);
+                detachTables(c);
+            }
+        }
+        pendingCards.put("GiverLog", () -> named(createWasteGiverLogScreen(), "GiverLog"));
+        pendingCards.put("CollectionLog", () -> named(createCollectionLogScreen(), "CollectionLog"));
 
         // Set card visibility based on user role
         String role = user.getRole();
@@ -1100,7 +1599,7 @@ public class BarangayWasteSystemFull extends JFrame {
         cardHolder.revalidate();
         cardHolder.repaint();
 
-        cardLayout.show(mainCardPanel, "Dashboard");
+        showCard("Dashboard");
     }
 
     
@@ -1180,7 +1679,18 @@ public class BarangayWasteSystemFull extends JFrame {
         viewDatabaseBtn = createStyledButton("VIEW DATABASE", INFO_BLUE, TEXT_COLOR_LIGHT);
         viewDatabaseBtn.setPreferredSize(new Dimension(200, 40));
         viewDatabaseBtn.setVisible(false);
-        viewDatabaseBtn.addActionListener(e -> showDatabaseTableDialog());
+        viewDatabaseBtn.addActionListener(e -> {
+            // With shared storage the list is read from the database, so off the EDT
+            viewDatabaseBtn.setEnabled(false);
+            AsyncDatabase.getAllUsers().whenCompleteAsync((users, failure) -> {
+                viewDatabaseBtn.setEnabled(true);
+                if (failure != null) {
+                    JOptionPane.showMessageDialog(this, "Failed to read users: " + failure.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } else {
+                    showDatabaseTableDialog(users);
+                }
+            }, SwingUtilities::invokeLater);
+        });
         navPanel.add(viewDatabaseBtn);
 
         viewLoginsBtn = createStyledButton("VIEW LOGIN ACTIVITY", INFO_BLUE, TEXT_COLOR_LIGHT);
@@ -1189,6 +1699,12 @@ public class BarangayWasteSystemFull extends JFrame {
         viewLoginsBtn.addActionListener(e -> showLoginActivityTableDialog());
         navPanel.add(viewLoginsBtn);
 
+        systemHealthBtn = createStyledButton("SYSTEM HEALTH", INFO_BLUE, TEXT_COLOR_LIGHT);
+        systemHealthBtn.setPreferredSize(new Dimension(200, 40));
+        systemHealthBtn.setVisible(false);
+        systemHealthBtn.addActionListener(e -> showSystemHealthDialog());
+        navPanel.add(systemHealthBtn);
+
         // --- Log Out Button ---
         JButton logoutButton = createStyledButton("LOGOUT", INFO_BLUE, TEXT_COLOR_LIGHT);
         logoutButton.setPreferredSize(new Dimension(200, 40));
@@ -1211,6 +1727,7 @@ public class BarangayWasteSystemFull extends JFrame {
         // Show admin-only controls when appropriate
         boolean isAdmin = "Administrator".equalsIgnoreCase(role);
         if (viewLoginsBtn != null) viewLoginsBtn.setVisible(isAdmin);
+        if (systemHealthBtn != null) systemHealthBtn.setVisible(isAdmin);
         if (viewDatabaseBtn != null) viewDatabaseBtn.setVisible(isAdmin);
     }
 
@@ -1218,10 +1735,24 @@ public class BarangayWasteSystemFull extends JFrame {
         loggedInUser = null;
         JOptionPane.showMessageDialog(this, "You have been successfully logged out.", "Logout", JOptionPane.INFORMATION_MESSAGE);
         // Navigate back to the portal selection screen
-        cardLayout.show(mainCardPanel, "NavChoice");
+        showCard("NavChoice");
     }
 
 
+    /** Unhooks a discarded screen's tables from the shared table models, which would otherwise keep notifying them. */
+    private static void detachTables(Component c) {
+        if (c instanceof JTable) {
+            ((JTable) c).setModel(new DefaultTableModel());
+        } else if (c instanceof Container) {
+            for (Component child : ((Container) c).getComponents()) detachTables(child);
+        }
+    }
+
+    private static JPanel named(JPanel panel, String name) {
+        panel.setName(name);
+        return panel;
+    }
+
     private JPanel createWasteGiverLogScreen() {
         // Reuses the generic log screen creator (isGiverLog = true)
         return createLogScreen("📝 Household Waste Contribution Log", wasteGiverTableModel, true);
@@ -1245,7 +1776,7 @@ public class BarangayWasteSystemFull extends JFrame {
         
         // Back Button
         JButton backButton = createStyledButton("⬅ Back to Dashboard", INFO_BLUE, Color.WHITE);
-        backButton.addActionListener(e -> cardLayout.show(mainCardPanel, "Dashboard"));
+        backButton.addActionListener(e -> showCard("Dashboard"));
         JPanel backWrap = new JPanel(new FlowLayout(FlowLayout.LEFT));
         backWrap.setBorder(new EmptyBorder(20, 20, 0, 0));
         backWrap.add(backButton);
@@ -1257,9 +1788,9 @@ public class BarangayWasteSystemFull extends JFrame {
     JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
     filterPanel.setBorder(new EmptyBorder(10, 50, 10, 50));
     filterPanel.setBackground(BACKGROUND_FADE_GREEN);
-    JLabel filterLabel = new JLabel("Filter by Date (e.g., Jan 1): ");
+    JLabel filterLabel = new JLabel("Filter by Date (e.g., Jan 1, Jan 2025, Jan 1 to Mar 31): ");
     filterLabel.setFont(FONT_PLAIN_16);
-    JTextField dateFilterField = new JTextField(10);
+    JTextField dateFilterField = new JTextField(16);
     dateFilterField.setFont(FONT_PLAIN_16);
     JButton applyFilterBtn = createStyledButton("SEARCH", PRIMARY_GREEN, Color.WHITE);
     applyFilterBtn.addActionListener(e -> {
@@ -1271,16 +1802,37 @@ public class BarangayWasteSystemFull extends JFrame {
     filterPanel.add(dateFilterField);
     filterPanel.add(applyFilterBtn);
 
+    // Breakdown selector (Purok totals come from the Waste Giver log, the rest from the Collection Log)
+    JLabel breakdownLabel = new JLabel("  Breakdown: ");
+    breakdownLabel.setFont(FONT_PLAIN_16);
+    breakdownDropdown = new JComboBox<>(BREAKDOWN_OPTIONS);
+    breakdownDropdown.setFont(FONT_PLAIN_16);
+    breakdownDropdown.addActionListener(e -> calculateAndDisplayAnalytics(currentFilterDate));
+    filterPanel.add(breakdownLabel);
+    filterPanel.add(breakdownDropdown);
+
+    JButton exportBtn = createStyledButton("📤 EXPORT", REPORT_ORANGE, Color.WHITE);
+    exportBtn.setToolTipText("Export the Collection Log records within the date filter");
+    exportBtn.addActionListener(e -> exportAnalyticsRecords());
+    filterPanel.add(exportBtn);
+
+    analyticsProgress = new JProgressBar(0, 100);
+    analyticsProgress.setStringPainted(true);
+    analyticsProgress.setString("Calculating...");
+    analyticsProgress.setVisible(false);
+    filterPanel.add(analyticsProgress);
+
     // --- Analytics Display (Center) ---
-    JPanel analyticsPanel = new JPanel(new GridLayout(4, 1, 10, 10));
-    analyticsPanel.setBorder(BorderFactory.createEmptyBorder(50, 50, 50, 50));
+    JPanel analyticsPanel = new JPanel(new GridLayout(5, 1, 10, 10));
+    analyticsPanel.setBorder(BorderFactory.createEmptyBorder(20, 50, 10, 50));
 
     totalWeightLabel = new JLabel("Total Collected: N/A", JLabel.CENTER);
     totalBioLabel = new JLabel("Biodegradable: N/A", JLabel.CENTER);
     totalRecyLabel = new JLabel("Recyclable: N/A", JLabel.CENTER);
     totalResiLabel = new JLabel("Residual: N/A", JLabel.CENTER);
+    yearOverYearLabel = new JLabel(" ", JLabel.CENTER);
 
-    JLabel[] dataLabels = {totalWeightLabel, totalBioLabel, totalRecyLabel, totalResiLabel};
+    JLabel[] dataLabels = {totalWeightLabel, totalBioLabel, totalRecyLabel, totalResiLabel, yearOverYearLabel};
     for (JLabel label : dataLabels) {
         label.setFont(FONT_TITLE.deriveFont(Font.BOLD, 26));
         label.setForeground(TEXT_COLOR_DARK);
@@ -1293,10 +1845,19 @@ public class BarangayWasteSystemFull extends JFrame {
     analyticsPanel.add(totalBioLabel);
     analyticsPanel.add(totalRecyLabel);
     analyticsPanel.add(totalResiLabel);
+    analyticsPanel.add(yearOverYearLabel);
+
+    breakdownTableModel = new DefaultTableModel(new String[]{"Group", "Biodegradable (kg)", "Recyclable (kg)", "Residual (kg)", "Total (kg)"}, 0) {
+        @Override public boolean isCellEditable(int r, int c) { return false; }
+    };
+    JScrollPane breakdownScroll = new JScrollPane(createStyledTable(breakdownTableModel));
+    breakdownScroll.setPreferredSize(new Dimension(0, 180));
+    breakdownScroll.setBorder(BorderFactory.createCompoundBorder(new EmptyBorder(0, 50, 0, 50), breakdownScroll.getBorder()));
 
     JPanel centerPanel = new JPanel(new BorderLayout());
     centerPanel.add(filterPanel, BorderLayout.NORTH);
     centerPanel.add(analyticsPanel, BorderLayout.CENTER);
+    centerPanel.add(breakdownScroll, BorderLayout.SOUTH);
 
     panel.add(centerPanel, BorderLayout.CENTER);
         
@@ -1329,7 +1890,7 @@ public class BarangayWasteSystemFull extends JFrame {
 
         // Back Button
         JButton backButton = createStyledButton("⬅ Back to Dashboard", INFO_BLUE, Color.WHITE);
-        backButton.addActionListener(e -> cardLayout.show(mainCardPanel, "Dashboard"));
+        backButton.addActionListener(e -> showCard("Dashboard"));
         JPanel backWrap = new JPanel(new FlowLayout(FlowLayout.LEFT));
         backWrap.setBorder(new EmptyBorder(20, 20, 0, 0));
         backWrap.add(backButton);
@@ -1384,14 +1945,11 @@ public class BarangayWasteSystemFull extends JFrame {
     /**
      * Shows all registered users in a table dialog, with Update and Suspend/Activate buttons.
      *
-     * Requires DatabaseManager methods:
-     * - List<UserInfo> getAllUsers()
-     * - boolean isUserSuspended(String username)
-     * - boolean setUserSuspended(String username, boolean suspended)
-     * - boolean updateUser(UserInfo user)
+     * Uses AsyncDatabase methods:
+     * - setUserSuspended(String username, boolean suspended)
+     * - updateUser(UserInfo user)
      */
-    private void showDatabaseTableDialog() {
-        List<UserInfo> users = DatabaseManager.getAllUsers();
+    private void showDatabaseTableDialog(List<UserInfo> users) {
         String[] cols = {"Username", "Full Name", "Role", "Employee ID", "Suspended"};
         DefaultTableModel userModel = new DefaultTableModel(cols, 0) {
             @Override
@@ -1401,13 +1959,7 @@ public class BarangayWasteSystemFull extends JFrame {
         };
 
         for (UserInfo u : users) {
-            boolean suspended = false;
-            try {
-                suspended = DatabaseManager.isUserSuspended(u.getUsername());
-            } catch (Exception ex) {
-                // If DB doesn't support isUserSuspended, assume false
-            }
-            userModel.addRow(new Object[]{u.getUsername(), u.getFullName(), u.getRole(), u.getEmployeeId(), suspended});
+            userModel.addRow(new Object[]{u.getUsername(), u.getFullName(), u.getRole(), u.getEmployeeId(), u.isSuspended()});
         }
 
         JTable userTable = createStyledTable(userModel);
@@ -1471,23 +2023,19 @@ public class BarangayWasteSystemFull extends JFrame {
                     (newState ? "Confirm Suspend" : "Confirm Activate"),
                     JOptionPane.YES_NO_OPTION);
             if (conf != JOptionPane.YES_OPTION) return;
-            boolean ok = false;
-            try {
-                ok = DatabaseManager.setUserSuspended(username, newState);
-            } catch (NoSuchMethodError nsme) {
-                // If DB manager doesn't implement suspension, show message and flip locally
-                JOptionPane.showMessageDialog(dialog, "DatabaseManager does not implement setUserSuspended(). Please add persistence support.", "Not implemented", JOptionPane.ERROR_MESSAGE);
-                return;
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(dialog, "Failed to change user state: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            if (ok) {
-                userModel.setValueAt(newState, modelRow, 4);
-                JOptionPane.showMessageDialog(dialog, "User '" + username + "' is now " + (newState ? "suspended." : "active."), "Success", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(dialog, "Failed to change user state. See logs.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            // Stored off the EDT; the button stays disabled until the change is written
+            suspendBtn.setEnabled(false);
+            AsyncDatabase.setUserSuspended(username, newState).whenCompleteAsync((ok, failure) -> {
+                suspendBtn.setEnabled(true);
+                if (failure != null) {
+                    JOptionPane.showMessageDialog(dialog, "Failed to change user state: " + failure.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (ok) {
+                    userModel.setValueAt(newState, modelRow, 4);
+                    JOptionPane.showMessageDialog(dialog, "User '" + username + "' is now " + (newState ? "suspended." : "active."), "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(dialog, "Failed to change user state. See logs.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }, SwingUtilities::invokeLater);
         });
 
         closeBtn.addActionListener(e -> dialog.dispose());
@@ -1496,7 +2044,7 @@ public class BarangayWasteSystemFull extends JFrame {
     }
 
     /**
-     * Opens a dialog to update user's editable fields and persist via DatabaseManager.updateUser(...)
+     * Opens a dialog to update user's editable fields and persist via AsyncDatabase.updateUser(...)
      */
     private void openUpdateUserDialog(UserInfo user, DefaultTableModel model, JTable table) {
         JTextField fullNameField = new JTextField(user.getFullName());
@@ -1529,63 +2077,46 @@ public class BarangayWasteSystemFull extends JFrame {
             }
 
             UserInfo updated = new UserInfo(newFull, newEmpId, newRole, user.getUsername(), user.getPassword());
-            boolean ok = false;
-            try {
-                ok = DatabaseManager.updateUser(updated);
-            } catch (NoSuchMethodError nsme) {
-                JOptionPane.showMessageDialog(this, "DatabaseManager.updateUser(UserInfo) not implemented. Please add persistence support.", "Not implemented", JOptionPane.ERROR_MESSAGE);
-                return;
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(this, "Failed to update user: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-
-            if (ok) {
-                // update table row display if present
-                // find row by username
-                for (int r = 0; r < model.getRowCount(); r++) {
-                    if (model.getValueAt(r, 0).equals(user.getUsername())) {
-                        model.setValueAt(updated.getFullName(), r, 1);
-                        model.setValueAt(updated.getRole(), r, 2);
-                        model.setValueAt(updated.getEmployeeId(), r, 3);
-                        break;
+            AsyncDatabase.updateUser(updated).whenCompleteAsync((ok, failure) -> {
+                if (failure != null) {
+                    JOptionPane.showMessageDialog(this, "Failed to update user: " + failure.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                } else if (ok) {
+                    // update table row display if present
+                    // find row by username
+                    for (int r = 0; r < model.getRowCount(); r++) {
+                        if (model.getValueAt(r, 0).equals(user.getUsername())) {
+                            model.setValueAt(updated.getFullName(), r, 1);
+                            model.setValueAt(updated.getRole(), r, 2);
+                            model.setValueAt(updated.getEmployeeId(), r, 3);
+                            break;
+                        }
                     }
+                    JOptionPane.showMessageDialog(this, "User successfully updated.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Failed to update user in database.", "Error", JOptionPane.ERROR_MESSAGE);
                 }
-                JOptionPane.showMessageDialog(this, "User successfully updated.", "Success", JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this, "Failed to update user in database.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            }, SwingUtilities::invokeLater);
         }
     }
 
     /**
      * Shows login history in a table (Timestamp | Activity)
-     * Uses DatabaseManager.getLoginHistory()
+     * Pages through DatabaseManager.openLoginHistory(), most recent first
      */
     private void showLoginActivityTableDialog() {
-        java.util.List<String> entries = DatabaseManager.getLoginHistory();
-        if (entries == null || entries.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No login activity recorded yet.", "Login Activity", JOptionPane.INFORMATION_MESSAGE);
+        LoginHistoryCursor reader;
+        LoginHistoryTableModel model;
+        try {
+            reader = DatabaseManager.openLoginHistory();
+            model = new LoginHistoryTableModel(reader);
+        } catch (java.io.IOException ex) {
+            JOptionPane.showMessageDialog(this, "Could not read login activity: " + ex.getMessage(), "Login Activity", JOptionPane.ERROR_MESSAGE);
             return;
         }
-
-        String[] cols = {"Timestamp", "Activity"};
-        DefaultTableModel model = new DefaultTableModel(cols, 0) {
-            @Override public boolean isCellEditable(int r, int c) { return false; }
-        };
-
-        // Show most recent first
-        for (int i = entries.size() - 1; i >= 0; i--) {
-            String e = entries.get(i);
-            String ts = "";
-            String act = e;
-            // try parse "yyyy-MM-dd HH:mm:ss - rest"
-            int idx = e.indexOf(" - ");
-            if (idx > 0) {
-                ts = e.substring(0, idx);
-                act = e.substring(idx + 3);
-            }
-            model.addRow(new Object[]{ts, act});
+        if (model.getRowCount() == 0) {
+            closeQuietly(reader);
+            JOptionPane.showMessageDialog(this, "No login activity recorded yet.", "Login Activity", JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
 
         JTable table = createStyledTable(model);
@@ -1608,12 +2139,90 @@ public class BarangayWasteSystemFull extends JFrame {
 
         close.addActionListener(ae -> dialog.dispose());
         dialog.setVisible(true); 
+        closeQuietly(reader);
+    }
+
+    /** Admin: live view of the Metrics registry (latencies in ms), refreshed every two seconds. */
+    private void showSystemHealthDialog() {
+        String[] cols = {"Metric", "Labels", "Count / Value", "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)"};
+        DefaultTableModel model = new DefaultTableModel(cols, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        Runnable refresh = () -> {
+            model.setRowCount(0);
+            for (Metrics.Metric metric : Metrics.all()) {
+                String labels = metric.getLabels().replaceAll("[{}\"]", "");
+                if (metric instanceof Metrics.Histogram) {
+                    Metrics.Histogram h = (Metrics.Histogram) metric;
+                    model.addRow(new Object[]{metric.getName(), labels, h.count(),
+                        millis(h.quantile(0.50)), millis(h.quantile(0.95)), millis(h.quantile(0.99)), millis(h.max())});
+                } else if (metric instanceof Metrics.Counter) {
+                    model.addRow(new Object[]{metric.getName(), labels, ((Metrics.Counter) metric).get(), "", "", "", ""});
+                } else {
+                    double value = ((Metrics.Gauge) metric).get();
+                    model.addRow(new Object[]{metric.getName(), labels, value == Math.rint(value)
+                        ? String.valueOf((long) value) : String.format("%.1f", value), "", "", "", ""});
+                }
+            }
+        };
+        refresh.run();
+
+        JTable table = createStyledTable(model);
+        table.getColumnModel().getColumn(0).setPreferredWidth(230);
+        table.getColumnModel().getColumn(1).setPreferredWidth(180);
+        JScrollPane sp = new JScrollPane(table);
+        sp.setPreferredSize(new Dimension(900, 420));
+
+        JButton close = createStyledButton("CLOSE", INFO_BLUE, Color.WHITE);
+        JPanel btn = new JPanel(new BorderLayout());
+        java.nio.file.Path metricsFile = MetricsExporter.configuredFile();
+        if (metricsFile != null) {
+            btn.add(new JLabel("Also written to " + metricsFile + " (Prometheus text format)"), BorderLayout.WEST);
+        }
+        btn.add(close, BorderLayout.EAST);
+
+        JPanel container = new JPanel(new BorderLayout(8, 8));
+        container.setBorder(new EmptyBorder(10, 10, 10, 10));
+        container.add(sp, BorderLayout.CENTER);
+        container.add(btn, BorderLayout.SOUTH);
+
+        JDialog dialog = new JDialog(this, "System Health", true);
+        dialog.getContentPane().add(container);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+
+        Timer timer = new Timer(2000, e -> refresh.run());
+        timer.start();
+        close.addActionListener(ae -> dialog.dispose());
+        dialog.setVisible(true);
+        timer.stop();
+    }
+
+    private static String millis(double seconds) {
+        return Double.isNaN(seconds) ? "-" : String.format("%.2f", seconds * 1000);
+    }
+
+    private static void closeQuietly(java.io.Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (java.io.IOException ex) {
+            System.err.println("Failed to close: " + ex.getMessage());
+        }
     }
 
     // ----------------- End admin helpers -----------------
 
-    public static void main(String[] args) {
-        // Run the Swing application on the Event Dispatch Thread
+    public static void main(String[] args) throws IOException {
+        // Headless JSON API for handhelds instead of the portal
+        if (args.length > 0 && "--server".equals(args[0])) {
+            WasteServer.main(args);
+            return;
+        }
+        // Log UI freezes (see EdtWatchdog), then run the Swing application on the Event Dispatch Thread
+        EdtWatchdog.install();
         SwingUtilities.invokeLater(() -> new BarangayWasteSystemFull());
     }
 }
\ No newline at end of file
@@ -0,0 +1,376 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Column-oriented storage for a log table.
+ *
+ * Numeric columns are kept in primitive double[] arrays, dates as int[] epoch days and
+ * text columns are dictionary-encoded into int[] codes, so a row costs a few bytes per
+ * column instead of an Object[] of boxed values. Rows are stored in append-only slots; the visible row
+ * order is an int[] of slot ids, which means a slot id stays stable for the lifetime of
+ * the record even when earlier rows are deleted.
+ *
+ * Each record also carries a UUID that is the same on every terminal (it is written to
+ * the record log), so logged edits name the record rather than its row position. Slots
+ * are appended in row order and never reordered, so the visible rows are sorted by slot
+ * and an id resolves to its row with a binary search. Ids are kept as two long columns,
+ * and the id-to-slot lookup is an open-addressing int[] of slots, so a row pays about
+ * 24 bytes for its id instead of a UUID object and a map entry.
+ */
+public class ColumnarLogStore {
+
+    public enum ColumnType { TEXT, NUMBER, DATE }
+
+    /** Notified after every mutation, with the previous values for updates and deletes. */
+    public interface Listener {
+        void rowsInserted(int firstRow, int lastRow);
+        void rowUpdated(int row, Object[] oldValues);
+        void rowDeleted(int row, int slot, Object[] oldValues);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String[] columnNames;
+    private final ColumnType[] columnTypes;
+    private final double[][] numbers;      // [column][slot], null for text columns
+    private final int[][] codes;           // [column][slot], text columns only
+    private final int[][] days;            // [column][slot], date columns only
+    private final Dictionary[] dictionaries;
+    private final List<Listener> listeners = new ArrayList<>();
+    private long[] idHigh = new long[INITIAL_CAPACITY];     // [slot], most significant bits of the id
+    private long[] idLow = new long[INITIAL_CAPACITY];      // [slot], least significant bits
+    private int[] idTable = new int[INITIAL_CAPACITY * 2];  // linear probing: slot + 1 of a live record, 0 = free
+    private int idCount;
+
+    private int slotCount;
+    private int[] rows = new int[INITIAL_CAPACITY]; // visible row -> slot
+    private int rowCount;
+    private int removals; // lets readers outside the lock notice that row numbers shifted
+
+    public ColumnarLogStore(String[] columnNames, ColumnType[] columnTypes) {
+        if (columnNames.length != columnTypes.length) {
+            throw new IllegalArgumentException("Column names and types must have the same length");
+        }
+        this.columnNames = columnNames.clone();
+        this.columnTypes = columnTypes.clone();
+        this.numbers = new double[columnTypes.length][];
+        this.codes = new int[columnTypes.length][];
+        this.days = new int[columnTypes.length][];
+        this.dictionaries = new Dictionary[columnTypes.length];
+        for (int c = 0; c < columnTypes.length; c++) {
+            if (columnTypes[c] == ColumnType.NUMBER) {
+                numbers[c] = new double[INITIAL_CAPACITY];
+            } else if (columnTypes[c] == ColumnType.DATE) {
+                days[c] = new int[INITIAL_CAPACITY];
+            } else {
+                codes[c] = new int[INITIAL_CAPACITY];
+                dictionaries[c] = new Dictionary();
+            }
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /** Number of rows removed so far; row numbers taken before a removal may no longer be valid. */
+    public int getRemovalCount() {
+        return removals;
+    }
+
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    public ColumnType getColumnType(int column) {
+        return columnTypes[column];
+    }
+
+    /** Stable id of the record currently shown at the given row. */
+    public int slotAt(int row) {
+        checkRow(row);
+        return rows[row];
+    }
+
+    /** Id of the record currently shown at the given row, the same on every terminal. */
+    public UUID idAt(int row) {
+        int slot = slotAt(row);
+        return new UUID(idHigh[slot], idLow[slot]);
+    }
+
+    /** Current row of the record with the given id, or -1 if there is none (never added, or deleted). */
+    public int rowOf(UUID id) {
+        int position = idPosition(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (position < 0) return -1;
+        int row = Arrays.binarySearch(rows, 0, rowCount, idTable[position] - 1);
+        return row < 0 ? -1 : row;
+    }
+
+    public Object getValue(int row, int column) {
+        int slot = slotAt(row);
+        if (columnTypes[column] == ColumnType.NUMBER) return numbers[column][slot];
+        if (columnTypes[column] == ColumnType.DATE) {
+            int day = days[column][slot];
+            return day == LogDates.UNKNOWN ? null : java.time.LocalDate.ofEpochDay(day);
+        }
+        return dictionaries[column].lookup(codes[column][slot]);
+    }
+
+    /** Primitive read of a numeric column, without boxing. */
+    public double getNumber(int row, int column) {
+        return numbers[column][slotAt(row)];
+    }
+
+    /** Epoch day of a date column, or {@link LogDates#UNKNOWN}. */
+    public int getDay(int row, int column) {
+        return days[column][slotAt(row)];
+    }
+
+    /** Dictionary code of a text column; compare against {@link #codeOf}. */
+    public int getCode(int row, int column) {
+        return codes[column][slotAt(row)];
+    }
+
+    /** Returns the dictionary code for a text value, or -1 if no row has ever used it. */
+    public int codeOf(int column, String value) {
+        return dictionaries[column].find(value);
+    }
+
+    /** Codes of every distinct value in a text column accepted by the test. */
+    public BitSet codesMatching(int column, Predicate<String> test) {
+        return dictionaries[column].matching(test);
+    }
+
+    /**
+     * Sort rank of every dictionary code in a text column (case-insensitive order), indexed
+     * by code. The array is shared and re-sorted only after the column gains a new value;
+     * callers must not modify it.
+     */
+    public int[] textRanks(int column) {
+        return dictionaries[column].ranks();
+    }
+
+    public Object[] getRow(int row) {
+        Object[] values = new Object[columnNames.length];
+        for (int c = 0; c < values.length; c++) values[c] = getValue(row, c);
+        return values;
+    }
+
+    /** Adds a record with a new random id; returns its row. */
+    public int addRow(Object[] values) {
+        return addRow(UUID.randomUUID(), values);
+    }
+
+    public int addRow(UUID id, Object[] values) {
+        int slot = allocateSlot(id);
+        writeSlot(slot, values);
+        if (rowCount == rows.length) rows = Arrays.copyOf(rows, grow(rows.length));
+        int row = rowCount++;
+        rows[row] = slot;
+        for (Listener l : listeners) l.rowsInserted(row, row);
+        return row;
+    }
+
+    /** Appends the rows with new random ids; see {@link #addRows(List, List)}. */
+    public int addRows(List<Object[]> values) {
+        List<UUID> newIds = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) newIds.add(UUID.randomUUID());
+        return addRows(newIds, values);
+    }
+
+    /** Appends the rows and notifies listeners once for the whole range; returns the first row. */
+    public int addRows(List<UUID> recordIds, List<Object[]> values) {
+        if (recordIds.size() != values.size()) throw new IllegalArgumentException("One id per row is required");
+        int first = rowCount;
+        if (values.isEmpty()) return first;
+        for (int i = 0; i < values.size(); i++) {
+            int slot = allocateSlot(recordIds.get(i));
+            writeSlot(slot, values.get(i));
+            if (rowCount == rows.length) rows = Arrays.copyOf(rows, grow(rows.length));
+            rows[rowCount++] = slot;
+        }
+        for (Listener l : listeners) l.rowsInserted(first, rowCount - 1);
+        return first;
+    }
+
+    public void setRow(int row, Object[] values) {
+        Object[] old = getRow(row);
+        writeSlot(rows[row], values);
+        for (Listener l : listeners) l.rowUpdated(row, old);
+    }
+
+    public void removeRow(int row) {
+        Object[] old = getRow(row);
+        int slot = rows[row];
+        System.arraycopy(rows, row + 1, rows, row, rowCount - row - 1);
+        rowCount--;
+        unindexId(slot);
+        removals++;
+        for (Listener l : listeners) l.rowDeleted(row, slot, old);
+    }
+
+    private int allocateSlot(UUID id) {
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        if (idPosition(high, low) >= 0) throw new IllegalArgumentException("Duplicate record id " + id);
+        if (slotCount == capacity()) {
+            int newCapacity = grow(capacity());
+            idHigh = Arrays.copyOf(idHigh, newCapacity);
+            idLow = Arrays.copyOf(idLow, newCapacity);
+            for (int c = 0; c < columnTypes.length; c++) {
+                if (numbers[c] != null) numbers[c] = Arrays.copyOf(numbers[c], newCapacity);
+                else if (days[c] != null) days[c] = Arrays.copyOf(days[c], newCapacity);
+                else codes[c] = Arrays.copyOf(codes[c], newCapacity);
+            }
+        }
+        idHigh[slotCount] = high;
+        idLow[slotCount] = low;
+        indexId(slotCount);
+        return slotCount++;
+    }
+
+    // --- Id lookup: an open-addressing table of slots, compared against the id columns ---
+
+    private static int idHash(long high, long low) {
+        return (int) (((high ^ low) * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /** Position in idTable of the live record with the id, or -1. */
+    private int idPosition(long high, long low) {
+        int mask = idTable.length - 1;
+        for (int i = idHash(high, low) & mask; idTable[i] != 0; i = (i + 1) & mask) {
+            int slot = idTable[i] - 1;
+            if (idHigh[slot] == high && idLow[slot] == low) return i;
+        }
+        return -1;
+    }
+
+    private void indexId(int slot) {
+        if ((idCount + 1) * 2 > idTable.length) { // keep the table at most half full
+            int[] old = idTable;
+            idTable = new int[old.length * 2];
+            for (int entry : old) {
+                if (entry != 0) place(entry - 1);
+            }
+        }
+        place(slot);
+        idCount++;
+    }
+
+    private void place(int slot) {
+        int mask = idTable.length - 1;
+        int i = idHash(idHigh[slot], idLow[slot]) & mask;
+        while (idTable[i] != 0) i = (i + 1) & mask;
+        idTable[i] = slot + 1;
+    }
+
+    /** Removes the slot's id, shifting later entries of its probe run back so lookups still find them. */
+    private void unindexId(int slot) {
+        int mask = idTable.length - 1;
+        int hole = idPosition(idHigh[slot], idLow[slot]);
+        if (hole < 0) return;
+        idTable[hole] = 0;
+        idCount--;
+        for (int i = (hole + 1) & mask; idTable[i] != 0; i = (i + 1) & mask) {
+            int entry = idTable[i];
+            int home = idHash(idHigh[entry - 1], idLow[entry - 1]) & mask;
+            // Move it into the hole unless its home lies after the hole (cyclically)
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                idTable[hole] = entry;
+                idTable[i] = 0;
+                hole = i;
+            }
+        }
+    }
+
+    private void writeSlot(int slot, Object[] values) {
+        for (int c = 0; c < columnTypes.length; c++) {
+            Object value = c < values.length ? values[c] : null;
+            if (columnTypes[c] == ColumnType.NUMBER) {
+                numbers[c][slot] = (value instanceof Number) ? ((Number) value).doubleValue() : 0.0;
+            } else if (columnTypes[c] == ColumnType.DATE) {
+                days[c][slot] = LogDates.toEpochDay(value);
+            } else {
+                codes[c][slot] = dictionaries[c].encode(value == null ? "" : value.toString());
+            }
+        }
+    }
+
+    private int capacity() {
+        if (numbers[0] != null) return numbers[0].length;
+        return days[0] != null ? days[0].length : codes[0].length;
+    }
+
+    private static int grow(int capacity) {
+        return capacity + (capacity >> 1) + 1;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range (size " + rowCount + ")");
+        }
+    }
+
+    /** Maps each distinct string in a column to a dense int code. */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] ranks; // cached sort ranks, null after a new value
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code != null) return code;
+            int next = values.size();
+            values.add(value);
+            codes.put(value, next);
+            ranks = null;
+            return next;
+        }
+
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String lookup(int code) {
+            return values.get(code);
+        }
+
+        int[] ranks() {
+            if (ranks != null) return ranks;
+            Integer[] order = new Integer[values.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(values.get(a), values.get(b)));
+            int[] sorted = new int[order.length];
+            for (int rank = 0; rank < order.length; rank++) sorted[order[rank]] = rank;
+            ranks = sorted;
+            return sorted;
+        }
+
+        BitSet matching(Predicate<String> test) {
+            BitSet result = new BitSet(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                if (test.test(values.get(i))) result.set(i);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small fixed-size JDBC connection pool with a prepared-statement cache per connection.
+ *
+ * Connections are opened lazily up to the pool size and handed out with
+ * {@link #borrow}; callers must {@link #release} them (use try/finally). Each pooled
+ * connection keeps the statements prepared on it, so the same SQL is parsed once per
+ * connection rather than once per call.
+ */
+public class ConnectionPool {
+
+    private static final long BORROW_TIMEOUT_SECONDS = 10;
+
+    /** A pooled connection and the statements prepared on it. */
+    public static final class Pooled {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        Pooled(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection connection() {
+            return connection;
+        }
+
+        /** Cached prepared statement for the SQL; do not close it. */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        void close() {
+            try {
+                for (PreparedStatement statement : statements.values()) statement.close();
+                connection.close();
+            } catch (SQLException ex) {
+                System.err.println("Failed to close pooled connection: " + ex.getMessage());
+            }
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int size;
+    private final BlockingQueue<Pooled> idle;
+    private final List<Pooled> all = new ArrayList<>();
+    private boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int size) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.size = Math.max(1, size);
+        this.idle = new ArrayBlockingQueue<>(this.size);
+    }
+
+    /** An idle connection, a new one while below the pool size, or the next one released. */
+    public Pooled borrow() throws SQLException {
+        Pooled pooled = idle.poll();
+        if (pooled == null) pooled = openIfBelowSize();
+        if (pooled == null) {
+            try {
+                pooled = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted waiting for a database connection");
+            }
+            if (pooled == null) throw new SQLException("No database connection free after " + BORROW_TIMEOUT_SECONDS + "s");
+        }
+        if (!pooled.connection.isValid(2)) {
+            // Dropped by the server: replace it
+            discard(pooled);
+            return borrow();
+        }
+        return pooled;
+    }
+
+    /** Returns a connection to the pool; broken connections (failed=true) are discarded. */
+    public void release(Pooled pooled, boolean failed) {
+        if (pooled == null) return;
+        synchronized (this) {
+            if (closed) failed = true;
+        }
+        if (failed) discard(pooled);
+        else idle.offer(pooled);
+    }
+
+    public synchronized void close() {
+        closed = true;
+        for (Pooled pooled : all) pooled.close();
+        all.clear();
+        idle.clear();
+    }
+
+    private synchronized Pooled openIfBelowSize() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+        if (all.size() >= size) return null;
+        Pooled pooled = new Pooled(DriverManager.getConnection(url, user, password));
+        all.add(pooled);
+        return pooled;
+    }
+
+    private void discard(Pooled pooled) {
+        synchronized (this) {
+            all.remove(pooled);
+        }
+        pooled.close();
+    }
+}
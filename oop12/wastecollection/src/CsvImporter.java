@@ -0,0 +1,324 @@
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Streams a CSV file into the Waste Giver or Collection Log table.
+ *
+ * One thread reads the file and cuts it into chunks of records (a quoted field may span
+ * lines). The chunks are parsed and validated in parallel with the entry dialogs' rules
+ * (WasteRecords.parseDate, checkWeight, checkChoice and checkText) and handed to the sink in file
+ * order, in large batches, so each batch becomes one insert and one change event.
+ * Invalid lines are skipped and reported with their line number.
+ *
+ * If the first line names the columns, columns are matched by name (ignoring case,
+ * spaces, punctuation and "(kg)"), so exports with extra or reordered columns import;
+ * otherwise columns are taken in table order. Entered By is always the importing user.
+ */
+public class CsvImporter {
+
+    /** What an import did. */
+    public static final class Result {
+        public int imported;
+        public int rejected;
+        public boolean cancelled;
+        public final List<String> errors = new ArrayList<>(); // first MAX_ERRORS, "Line n: ..."
+    }
+
+    public static final int MAX_ERRORS = 1000;
+
+    private static final int CHUNK_RECORDS = 4096;
+    private static final int BATCH_ROWS = 65536;
+    // A weight with thousands separators, e.g. 1,250.5; a comma anywhere else (1,5) is an error, not 15
+    private static final Pattern GROUPED = Pattern.compile("[-+]?\\d{1,3}(,\\d{3})+(\\.\\d*)?");
+
+    /** Rows and errors of one chunk. */
+    private static final class Parsed {
+        final List<Object[]> rows = new ArrayList<>(CHUNK_RECORDS);
+        final List<String> errors = new ArrayList<>();
+        int rejected;
+    }
+
+    private final byte table;
+    private final String enteredBy;
+    private final String[] columns; // table columns without Entered By
+    private int[] fieldOf;          // table column -> CSV field
+
+    public CsvImporter(byte table, String enteredBy) {
+        this.table = table;
+        this.enteredBy = enteredBy;
+        String[] all = table == RecordLog.TABLE_GIVER ? WasteRecords.WASTE_GIVER_COLUMNS : WasteRecords.COLLECTION_LOG_COLUMNS;
+        this.columns = Arrays.copyOf(all, all.length - 1);
+    }
+
+    /**
+     * Imports the file, passing valid rows to the sink in file order. Progress is reported
+     * in percent of the file read; the import stops between chunks once cancelled returns
+     * true (rows already passed to the sink stay imported).
+     */
+    public Result run(Path file, Consumer<List<Object[]>> sink, IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        Result result = new Result();
+        long size = Math.max(1, Files.size(file));
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "csv-import");
+            t.setDaemon(true);
+            return t;
+        });
+        long[] read = {0};
+        try (InputStream in = new FilterInputStream(Files.newInputStream(file)) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) read[0] += n;
+                    return n;
+                }
+            };
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+            int[] lineNo = {0};
+            List<String> first = nextChunk(reader, lineNo, 1);
+            if (first.isEmpty()) return result;
+            String firstRecord = first.get(0);
+            if (firstRecord.startsWith("\uFEFF")) firstRecord = firstRecord.substring(1);
+            List<String> header = split(firstRecord);
+            fieldOf = headerMapping(header);
+            List<String> carried = new ArrayList<>(); // the first record, when it is data
+            int chunkFirstLine;
+            if (fieldOf == null) {
+                fieldOf = new int[columns.length];
+                for (int c = 0; c < columns.length; c++) fieldOf[c] = c;
+                carried.add(firstRecord);
+                chunkFirstLine = 1;
+            } else {
+                chunkFirstLine = lineNo[0] + 1;
+            }
+
+            ArrayDeque<Future<Parsed>> inFlight = new ArrayDeque<>();
+            List<Object[]> batch = new ArrayList<>();
+            while (true) {
+                if (cancelled.getAsBoolean()) {
+                    result.cancelled = true;
+                    break;
+                }
+                List<String> chunk = nextChunk(reader, lineNo, CHUNK_RECORDS);
+                if (!carried.isEmpty()) {
+                    carried.addAll(chunk);
+                    chunk = carried;
+                    carried = new ArrayList<>();
+                }
+                if (chunk.isEmpty()) break;
+                final List<String> records = chunk;
+                final int startLine = chunkFirstLine;
+                inFlight.add(pool.submit(() -> parse(records, startLine)));
+                chunkFirstLine = lineNo[0] + 1;
+                if (inFlight.size() >= threads * 2) batch = collect(inFlight.poll(), batch, result, sink);
+                progress.accept((int) Math.min(99, read[0] * 100 / size));
+            }
+            while (!inFlight.isEmpty()) batch = collect(inFlight.poll(), batch, result, sink);
+            if (!batch.isEmpty()) deliver(batch, result, sink);
+            progress.accept(100);
+            return result;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<Object[]> collect(Future<Parsed> future, List<Object[]> batch, Result result, Consumer<List<Object[]>> sink) throws IOException {
+        Parsed parsed;
+        try {
+            parsed = future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IOException("Import failed: " + ex.getCause(), ex.getCause());
+        }
+        result.rejected += parsed.rejected;
+        for (String error : parsed.errors) {
+            if (result.errors.size() < MAX_ERRORS) result.errors.add(error);
+        }
+        batch.addAll(parsed.rows);
+        if (batch.size() < BATCH_ROWS) return batch;
+        deliver(batch, result, sink);
+        return new ArrayList<>();
+    }
+
+    private static void deliver(List<Object[]> batch, Result result, Consumer<List<Object[]>> sink) {
+        sink.accept(batch);
+        result.imported += batch.size();
+    }
+
+    /** Validates one chunk; runs on the pool. */
+    private Parsed parse(List<String> records, int firstLine) {
+        Parsed parsed = new Parsed();
+        Map<String, LocalDate> dates = new HashMap<>(); // imports repeat the same few dates
+        int line = firstLine;
+        for (String record : records) {
+            int lineNo = line;
+            line += lineCount(record);
+            if (record.trim().isEmpty()) continue;
+            List<String> fields = split(record);
+            Object[] row = new Object[columns.length + 1];
+            try {
+                for (int c = 0; c < columns.length; c++) {
+                    int f = fieldOf[c];
+                    String text = f < fields.size() ? fields.get(f).trim() : "";
+                    row[c] = value(c, text, dates);
+                }
+            } catch (NumberFormatException ex) {
+                parsed.rejected++;
+                if (parsed.errors.size() < MAX_ERRORS) parsed.errors.add("Line " + lineNo + ": " + ex.getMessage());
+                continue;
+            }
+            row[columns.length] = enteredBy;
+            parsed.rows.add(row);
+        }
+        return parsed;
+    }
+
+    private Object value(int column, String text, Map<String, LocalDate> dates) {
+        String name = columns[column];
+        try {
+            if (column == 0) {
+                LocalDate date = dates.get(text);
+                if (date == null) {
+                    date = WasteRecords.parseDate(text);
+                    dates.put(text, date);
+                }
+                return date;
+            }
+            if (name.endsWith("(kg)")) {
+                if (text.isEmpty()) throw new NumberFormatException("Value is empty.");
+                if (text.indexOf(',') >= 0) {
+                    if (!GROUPED.matcher(text).matches()) {
+                        throw new NumberFormatException("\"" + text + "\" is not a number (commas may only separate thousands).");
+                    }
+                    text = text.replace(",", "");
+                }
+                return WasteRecords.checkWeight(Double.parseDouble(text));
+            }
+            if (table == RecordLog.TABLE_GIVER && column == 1) return WasteRecords.checkChoice(text, WasteRecords.PUROK_OPTIONS);
+            if (table == RecordLog.TABLE_GIVER && column == 3) return WasteRecords.checkChoice(text, WasteRecords.WASTE_TYPE_OPTIONS);
+            return WasteRecords.checkText(text);
+        } catch (NumberFormatException ex) {
+            String message = ex.getMessage();
+            if (message == null || message.startsWith("For input string")) message = "\"" + text + "\" is not a number.";
+            throw new NumberFormatException(name + ": " + message);
+        }
+    }
+
+    /** Column mapping from a header row, or null when the first row is data. */
+    private int[] headerMapping(List<String> header) throws IOException {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) byName.putIfAbsent(normalize(header.get(i)), i);
+        int[] mapping = new int[columns.length];
+        int found = 0;
+        List<String> missing = new ArrayList<>();
+        for (int c = 0; c < columns.length; c++) {
+            Integer i = byName.get(normalize(columns[c]));
+            if (i == null) {
+                missing.add(columns[c]);
+            } else {
+                mapping[c] = i;
+                found++;
+            }
+        }
+        if (found == 0) return null;
+        if (!missing.isEmpty()) throw new IOException("The header row has no column for: " + String.join(", ", missing));
+        return mapping;
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).replace("(kg)", "").replaceAll("[^a-z0-9]", "");
+    }
+
+    /** Reads up to max records; a record continues onto the next line while a quote is open. */
+    private static List<String> nextChunk(BufferedReader reader, int[] lineNo, int max) throws IOException {
+        List<String> records = new ArrayList<>(Math.min(max, CHUNK_RECORDS));
+        String line;
+        while (records.size() < max && (line = reader.readLine()) != null) {
+            lineNo[0]++;
+            if (quoteCount(line) % 2 != 0) {
+                StringBuilder sb = new StringBuilder(line);
+                int quotes = quoteCount(line);
+                while (quotes % 2 != 0 && (line = reader.readLine()) != null) {
+                    lineNo[0]++;
+                    sb.append('\n').append(line);
+                    quotes += quoteCount(line);
+                }
+                records.add(sb.toString());
+            } else {
+                records.add(line);
+            }
+        }
+        return records;
+    }
+
+    private static int quoteCount(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') n++;
+        }
+        return n;
+    }
+
+    private static int lineCount(String record) {
+        int n = 1;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '\n') n++;
+        }
+        return n;
+    }
+
+    /** Splits one record into fields; "" inside quotes is a literal quote. */
+    static List<String> split(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -1,62 +1,95 @@
-import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.charset.StandardCharsets;
+import java.util.function.UnaryOperator;
 
+/**
+ * Static data access for user accounts and login activity.
+ *
+ * Consistency model: safe to call from any thread. Accounts live in a ConcurrentHashMap.
+ * Every mutation of one account (register, update, suspend) holds that account's lock
+ * (striped by username), writes the new state to storage and then installs it with one
+ * put, so changes to the same account are stored and applied in one order and a reader
+ * sees either the old or the new account, never a mix. Storage I/O never runs inside
+ * the map's own bin locks, so a slow database round-trip holds up only changes to
+ * accounts on the same stripe. When the storage write fails the account is left
+ * unchanged and the call reports failure. Reads (authenticate, exists, getUser) do not
+ * lock. Changes to different accounts are independent; getAllUsers() is a weakly
+ * consistent copy that may or may not include changes made while it runs.
+ *
+ * With shared storage (several terminals on one database) other terminals change the
+ * same accounts, so logins, suspension checks and every change re-read the account
+ * first, and a change writes only the fields it touches. If another terminal changed
+ * one of those fields between the read and the write, the change is re-applied to the
+ * newly stored state. Login entries
+ * go onto the login recorder's lock-free queue and become visible to history queries
+ * once flushed, which the query methods do first.
+ */
 public class DatabaseManager {
 
-    private static final Map<String, UserInfo> users = new HashMap<>();
-    private static final List<String> loginHistory = new ArrayList<>();
-    private static final Path DATA_DIR = Paths.get("data");
-    private static final Path USERS_FILE = DATA_DIR.resolve("users.txt");
-    private static final Path LOGINS_FILE = DATA_DIR.resolve("logins.txt");
+    private static final Map<String, UserInfo> users = new ConcurrentHashMap<>();
+    private static final Object[] accountLocks = new Object[64]; // see change()
+    private static final Path DATA_DIR = Paths.get(System.getProperty("bsk.dataDir", "data")); // benchmarks point this at a scratch dir
+    private static StorageBackend storage;
+    private static volatile LoginRecorder loginRecorder;
+    private static final AtomicBoolean plaintextCompactionQueued = new AtomicBoolean();
+
+    // Storage latency by operation; see Metrics
+    private static final String STORAGE_SECONDS = "bsk_storage_seconds";
+    private static final String STORAGE_HELP = "Time spent in user and login storage calls";
+    private static final Metrics.Histogram LOAD_USERS = Metrics.histogram(STORAGE_SECONDS, STORAGE_HELP, "op", "load_users");
+    private static final Metrics.Histogram LOAD_USER = Metrics.histogram(STORAGE_SECONDS, STORAGE_HELP, "op", "load_user");
+    private static final Metrics.Histogram SAVE_USER = Metrics.histogram(STORAGE_SECONDS, STORAGE_HELP, "op", "save_user");
+    private static final Metrics.Histogram SAVE_ALL_USERS = Metrics.histogram(STORAGE_SECONDS, STORAGE_HELP, "op", "save_all_users");
+    private static final Metrics.Histogram READ_LOGINS = Metrics.histogram(STORAGE_SECONDS, STORAGE_HELP, "op", "read_logins");
+    private static final int MAX_CHANGE_ATTEMPTS = 3;
+    private static final Metrics.Counter STORAGE_ERRORS = Metrics.counter("bsk_storage_errors_total",
+        "User and login storage calls that failed");
+
+    static {
+        for (int i = 0; i < accountLocks.length; i++) accountLocks[i] = new Object();
+        Metrics.gauge("bsk_users", "Registered accounts", users::size);
+    }
 
     private DatabaseManager() {}
 
     public static void initializeDatabase() {
+        long start = System.nanoTime();
         try {
-            if (!Files.exists(DATA_DIR)) Files.createDirectories(DATA_DIR);
-            // load users
-            if (Files.exists(USERS_FILE)) {
-                List<String> lines = Files.readAllLines(USERS_FILE, StandardCharsets.UTF_8);
-                for (String line : lines) {
-                    if (line.trim().isEmpty()) continue;
-                    // username|password|fullName|employeeId|role|suspended
-                    String[] parts = line.split("\\|", -1);
-                    if (parts.length >= 6) {
-                        String username = parts[0];
-                        String password = parts[1];
-                        String fullName = parts[2];
-                        String employeeId = parts[3];
-                        String role = parts[4];
-                        boolean suspended = Boolean.parseBoolean(parts[5]);
-                        users.put(username, new UserInfo(fullName, employeeId, role, username, password, suspended));
-                    } else if (parts.length >= 5) {
-                        // Backward compatibility: if no suspended field, assume false
-                        String username = parts[0];
-                        String password = parts[1];
-                        String fullName = parts[2];
-                        String employeeId = parts[3];
-                        String role = parts[4];
-                        users.put(username, new UserInfo(fullName, employeeId, role, username, password, false));
-                    }
-                }
-            }
-            // load logins
-            if (Files.exists(LOGINS_FILE)) {
-                List<String> lines = Files.readAllLines(LOGINS_FILE, StandardCharsets.UTF_8);
-                for (String line : lines) {
-                    if (!line.trim().isEmpty()) loginHistory.add(line);
+            // load users; login history is read on demand, see openLoginHistory()
+            storage().loadUsers(users);
+        } catch (IOException ex) {
+            STORAGE_ERRORS.increment();
+            System.err.println("Failed to load users: " + ex.getMessage());
+        } finally {
+            LOAD_USERS.observeSince(start);
+        }
+    }
+
+    /** The configured storage backend (see StorageBackend.fromConfiguration), opened on first use. */
+    private static synchronized StorageBackend storage() {
+        if (storage == null) {
+            try {
+                if (!Files.exists(DATA_DIR)) Files.createDirectories(DATA_DIR);
+                storage = StorageBackend.fromConfiguration(DATA_DIR);
+            } catch (IOException ex) {
+                System.err.println("Failed to open configured storage, using local files: " + ex.getMessage());
+                try {
+                    storage = new FileStorageBackend(DATA_DIR);
+                } catch (IOException fileEx) {
+                    throw new IllegalStateException("No usable storage: " + fileEx.getMessage(), fileEx);
                 }
             }
-        } catch (IOException ex) {
-            System.err.println("Failed to initialize data directory: " + ex.getMessage());
         }
+        return storage;
     }
 
     public static boolean userExists(String username) {
@@ -67,110 +100,301 @@ public class DatabaseManager {
                                        String fullName, String employeeId,
                                        String role) {
         if (userExists(username)) return false;
-
-        users.put(username,
-            new UserInfo(fullName, employeeId, role, username, password, false)
-        );
-        // append to file for persistence
+        String hashed = PasswordHasher.hash(password); // slow on purpose: outside the account lock
+        UserInfo user = new UserInfo(fullName, employeeId, role, username, hashed, false);
         try {
-            if (!Files.exists(DATA_DIR)) Files.createDirectories(DATA_DIR);
-            String line = String.join("|", username, password, fullName, employeeId, role, "false") + System.lineSeparator();
-            Files.write(USERS_FILE, line.getBytes(StandardCharsets.UTF_8), java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+            return change(username, current -> current == null ? user : current) == user;
         } catch (IOException ex) {
-            System.err.println("Failed to persist user: " + ex.getMessage());
+            return false;
         }
-        return true;
     }
 
     public static UserInfo authenticateUser(String username, String password) {
-        if (!userExists(username)) return null;
+        UserInfo user = accountForLogin(username);
+        if (user == null) {
+            // Costs as much as a wrong password, so response time does not reveal which usernames exist
+            PasswordHasher.verify(password, UnknownUser.HASH);
+            return null;
+        }
 
-        UserInfo user = users.get(username);
         if (!user.checkPassword(password)) return null;
 
         // Check if user is suspended
-        if (isUserSuspended(username)) return null;
+        if (user.isSuspended()) return null;
+
+        // Upgrade plaintext or lower-cost hashes now that we have the password
+        if (PasswordHasher.needsRehash(user.getPassword())) {
+            String rehashed = PasswordHasher.hash(password);
+            try {
+                UserInfo upgraded = change(username, current -> {
+                    if (current == null || !current.getPassword().equals(user.getPassword())) return current; // changed meanwhile
+                    return new UserInfo(current.getFullName(), current.getEmployeeId(), current.getRole(),
+                        current.getUsername(), rehashed, current.isSuspended());
+                });
+                if (upgraded != null && upgraded != user && !PasswordHasher.isHashed(user.getPassword())) {
+                    compactAfterPlaintextUpgrade();
+                }
+                if (upgraded != null) return upgraded.isSuspended() ? null : upgraded; // re-read by change()
+            } catch (IOException ex) {
+                // Not stored: the login still succeeds and the upgrade is retried next time
+            }
+        }
 
         return user;
     }
 
-    // Login activity recording (in-memory)
-    public static void recordLogin(String entry) {
-        loginHistory.add(entry);
-        // append to file
+    /** The account to check a login against; null when there is none or it cannot be read (it may be suspended). */
+    private static UserInfo accountForLogin(String username) {
         try {
-            if (!Files.exists(DATA_DIR)) Files.createDirectories(DATA_DIR);
-            String line = entry + System.lineSeparator();
-            Files.write(LOGINS_FILE, line.getBytes(StandardCharsets.UTF_8), java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.APPEND);
+            return current(username);
         } catch (IOException ex) {
-            System.err.println("Failed to persist login entry: " + ex.getMessage());
+            return null;
         }
     }
 
-    public static List<String> getLoginHistory() {
-        return new ArrayList<>(loginHistory);
+    /** A hash at the current cost for a password nobody has, checked when the username is unknown. */
+    private static final class UnknownUser {
+        static final String HASH = PasswordHasher.hash(Long.toHexString(System.nanoTime()));
     }
 
     /**
-     * Returns a copy of all registered users.
+     * Rewrites the stored accounts in the background once a plaintext password has been
+     * replaced by a hash, so the plaintext does not stay in the snapshot until the next
+     * regular compaction. Upgrades that arrive while one is queued share it.
+     */
+    private static void compactAfterPlaintextUpgrade() {
+        if (!plaintextCompactionQueued.compareAndSet(false, true)) return;
+        CompletableFuture.runAsync(() -> {
+            plaintextCompactionQueued.set(false);
+            saveAllUsers();
+        });
+    }
+
+    // Login activity recording (queued; written in batches by the login recorder)
+    public static void recordLogin(String entry) {
+        LoginRecorder recorder = loginRecorder;
+        if (recorder == null) {
+            synchronized (DatabaseManager.class) {
+                if (loginRecorder == null) {
+                    loginRecorder = LoginRecorder.fromSystemProperties(storage());
+                }
+                recorder = loginRecorder;
+            }
+        }
+        recorder.record(entry);
+    }
+
+    /** Opens the login history for newest-first reading; the caller closes it. */
+    public static LoginHistoryCursor openLoginHistory() throws IOException {
+        flushLogins();
+        long start = System.nanoTime();
+        try {
+            return storage().openLoginHistory();
+        } finally {
+            READ_LOGINS.observeSince(start);
+        }
+    }
+
+    /** Logins stamped within [from, to], oldest first. */
+    public static List<String> getLoginsBetween(java.time.LocalDateTime from, java.time.LocalDateTime to) throws IOException {
+        flushLogins();
+        long start = System.nanoTime();
+        try {
+            return storage().loginsBetween(from, to);
+        } finally {
+            READ_LOGINS.observeSince(start);
+        }
+    }
+
+    /** The newest n logins, newest first. */
+    public static List<String> getLastLogins(int n) throws IOException {
+        flushLogins();
+        long start = System.nanoTime();
+        try {
+            return storage().lastLogins(n);
+        } finally {
+            READ_LOGINS.observeSince(start);
+        }
+    }
+
+    /** Opens the record log for the Waste Giver and Collection Log tables. */
+    public static RecordLog openRecordLog() throws IOException {
+        return storage().openRecordLog();
+    }
+
+    /** Writes any queued login entries to storage. */
+    public static synchronized void flushLogins() {
+        if (loginRecorder != null) loginRecorder.flush();
+    }
+
+    /** Flushes pending writes; call before the application exits. */
+    public static synchronized void shutdown() {
+        if (loginRecorder != null) loginRecorder.close();
+        if (storage == null) return;
+        try {
+            storage.close();
+        } catch (IOException ex) {
+            System.err.println("Failed to close storage: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns a copy of all registered users, as stored now when the storage is shared
+     * (falling back to the accounts known here if it cannot be read).
      */
     public static List<UserInfo> getAllUsers() {
+        if (storage().isShared()) {
+            long start = System.nanoTime();
+            try {
+                Map<String, UserInfo> stored = new LinkedHashMap<>();
+                storage().loadUsers(stored);
+                return new ArrayList<>(stored.values());
+            } catch (IOException ex) {
+                STORAGE_ERRORS.increment();
+                System.err.println("Failed to read users: " + ex.getMessage());
+            } finally {
+                LOAD_USERS.observeSince(start);
+            }
+        }
         return new ArrayList<>(users.values());
     }
 
-    /** Overwrite users file with current users map to ensure persistence of all accounts. */
+    /** Consolidates stored account changes (for file storage, a fresh users snapshot). */
     public static void saveAllUsers() {
+        long start = System.nanoTime();
         try {
-            if (!Files.exists(DATA_DIR)) Files.createDirectories(DATA_DIR);
-            StringBuilder sb = new StringBuilder();
-                        for (UserInfo u : users.values()) {
-                                // username|password|fullName|employeeId|role|suspended
-                                sb.append(u.getUsername()).append('|')
-                                    .append(u.getPassword()).append('|')
-                                    .append(u.getFullName()).append('|')
-                                    .append(u.getEmployeeId()).append('|')
-                                    .append(u.getRole()).append('|')
-                                    .append(u.isSuspended()).append(System.lineSeparator());
-                        }
-            // NOTE: For safety we write passwords via registerUser append; when saving all users
-            // we intentionally do not write plaintext passwords again (we write [PROTECTED])
-            // to avoid accidental exposure. New registrations will continue to append plaintext.
-            Files.write(USERS_FILE, sb.toString().getBytes(StandardCharsets.UTF_8), java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.TRUNCATE_EXISTING);
+            storage().compactUsers();
         } catch (IOException ex) {
+            STORAGE_ERRORS.increment();
             System.err.println("Failed to save all users: " + ex.getMessage());
+        } finally {
+            SAVE_ALL_USERS.observeSince(start);
+        }
+    }
+
+    /**
+     * Applies one change to an account under its lock: {@code edit} gets the current
+     * account (null if there is none) and returns the next state, or the same one (or
+     * null) to leave it alone. A new state is stored before it is put in the map, so on
+     * a storage failure the map keeps the old account. With shared storage the edit
+     * starts from the stored account, and is applied again to the stored account when
+     * another terminal changed the same fields first. Returns the account as it is now.
+     */
+    private static UserInfo change(String username, UnaryOperator<UserInfo> edit) throws IOException {
+        synchronized (lockFor(username)) {
+            UserInfo current = storage().isShared() ? reload(username) : users.get(username);
+            for (int attempt = 1; ; attempt++) {
+                UserInfo next = edit.apply(current);
+                if (next == null || next == current) return current;
+                if (persist(current, next)) {
+                    users.put(username, next);
+                    return next;
+                }
+                if (attempt == MAX_CHANGE_ATTEMPTS) {
+                    STORAGE_ERRORS.increment();
+                    throw new IOException("Account " + username + " keeps changing on another terminal");
+                }
+                current = reload(username);
+            }
+        }
+    }
+
+    private static Object lockFor(String username) {
+        return accountLocks[(username.hashCode() & 0x7fffffff) % accountLocks.length];
+    }
+
+    /** The account as it is now: re-read from shared storage, otherwise the copy loaded at startup. */
+    private static UserInfo current(String username) throws IOException {
+        if (!storage().isShared()) return users.get(username);
+        synchronized (lockFor(username)) {
+            return reload(username);
+        }
+    }
+
+    /** Re-reads the account from storage into the map; the caller holds its lock. */
+    private static UserInfo reload(String username) throws IOException {
+        long start = System.nanoTime();
+        try {
+            UserInfo stored = storage().loadUser(username);
+            if (stored == null) users.remove(username);
+            else users.put(username, stored);
+            return stored;
+        } catch (IOException ex) {
+            STORAGE_ERRORS.increment();
+            System.err.println("Failed to read user " + username + ": " + ex.getMessage());
+            throw ex;
+        } finally {
+            LOAD_USER.observeSince(start);
+        }
+    }
+
+    /**
+     * Stores the account's new state; called by change() before the map is updated.
+     * Returns false when another terminal changed the same fields since {@code before}.
+     */
+    private static boolean persist(UserInfo before, UserInfo after) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (before == null) {
+                storage().addUser(after);
+                return true;
+            }
+            return storage().updateUser(before, after);
+        } catch (IOException ex) {
+            STORAGE_ERRORS.increment();
+            System.err.println("Failed to persist user: " + ex.getMessage());
+            throw ex;
+        } finally {
+            SAVE_USER.observeSince(start);
         }
     }
 
     public static boolean updateUser(String username, String newFull, String newEmp, String newRole) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'updateUser'");
+        return updateUser(new UserInfo(newFull, newEmp, newRole, username, ""));
     }
 
     public static boolean setUserActive(String username, boolean activate) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'setUserActive'");
+        return setUserSuspended(username, !activate);
     }
 
     public static UserInfo getUser(String username) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'getUser'");
+        return users.get(username);
     }
 
+    /** Replaces the account's name, employee ID and role; password and suspension are kept. */
     public static boolean updateUser(UserInfo updated) {
-        // TODO Auto-generated method stub
-        throw new UnsupportedOperationException("Unimplemented method 'updateUser'");
+        try {
+            UserInfo merged = change(updated.getUsername(), current -> current == null ? null
+                : new UserInfo(updated.getFullName(), updated.getEmployeeId(), updated.getRole(),
+                    current.getUsername(), current.getPassword(), current.isSuspended()));
+            return merged != null;
+        } catch (IOException ex) {
+            return false;
+        }
     }
 
     public static boolean setUserSuspended(String username, boolean newState) {
-        if (!userExists(username)) return false;
-        UserInfo user = users.get(username);
-        user.setSuspended(newState);
-        saveAllUsers(); // Persist the change
-        return true;
+        // Replace rather than mutate, so readers never see a half-applied change
+        try {
+            UserInfo user = change(username, current -> current == null ? null
+                : new UserInfo(current.getFullName(), current.getEmployeeId(), current.getRole(),
+                    current.getUsername(), current.getPassword(), newState)); // Log just this account
+            return user != null;
+        } catch (IOException ex) {
+            return false;
+        }
     }
 
+    /**
+     * Whether the account is suspended, re-read from shared storage. Also true when the
+     * stored account cannot be read, so callers deny access rather than allow it.
+     */
     public static boolean isUserSuspended(String username) {
-        if (!userExists(username)) return false;
-        return users.get(username).isSuspended();
+        try {
+            UserInfo user = current(username);
+            return user != null && user.isSuspended();
+        } catch (IOException ex) {
+            return true;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Sorted index from epoch day to the slot ids of the records on that day.
+ * Range queries seek into the tree instead of scanning every row.
+ */
+public class DateIndex implements ColumnarLogStore.Listener {
+
+    private final ColumnarLogStore store;
+    private final int dateColumn;
+    private final TreeMap<Integer, IntList> slotsByDay = new TreeMap<>();
+
+    public DateIndex(ColumnarLogStore store, int dateColumn) {
+        this.store = store;
+        this.dateColumn = dateColumn;
+        for (int row = 0; row < store.size(); row++) add(store.getDay(row, dateColumn), store.slotAt(row));
+        store.addListener(this);
+    }
+
+    /** Slot ids of all records dated within [fromDay, toDay], inclusive. */
+    public BitSet slotsBetween(int fromDay, int toDay) {
+        BitSet result = new BitSet();
+        for (IntList slots : range(fromDay, toDay).values()) {
+            for (int i = 0; i < slots.size(); i++) result.set(slots.get(i));
+        }
+        return result;
+    }
+
+    public int countBetween(int fromDay, int toDay) {
+        int count = 0;
+        for (IntList slots : range(fromDay, toDay).values()) count += slots.size();
+        return count;
+    }
+
+    /** Earliest and latest indexed day, or null when empty. */
+    public int[] bounds() {
+        if (slotsByDay.isEmpty()) return null;
+        return new int[]{slotsByDay.firstKey(), slotsByDay.lastKey()};
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int lastRow) {
+        for (int row = firstRow; row <= lastRow; row++) add(store.getDay(row, dateColumn), store.slotAt(row));
+    }
+
+    @Override
+    public void rowUpdated(int row, Object[] oldValues) {
+        int slot = store.slotAt(row);
+        remove(LogDates.toEpochDay(oldValues[dateColumn]), slot);
+        add(store.getDay(row, dateColumn), slot);
+    }
+
+    @Override
+    public void rowDeleted(int row, int slot, Object[] oldValues) {
+        remove(LogDates.toEpochDay(oldValues[dateColumn]), slot);
+    }
+
+    private NavigableMap<Integer, IntList> range(int fromDay, int toDay) {
+        return slotsByDay.subMap(fromDay, true, toDay, true);
+    }
+
+    private void add(int day, int slot) {
+        slotsByDay.computeIfAbsent(day, d -> new IntList(4)).add(slot);
+    }
+
+    private void remove(int day, int slot) {
+        IntList slots = slotsByDay.get(day);
+        if (slots != null && slots.removeValue(slot) && slots.isEmpty()) slotsByDay.remove(day);
+    }
+}
@@ -0,0 +1,263 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reports Event Dispatch Thread events that run longer than a threshold, i.e. the
+ * moments the portal freezes.
+ *
+ * {@link #install} pushes an EventQueue that notes when each event starts dispatching.
+ * A daemon thread checks it every quarter threshold; when an event has run past the
+ * threshold it takes the EDT's stack right then, so the trace shows what the EDT is
+ * blocked in (a file sync, a browser launch) rather than where the handler returned.
+ * When the event finishes, the stall is counted against its call site (the innermost
+ * frame outside the JDK, via the listener that reached it) and written to a rotating diagnostics file together with a
+ * periodic summary of the worst sites. The EDT itself only reads the clock and writes
+ * two volatile fields per event; stacks, aggregation and file I/O happen on the
+ * watchdog thread.
+ *
+ * A modal dialog dispatches events inside the event that opened it. Those are timed
+ * on their own, and the opening event's clock is stopped while the dialog waits for
+ * input and restarted when each of them finishes, so a dialog left open is not a stall.
+ *
+ * Configuration (system properties): bsk.edt.stallMillis (default 500, 0 disables),
+ * bsk.edt.file (default data/edt-stalls.log), bsk.edt.fileBytes (default 1 MB, rotated
+ * to .1 .. .N), bsk.edt.files (default 3), bsk.edt.summaryMinutes (default 10).
+ */
+public class EdtWatchdog extends EventQueue {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final Metrics.Histogram STALL_SECONDS = Metrics.histogram("bsk_edt_stall_seconds",
+        "EDT events that ran past the stall threshold");
+    private static EdtWatchdog installed;
+
+    private final long thresholdNanos;
+    private final Path file;
+    private final long fileBytes;
+    private final int files;
+    private final long summaryNanos;
+    private final Thread watcher;
+    private volatile boolean running = true;
+
+    // Written by the EDT: the event being dispatched (0 when idle) and when its clock started (0 while waiting)
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long currentSeq;
+    private volatile long currentStart;
+    private volatile Thread edt;
+    // Written by the watcher: the stack it took for a stalled event
+    private volatile long sampledSeq;
+    private volatile StackTraceElement[] sampledStack;
+
+    private final Queue<Stall> finished = new ConcurrentLinkedQueue<>();
+    private final Map<String, Site> sites = new HashMap<>(); // guarded by this
+    private boolean summaryDue;
+
+    private EdtWatchdog(long thresholdMillis, Path file, long fileBytes, int files, long summaryMinutes) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.file = file;
+        this.fileBytes = Math.max(4096, fileBytes);
+        this.files = Math.max(1, files);
+        this.summaryNanos = Math.max(1, summaryMinutes) * 60_000_000_000L;
+        watcher = new Thread(this::watch, "edt-watchdog");
+        watcher.setDaemon(true);
+    }
+
+    /** Starts watching the EDT as configured by the bsk.edt.* properties; later calls do nothing. */
+    public static synchronized void install() {
+        long threshold = Long.getLong("bsk.edt.stallMillis", 500L);
+        if (installed != null || threshold <= 0) return;
+        Path file = Paths.get(System.getProperty("bsk.edt.file",
+            Paths.get(System.getProperty("bsk.dataDir", "data"), "edt-stalls.log").toString()));
+        installed = new EdtWatchdog(threshold, file,
+            Long.getLong("bsk.edt.fileBytes", 1L << 20),
+            Integer.getInteger("bsk.edt.files", 3),
+            Long.getLong("bsk.edt.summaryMinutes", 10L));
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(installed);
+        installed.watcher.start();
+    }
+
+    /** Writes pending stalls and the call-site summary; call before the application exits. */
+    public static synchronized void stop() {
+        if (installed == null) return;
+        installed.running = false;
+        LockSupport.unpark(installed.watcher);
+        try {
+            installed.watcher.join(2000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        installed.writePending(true);
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long outerSeq = currentSeq;
+        long seq = sequence.incrementAndGet();
+        edt = Thread.currentThread();
+        currentStart = System.nanoTime();
+        currentSeq = seq;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long end = System.nanoTime();
+            long duration = end - currentStart;
+            currentSeq = outerSeq;
+            currentStart = outerSeq == 0 ? 0 : end; // the event that opened a modal dialog is timed afresh
+            if (duration > thresholdNanos) {
+                finished.add(new Stall(event, duration, sampledSeq == seq ? sampledStack : null));
+                LockSupport.unpark(watcher);
+            }
+        }
+    }
+
+    /** Stops the clock while the EDT (or a modal dialog's loop) waits for the next event. */
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        currentStart = 0;
+        try {
+            return super.getNextEvent();
+        } finally {
+            if (currentSeq != 0) currentStart = System.nanoTime();
+        }
+    }
+
+    private void watch() {
+        long period = Math.max(10_000_000L, thresholdNanos / 4);
+        long lastSummary = System.nanoTime();
+        while (running) {
+            LockSupport.parkNanos(period); // or until a stall finishes, or stop()
+            long seq = currentSeq;
+            long start = currentStart;
+            Thread thread = edt;
+            if (seq != 0 && start != 0 && seq != sampledSeq && thread != null && System.nanoTime() - start > thresholdNanos) {
+                StackTraceElement[] stack = thread.getStackTrace();
+                if (currentSeq == seq) { // still the same event
+                    sampledStack = stack;
+                    sampledSeq = seq;
+                }
+            }
+            boolean summarize = System.nanoTime() - lastSummary > summaryNanos;
+            if (summarize) lastSummary = System.nanoTime();
+            writePending(summarize);
+        }
+    }
+
+    /** Aggregates and logs finished stalls; with {@code summary}, also the per-site totals if anything changed. */
+    private synchronized void writePending(boolean summary) {
+        List<Stall> batch = new ArrayList<>();
+        Stall stall;
+        while ((stall = finished.poll()) != null) batch.add(stall);
+        if (batch.isEmpty() && !(summary && summaryDue)) return;
+
+        StringBuilder text = new StringBuilder();
+        for (Stall s : batch) {
+            String site = callSite(s.stack);
+            Site totals = sites.computeIfAbsent(site, k -> new Site());
+            totals.count++;
+            totals.totalNanos += s.nanos;
+            totals.maxNanos = Math.max(totals.maxNanos, s.nanos);
+            STALL_SECONDS.observeNanos(s.nanos);
+            summaryDue = true;
+
+            text.append(s.time.format(STAMP)).append(" EDT stall ").append(s.nanos / 1_000_000L).append(" ms in ")
+                .append(s.event).append(" at ").append(site).append('\n');
+            if (s.stack != null) {
+                for (StackTraceElement frame : s.stack) text.append("    at ").append(frame).append('\n');
+            }
+        }
+        if (summary && summaryDue) {
+            summaryDue = false;
+            text.append(LocalDateTime.now().format(STAMP)).append(" EDT stall summary by call site (count, total ms, max ms)\n");
+            sites.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().totalNanos, a.getValue().totalNanos))
+                .forEach(e -> text.append(String.format("    %6d %10d %8d  %s%n", e.getValue().count,
+                    e.getValue().totalNanos / 1_000_000L, e.getValue().maxNanos / 1_000_000L, e.getKey())));
+        }
+        append(text.toString());
+    }
+
+    /**
+     * The innermost frame outside the JDK, i.e. the portal code the EDT was stuck in,
+     * and the outermost one (the listener that ran it) when they differ.
+     */
+    private static String callSite(StackTraceElement[] stack) {
+        if (stack == null) return "(not sampled: finished between checks)";
+        StackTraceElement innermost = null;
+        StackTraceElement outermost = null;
+        for (StackTraceElement frame : stack) {
+            String cls = frame.getClassName();
+            if (cls.startsWith("java.") || cls.startsWith("javax.") || cls.startsWith("sun.") || cls.startsWith("jdk.")
+                || cls.startsWith("com.sun.") || cls.contains("$$Lambda") || cls.equals(EdtWatchdog.class.getName())) continue;
+            if (innermost == null) innermost = frame;
+            outermost = frame;
+        }
+        if (innermost == null) return stack.length > 0 ? frameName(stack[0]) : "(empty stack)";
+        return innermost == outermost ? frameName(innermost) : frameName(innermost) + " via " + frameName(outermost);
+    }
+
+    private static String frameName(StackTraceElement frame) {
+        return frame.getClassName() + "." + frame.getMethodName() + "(" + frame.getFileName() + ":" + frame.getLineNumber() + ")";
+    }
+
+    /** Appends to the diagnostics file, first moving it to .1 (and older ones up) once it is full. */
+    private void append(String text) {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            if (Files.exists(file) && Files.size(file) + text.length() > fileBytes) {
+                Files.deleteIfExists(rotated(files));
+                for (int i = files - 1; i >= 1; i--) {
+                    if (Files.exists(rotated(i))) Files.move(rotated(i), rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(text);
+            }
+        } catch (IOException ex) {
+            System.err.println("Failed to write EDT stall log: " + ex.getMessage());
+        }
+    }
+
+    private Path rotated(int n) {
+        return file.resolveSibling(file.getFileName() + "." + n);
+    }
+
+    private static final class Stall {
+        final LocalDateTime time = LocalDateTime.now();
+        final String event;
+        final long nanos;
+        final StackTraceElement[] stack;
+
+        Stall(AWTEvent event, long nanos, StackTraceElement[] stack) {
+            this.event = event.getClass().getSimpleName() + " from " + event.getSource().getClass().getSimpleName();
+            this.nanos = nanos;
+            this.stack = stack;
+        }
+    }
+
+    private static final class Site {
+        long count;
+        long totalNanos;
+        long maxNanos;
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flat-file storage under the data directory: users.txt plus users.log
+ * ({@link UserStore}), monthly login segments in logins/ ({@link LoginHistoryStore})
+ * and the binary record journal in journal/ ({@link RecordJournal}).
+ *
+ * The files have a single writer: opening the backend takes an exclusive lock on
+ * data/.lock, and a second portal or API server on the same directory refuses to
+ * start. To run the server and the portal side by side, use bsk.storage=jdbc.
+ */
+public class FileStorageBackend implements StorageBackend {
+
+    /**
+     * Directories this JVM has locked. A second open here must fail without touching the
+     * lock file: on POSIX systems closing any channel to it drops the process's lock.
+     */
+    private static final Set<Path> LOCKED_DIRS = new HashSet<>();
+
+    private final Path dataDir;
+    private final Path lockKey;
+    private final UserStore users;
+    private final LoginHistoryStore logins;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    public FileStorageBackend(Path dataDir) throws IOException {
+        this.dataDir = dataDir;
+        this.lockKey = dataDir.toAbsolutePath().normalize();
+        synchronized (LOCKED_DIRS) {
+            if (!LOCKED_DIRS.add(lockKey)) throw inUse(dataDir);
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(dataDir.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.lock = channel.tryLock();
+            if (lock == null) throw inUse(dataDir);
+            this.lockChannel = channel;
+        } catch (IOException | RuntimeException ex) {
+            if (channel != null) channel.close();
+            unmarkLocked();
+            throw ex;
+        }
+        try {
+            this.users = new UserStore(dataDir, Integer.getInteger("bsk.users.compactEvery", 500));
+            this.logins = new LoginHistoryStore(dataDir.resolve("logins"));
+            // Older versions kept every login in one flat file
+            logins.migrateLegacy(dataDir.resolve("logins.txt"));
+            int keepMonths = Integer.getInteger("bsk.logins.keepMonths", 0);
+            if (keepMonths > 0) logins.archiveBefore(YearMonth.now().minusMonths(keepMonths - 1));
+        } catch (IOException | RuntimeException ex) {
+            lockChannel.close(); // releases the lock
+            unmarkLocked();
+            throw ex;
+        }
+    }
+
+    private static IOException inUse(Path dataDir) {
+        return new IOException("Another portal or API server is already using " + dataDir
+            + "; they can share data only with bsk.storage=jdbc");
+    }
+
+    private void unmarkLocked() {
+        synchronized (LOCKED_DIRS) {
+            LOCKED_DIRS.remove(lockKey);
+        }
+    }
+
+    @Override
+    public void loadUsers(Map<String, UserInfo> into) throws IOException {
+        users.load(into);
+    }
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    @Override
+    public UserInfo loadUser(String username) {
+        throw new UnsupportedOperationException("File storage is not shared; use the accounts loaded at startup");
+    }
+
+    @Override
+    public void addUser(UserInfo user) throws IOException {
+        users.put(user);
+        users.compactIfDue();
+    }
+
+    @Override
+    public boolean updateUser(UserInfo before, UserInfo after) throws IOException {
+        // Only this process writes the files, so before is always the stored state
+        users.put(after);
+        users.compactIfDue();
+        return true;
+    }
+
+    @Override
+    public void compactUsers() throws IOException {
+        users.compact();
+    }
+
+    @Override
+    public void appendLogins(List<String> entries) throws IOException {
+        logins.append(entries);
+    }
+
+    @Override
+    public List<String> loginsBetween(LocalDateTime from, LocalDateTime to) throws IOException {
+        return logins.between(from, to);
+    }
+
+    @Override
+    public List<String> lastLogins(int n) throws IOException {
+        return logins.last(n);
+    }
+
+    @Override
+    public LoginHistoryCursor openLoginHistory() throws IOException {
+        return logins.openReader();
+    }
+
+    @Override
+    public RecordLog openRecordLog() throws IOException {
+        return RecordJournal.open(dataDir.resolve("journal"));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            logins.close();
+            users.close();
+        } finally {
+            if (lockChannel.isOpen()) {
+                lock.release();
+                lockChannel.close();
+                unmarkLocked();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+/** Growable list of primitive ints, used for row-id postings. */
+public class IntList {
+
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of range (size " + size + ")");
+        return values[index];
+    }
+
+    public void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        values[size++] = value;
+    }
+
+    /** Removes the first occurrence of the value; returns false if absent. */
+    public boolean removeValue(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Inserts into a list kept in ascending order; duplicates are ignored. */
+    public void addSorted(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos >= 0) return;
+        pos = -pos - 1;
+        if (size == values.length) values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        values[pos] = value;
+        size++;
+    }
+
+    /** Removes from a list kept in ascending order; returns false if absent. */
+    public boolean removeSorted(int value) {
+        int pos = Arrays.binarySearch(values, 0, size, value);
+        if (pos < 0) return false;
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,465 @@
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * SQL storage shared by several terminals (written for the bundled MySQL connector).
+ *
+ * Accounts are rows of bsk_users, logins rows of bsk_logins (indexed by time) and the
+ * record log a sequence of bsk_record_log rows holding RecordJournal-encoded operations.
+ * Login batches and queued record-log appends are written with JDBC batches in one
+ * transaction. Tables are created on first use.
+ *
+ * Other terminals change the same accounts, so DatabaseManager re-reads an account
+ * before acting on it ({@link #isShared}), and an update writes only the columns it
+ * changes, guarded by their old values: a rehash on one terminal cannot undo a
+ * suspension made on another.
+ *
+ * Each terminal replays the record log at startup and then polls it for rows past the
+ * last seq it has read (see {@link WasteRecords#startPolling}). Edits name the record by
+ * its id rather than its row, so terminals that delete or edit rows at the same time
+ * replay onto the right records; an edit to a record another terminal already deleted
+ * is skipped.
+ */
+public class JdbcStorageBackend implements StorageBackend {
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS bsk_users ("
+            + "username VARCHAR(64) NOT NULL PRIMARY KEY, password VARCHAR(255) NOT NULL, "
+            + "full_name VARCHAR(255) NOT NULL, employee_id VARCHAR(32) NOT NULL, "
+            + "role VARCHAR(64) NOT NULL, suspended BOOLEAN NOT NULL DEFAULT FALSE)",
+        "CREATE TABLE IF NOT EXISTS bsk_logins ("
+            + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, logged_at DATETIME NOT NULL, "
+            + "entry VARCHAR(512) NOT NULL, INDEX idx_bsk_logins_time (logged_at))",
+        "CREATE TABLE IF NOT EXISTS bsk_record_log ("
+            + "seq BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, record MEDIUMBLOB NOT NULL)" // BLOB stops at 64 KB
+    };
+
+    private static final String SELECT_USER =
+        "SELECT username, password, full_name, employee_id, role, suspended FROM bsk_users WHERE username = ?";
+    private static final String INSERT_USER =
+        "INSERT INTO bsk_users (password, full_name, employee_id, role, suspended, username) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_LOGIN = "INSERT INTO bsk_logins (logged_at, entry) VALUES (?, ?)";
+    private static final String INSERT_RECORD = "INSERT INTO bsk_record_log (record) VALUES (?)";
+    private static final String POLL_RECORDS = "SELECT seq, record FROM bsk_record_log WHERE seq > ? ORDER BY seq";
+    private static final int MAX_BATCH = 1000;
+    private static final long RETRY_MILLIS = 1000;
+    private static final long GAP_MILLIS = 30_000; // how long a missing seq may still be an uncommitted insert
+
+    private final ConnectionPool pool;
+
+    public JdbcStorageBackend(ConnectionPool pool) throws IOException {
+        this.pool = pool;
+        run(db -> {
+            try (Statement statement = db.connection().createStatement()) {
+                for (String ddl : SCHEMA) statement.execute(ddl);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void loadUsers(Map<String, UserInfo> users) throws IOException {
+        run(db -> {
+            try (Statement statement = db.connection().createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT username, password, full_name, employee_id, role, suspended FROM bsk_users")) {
+                while (rs.next()) users.put(rs.getString(1), userOf(rs));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public UserInfo loadUser(String username) throws IOException {
+        return run(db -> {
+            PreparedStatement query = db.prepare(SELECT_USER);
+            query.setString(1, username);
+            try (ResultSet rs = query.executeQuery()) {
+                return rs.next() ? userOf(rs) : null;
+            }
+        });
+    }
+
+    @Override
+    public void addUser(UserInfo user) throws IOException {
+        run(db -> bindUser(db.prepare(INSERT_USER), user).executeUpdate());
+    }
+
+    @Override
+    public boolean updateUser(UserInfo before, UserInfo after) throws IOException {
+        // SET the changed columns WHERE they still hold the values this change was based on
+        List<String> columns = new ArrayList<>();
+        List<Object> oldValues = new ArrayList<>();
+        List<Object> newValues = new ArrayList<>();
+        changed(columns, oldValues, newValues, "password", before.getPassword(), after.getPassword());
+        changed(columns, oldValues, newValues, "full_name", before.getFullName(), after.getFullName());
+        changed(columns, oldValues, newValues, "employee_id", before.getEmployeeId(), after.getEmployeeId());
+        changed(columns, oldValues, newValues, "role", before.getRole(), after.getRole());
+        changed(columns, oldValues, newValues, "suspended", before.isSuspended(), after.isSuspended());
+        if (columns.isEmpty()) return true;
+        String sql = "UPDATE bsk_users SET " + String.join(" = ?, ", columns) + " = ? WHERE username = ? AND "
+            + String.join(" = ? AND ", columns) + " = ?";
+        return run(db -> {
+            PreparedStatement update = db.prepare(sql);
+            int p = 1;
+            for (Object value : newValues) update.setObject(p++, value);
+            update.setString(p++, after.getUsername());
+            for (Object value : oldValues) update.setObject(p++, value);
+            return update.executeUpdate() == 1;
+        });
+    }
+
+    private static void changed(List<String> columns, List<Object> oldValues, List<Object> newValues,
+                                String column, Object before, Object after) {
+        if (Objects.equals(before, after)) return;
+        columns.add(column);
+        oldValues.add(before);
+        newValues.add(after);
+    }
+
+    @Override
+    public void compactUsers() {
+        // Rows are updated in place; nothing to compact
+    }
+
+    @Override
+    public void appendLogins(List<String> entries) throws IOException {
+        if (entries.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        run(db -> {
+            PreparedStatement insert = db.prepare(INSERT_LOGIN);
+            inTransaction(db.connection(), () -> {
+                for (int i = 0; i < entries.size(); i++) {
+                    String entry = entries.get(i);
+                    insert.setTimestamp(1, Timestamp.valueOf(LoginHistoryStore.timestampOf(entry, now)));
+                    insert.setString(2, entry);
+                    insert.addBatch();
+                    if ((i + 1) % MAX_BATCH == 0) insert.executeBatch();
+                }
+                insert.executeBatch();
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public List<String> loginsBetween(LocalDateTime from, LocalDateTime to) throws IOException {
+        return run(db -> {
+            PreparedStatement query = db.prepare("SELECT entry FROM bsk_logins WHERE logged_at BETWEEN ? AND ? ORDER BY logged_at, id");
+            query.setTimestamp(1, Timestamp.valueOf(from));
+            query.setTimestamp(2, Timestamp.valueOf(to));
+            List<String> result = new ArrayList<>();
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) result.add(rs.getString(1));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public List<String> lastLogins(int n) throws IOException {
+        List<String> result = new ArrayList<>();
+        try (LoginHistoryCursor cursor = openLoginHistory()) {
+            cursor.indexMore(n);
+            for (int i = 0; i < cursor.indexed(); i++) result.add(cursor.line(i));
+        }
+        return result;
+    }
+
+    @Override
+    public LoginHistoryCursor openLoginHistory() {
+        return new LoginCursor();
+    }
+
+    @Override
+    public RecordLog openRecordLog() {
+        return new JdbcRecordLog();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    // --- Helpers ---
+
+    private interface Work<T> {
+        T run(ConnectionPool.Pooled db) throws SQLException;
+    }
+
+    private interface SqlBlock {
+        void run() throws SQLException;
+    }
+
+    /** Runs the work on a pooled connection, translating SQL failures to IOException. */
+    private <T> T run(Work<T> work) throws IOException {
+        ConnectionPool.Pooled db = null;
+        boolean failed = false;
+        try {
+            db = pool.borrow();
+            return work.run(db);
+        } catch (SQLException ex) {
+            failed = true;
+            throw new IOException("Database error: " + ex.getMessage(), ex);
+        } finally {
+            pool.release(db, failed);
+        }
+    }
+
+    private static void inTransaction(Connection connection, SqlBlock block) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            block.run();
+            connection.commit();
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static UserInfo userOf(ResultSet rs) throws SQLException {
+        return new UserInfo(rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(1), rs.getString(2), rs.getBoolean(6));
+    }
+
+    private static PreparedStatement bindUser(PreparedStatement statement, UserInfo user) throws SQLException {
+        statement.setString(1, user.getPassword());
+        statement.setString(2, user.getFullName());
+        statement.setString(3, user.getEmployeeId());
+        statement.setString(4, user.getRole());
+        statement.setBoolean(5, user.isSuspended());
+        statement.setString(6, user.getUsername());
+        return statement;
+    }
+
+    /** Keyset-paged newest-first view of bsk_logins; keeps only the pages loaded so far. */
+    private final class LoginCursor implements LoginHistoryCursor {
+        private final List<String> entries = new ArrayList<>();
+        private long oldestId = Long.MAX_VALUE;
+        private boolean complete;
+
+        @Override
+        public int indexed() {
+            return entries.size();
+        }
+
+        @Override
+        public boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        public int indexMore(int count) throws IOException {
+            if (complete || count <= 0) return 0;
+            int added = run(db -> {
+                PreparedStatement query = db.prepare("SELECT id, entry FROM bsk_logins WHERE id < ? ORDER BY id DESC LIMIT ?");
+                query.setLong(1, oldestId);
+                query.setInt(2, count);
+                int n = 0;
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        oldestId = rs.getLong(1);
+                        entries.add(rs.getString(2));
+                        n++;
+                    }
+                }
+                return n;
+            });
+            if (added < count) complete = true;
+            return added;
+        }
+
+        @Override
+        public String line(int index) {
+            return entries.get(index);
+        }
+
+        @Override
+        public void close() {
+            entries.clear();
+        }
+    }
+
+    /** Record log in bsk_record_log; appends are queued and inserted in batches by one thread. */
+    private final class JdbcRecordLog implements RecordLog {
+        private final byte[] stop = new byte[0];
+        private final BlockingQueue<byte[]> pending = new LinkedBlockingQueue<>();
+        private Thread writer;
+        private volatile boolean closed;
+        private volatile IOException failure; // last insert error, until a retry succeeds
+        // Polling state, used by one thread at a time: every seq up to polledSeq has been passed
+        // on (or given up as a rolled-back insert); gapSeq is the missing seq polls are waiting for
+        private long polledSeq;
+        private long gapSeq;
+        private long gapSince;
+
+        @Override
+        public int replay(ReplayHandler handler) throws IOException {
+            int applied = run(db -> {
+                int n = 0;
+                try (Statement statement = db.connection().createStatement()) {
+                    statement.setFetchSize(MAX_BATCH);
+                    try (ResultSet rs = statement.executeQuery("SELECT seq, record FROM bsk_record_log ORDER BY seq")) {
+                        while (rs.next()) {
+                            polledSeq = rs.getLong(1);
+                            RecordJournal.applyRecord(rs.getBytes(2), handler);
+                            n++;
+                        }
+                    }
+                }
+                return n;
+            });
+            writer = new Thread(this::runWriter, "jdbc-record-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+            return applied;
+        }
+
+        @Override
+        public boolean isShared() {
+            return true;
+        }
+
+        /**
+         * Reads the rows past {@link #polledSeq}. Seqs are handed out when an insert starts,
+         * so a lower seq can commit after a higher one has been read: at a gap, polledSeq
+         * stops, and later polls read the rows after it again (in order, so the gap's row
+         * lands where it belongs) until it appears or {@link #GAP_MILLIS} passes.
+         */
+        @Override
+        public int poll(ReplayHandler handler) throws IOException {
+            return run(db -> {
+                PreparedStatement query = db.prepare(POLL_RECORDS);
+                query.setLong(1, polledSeq);
+                long now = System.currentTimeMillis();
+                long complete = polledSeq;
+                boolean gap = false;
+                int n = 0;
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        long seq = rs.getLong(1);
+                        RecordJournal.applyRecord(rs.getBytes(2), handler);
+                        n++;
+                        if (gap) continue;
+                        if (seq != complete + 1) {
+                            if (gapSeq != complete + 1) {
+                                gapSeq = complete + 1;
+                                gapSince = now;
+                            }
+                            gap = now - gapSince < GAP_MILLIS;
+                            if (gap) continue;
+                        }
+                        complete = seq;
+                    }
+                }
+                polledSeq = complete;
+                return n;
+            });
+        }
+
+        @Override
+        public void appendAdd(byte table, UUID id, Object[] row) throws IOException {
+            append(RecordJournal.encode(RecordJournal.OP_ADD, table, id, row));
+        }
+
+        @Override
+        public void appendUpdate(byte table, UUID id, Object[] values) throws IOException {
+            append(RecordJournal.encode(RecordJournal.OP_UPDATE, table, id, values));
+        }
+
+        @Override
+        public void appendDelete(byte table, UUID id) throws IOException {
+            append(RecordJournal.encode(RecordJournal.OP_DELETE, table, id, new Object[0]));
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            pending.add(stop);
+            if (writer != null) {
+                try {
+                    writer.join(10000);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void append(byte[] record) throws IOException {
+            if (closed) throw new IOException("Record log is closed");
+            IOException failed = failure;
+            if (failed != null) throw new IOException("Record log cannot reach the database: " + failed.getMessage(), failed);
+            pending.add(record);
+        }
+
+        /** Inserts queued records in order; a failed batch is kept and retried ahead of later ones. */
+        private void runWriter() {
+            List<byte[]> batch = new ArrayList<>();
+            boolean stopping = false;
+            while (true) {
+                if (batch.isEmpty()) {
+                    if (stopping) return;
+                    try {
+                        batch.add(pending.take());
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                } else if (!stopping) {
+                    try {
+                        Thread.sleep(RETRY_MILLIS); // retrying a failed batch
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+                pending.drainTo(batch, Math.max(0, MAX_BATCH - batch.size()));
+                stopping |= batch.remove(stop);
+                if (batch.isEmpty()) continue;
+                try {
+                    run(db -> {
+                        PreparedStatement insert = db.prepare(INSERT_RECORD);
+                        inTransaction(db.connection(), () -> {
+                            for (byte[] record : batch) {
+                                insert.setBytes(1, record);
+                                insert.addBatch();
+                            }
+                            insert.executeBatch();
+                        });
+                        return null;
+                    });
+                    batch.clear();
+                    if (failure != null) {
+                        System.err.println("Record log: writes recovered");
+                        failure = null;
+                    }
+                } catch (IOException ex) {
+                    if (failure == null || stopping) {
+                        System.err.println("Record log: write failed, " + batch.size() + " records "
+                            + (stopping ? "lost" : "kept for retry") + ": " + ex.getMessage());
+                    }
+                    failure = ex;
+                    if (stopping) return;
+                }
+            }
+        }
+    }
+}
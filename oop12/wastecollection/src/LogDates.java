@@ -0,0 +1,139 @@
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Parsing and formatting of log record dates.
+ *
+ * Records are keyed by epoch day (days since 1970-01-01). Older entries were typed as
+ * "MMM d" with no year; those resolve to the most recent such date that is not in the
+ * future, which is what the person entering them meant.
+ */
+public final class LogDates {
+
+    /** Stored for records whose date text could not be understood. */
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final DateTimeFormatter DISPLAY = DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.ENGLISH);
+    private static final DateTimeFormatter[] FULL_DATE = {
+        DateTimeFormatter.ISO_LOCAL_DATE,
+        DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("MMM d yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("MMMM d, yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("MMMM d yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("M/d/yyyy", Locale.ENGLISH)
+    };
+    private static final DateTimeFormatter[] MONTH_DAY = {
+        DateTimeFormatter.ofPattern("MMM d", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("MMMM d", Locale.ENGLISH)
+    };
+    private static final DateTimeFormatter[] YEAR_MONTH = {
+        DateTimeFormatter.ofPattern("MMM yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("MMMM yyyy", Locale.ENGLISH),
+        DateTimeFormatter.ofPattern("yyyy-MM", Locale.ENGLISH)
+    };
+
+    private LogDates() {}
+
+    public static String format(LocalDate date) {
+        return date == null ? "" : date.format(DISPLAY);
+    }
+
+    public static String format(int epochDay) {
+        return epochDay == UNKNOWN ? "" : format(LocalDate.ofEpochDay(epochDay));
+    }
+
+    /** Parses a single date, returning null when the text is not a date. */
+    public static LocalDate parse(String text) {
+        String s = normalize(text);
+        if (s.isEmpty()) return null;
+        for (DateTimeFormatter f : FULL_DATE) {
+            try {
+                return LocalDate.parse(s, f);
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        for (DateTimeFormatter f : MONTH_DAY) {
+            try {
+                java.time.MonthDay md = java.time.MonthDay.parse(s, f);
+                LocalDate today = LocalDate.now();
+                LocalDate candidate = md.atYear(today.getYear());
+                return candidate.isAfter(today) ? md.atYear(today.getYear() - 1) : candidate;
+            } catch (DateTimeException ignored) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    /** Epoch day of the given value (LocalDate or date text), or {@link #UNKNOWN}. */
+    public static int toEpochDay(Object value) {
+        if (value instanceof LocalDate) return (int) ((LocalDate) value).toEpochDay();
+        if (value instanceof Number) return ((Number) value).intValue();
+        LocalDate parsed = value == null ? null : parse(value.toString());
+        return parsed == null ? UNKNOWN : (int) parsed.toEpochDay();
+    }
+
+    /**
+     * Parses a filter into an inclusive epoch-day range {from, to}. Accepts a single
+     * date ("Jan 5", "2025-01-05"), a whole month ("Jan 2025", "2025-01"), a year
+     * ("2025"), or two of those joined by " to ". Returns null if not understood.
+     */
+    public static int[] parseRange(String text) {
+        String s = normalize(text);
+        int sep = s.toLowerCase(Locale.ROOT).indexOf(" to ");
+        if (sep > 0) {
+            int[] from = parseRange(s.substring(0, sep));
+            int[] to = parseRange(s.substring(sep + 4));
+            if (from == null || to == null) return null;
+            return new int[]{Math.min(from[0], to[0]), Math.max(from[1], to[1])};
+        }
+        LocalDate day = parse(s);
+        if (day != null) return new int[]{(int) day.toEpochDay(), (int) day.toEpochDay()};
+        for (DateTimeFormatter f : YEAR_MONTH) {
+            try {
+                YearMonth ym = YearMonth.parse(s, f);
+                return new int[]{(int) ym.atDay(1).toEpochDay(), (int) ym.atEndOfMonth().toEpochDay()};
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        if (s.matches("\\d{4}")) {
+            Year year = Year.of(Integer.parseInt(s));
+            return new int[]{(int) year.atDay(1).toEpochDay(), (int) year.atMonth(12).atEndOfMonth().toEpochDay()};
+        }
+        return null;
+    }
+
+    /** The same range shifted back one year, for year-over-year comparisons. */
+    public static int[] previousYear(int[] range) {
+        return new int[]{
+            (int) LocalDate.ofEpochDay(range[0]).minusYears(1).toEpochDay(),
+            (int) LocalDate.ofEpochDay(range[1]).minusYears(1).toEpochDay()
+        };
+    }
+
+    /** Human-readable form of a range, e.g. "Jan 1, 2025 to Jan 31, 2025". */
+    public static String describe(int[] range) {
+        if (range[0] == range[1]) return format(range[0]);
+        return format(range[0]) + " to " + format(range[1]);
+    }
+
+    private static String normalize(String text) {
+        if (text == null) return "";
+        String s = text.trim().replaceAll("\\s+", " ");
+        // Month names are matched case-sensitively by the formatters ("Jan", not "jan")
+        if (!s.isEmpty() && Character.isLetter(s.charAt(0))) {
+            int end = s.indexOf(' ');
+            String word = end < 0 ? s : s.substring(0, end);
+            String rest = end < 0 ? "" : s.substring(end);
+            s = word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1).toLowerCase(Locale.ROOT) + rest;
+        }
+        return s;
+    }
+}
@@ -0,0 +1,363 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Read-only, paged Swing adapter over a {@link ColumnarLogStore}.
+ *
+ * Cells are materialized a page at a time, only for the rows the JTable actually asks
+ * for (plus a page either side of the viewport, see {@link #prefetch}), and kept in a
+ * small LRU cache. Sorting and filtering happen here against the primitive columns
+ * instead of in a TableRowSorter: the result is an int[] of store rows, or no array at
+ * all when the view shows the store as-is. Row indexes passed to this model are view
+ * rows; use {@link #toStoreRow} before changing the records through WasteRecords.
+ *
+ * A sorted or filtered view is kept up to date one row at a time: an added, edited or
+ * removed record is placed in or taken out of the view with a binary search and the
+ * table gets row-level events, so a selection or scroll position survives edits made
+ * elsewhere. Only large batches rebuild the view. The text sort ranks come from the
+ * store's cache, so placing a row re-sorts the column's values only when it brings a
+ * new one.
+ */
+public class LogTableModel extends AbstractTableModel implements ColumnarLogStore.Listener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_SIZE = 128;
+    private static final int MAX_PAGES = 64;
+    private static final int MAX_INCREMENTAL_INSERT = 64; // larger batches rebuild the view
+
+    private final ColumnarLogStore store;
+    private final Map<Integer, Object[][]> pages = new LinkedHashMap<Integer, Object[][]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Object[][]> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    private int[] view; // view row -> store row, null when unsorted and unfiltered
+    private int sortColumn = -1;
+    private boolean ascending = true;
+    private int matchColumn = -1;
+    private String matchValue;
+    private BitSet slotFilter;
+
+    public LogTableModel(ColumnarLogStore store) {
+        this.store = store;
+        store.addListener(this);
+    }
+
+    public ColumnarLogStore getStore() {
+        return store;
+    }
+
+    /** Store row shown at the given view row. */
+    public int toStoreRow(int viewRow) {
+        return view == null ? viewRow : view[viewRow];
+    }
+
+    /** Store rows in view order, or null when the view shows every store row in order. */
+    public int[] viewRows() {
+        return view == null ? null : view.clone();
+    }
+
+    // --- Sorting and filtering ---
+
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    /** Sorts by the column, flipping the direction when it is already the sort column. */
+    public void toggleSort(int column) {
+        if (column == sortColumn) ascending = !ascending;
+        else {
+            sortColumn = column;
+            ascending = true;
+        }
+        rebuildView();
+    }
+
+    /** Drops the sort and search filter and sets the match filter, rebuilding the view once. */
+    public void reset(int matchColumn, String matchValue) {
+        sortColumn = -1;
+        ascending = true;
+        slotFilter = null;
+        setMatchFilter(matchColumn, matchValue);
+    }
+
+    /** Shows only rows whose text column equals the value exactly; null value shows all. */
+    public void setMatchFilter(int column, String value) {
+        matchColumn = value == null ? -1 : column;
+        matchValue = value;
+        rebuildView();
+    }
+
+    /** Shows only rows whose slot id is set; null shows all. */
+    public void setSlotFilter(BitSet slots) {
+        slotFilter = slots;
+        rebuildView();
+    }
+
+    /** Loads the pages around a visible row range so scrolling into them does not stall. */
+    public void prefetch(int firstRow, int lastRow) {
+        int rowCount = getRowCount();
+        if (rowCount == 0) return;
+        int first = Math.max(0, firstRow) / PAGE_SIZE - 1;
+        int last = Math.min(rowCount - 1, Math.max(firstRow, lastRow)) / PAGE_SIZE + 1;
+        for (int page = Math.max(0, first); page <= last && page * PAGE_SIZE < rowCount; page++) page(page);
+    }
+
+    // --- TableModel ---
+
+    @Override
+    public int getRowCount() {
+        return view == null ? store.size() : view.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return store.getColumnCount();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return store.getColumnName(column);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (store.getColumnType(column)) {
+            case NUMBER: return Double.class;
+            case DATE: return java.time.LocalDate.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return page(row / PAGE_SIZE)[row % PAGE_SIZE][column];
+    }
+
+    // --- Store events ---
+
+    @Override
+    public void rowsInserted(int firstRow, int lastRow) {
+        if (view == null) {
+            dropPagesFrom(firstRow);
+            fireTableRowsInserted(firstRow, lastRow);
+        } else if (lastRow - firstRow >= MAX_INCREMENTAL_INSERT) {
+            rebuildView();
+        } else {
+            int[] ranks = textRanks();
+            for (int row = firstRow; row <= lastRow; row++) {
+                if (!inView(row)) continue;
+                int index = insertionPoint(row, ranks);
+                insertAt(index, row);
+                dropPagesFrom(index);
+                fireTableRowsInserted(index, index);
+            }
+        }
+    }
+
+    @Override
+    public void rowUpdated(int row, Object[] oldValues) {
+        if (view == null) {
+            pages.remove(row / PAGE_SIZE);
+            fireTableRowsUpdated(row, row);
+            return;
+        }
+        int oldIndex = indexOf(row);
+        if (oldIndex >= 0) removeAt(oldIndex);
+        int newIndex = -1;
+        if (inView(row)) {
+            newIndex = insertionPoint(row, textRanks());
+            insertAt(newIndex, row);
+        }
+        if (oldIndex >= 0 && oldIndex == newIndex) {
+            pages.remove(oldIndex / PAGE_SIZE);
+            fireTableRowsUpdated(oldIndex, oldIndex);
+            return;
+        }
+        if (oldIndex >= 0) {
+            dropPagesFrom(oldIndex);
+            fireTableRowsDeleted(oldIndex, oldIndex);
+        }
+        if (newIndex >= 0) {
+            dropPagesFrom(newIndex);
+            fireTableRowsInserted(newIndex, newIndex);
+        }
+    }
+
+    @Override
+    public void rowDeleted(int row, int slot, Object[] oldValues) {
+        if (view == null) {
+            dropPagesFrom(row);
+            fireTableRowsDeleted(row, row);
+            return;
+        }
+        int index = indexOf(row);
+        if (index >= 0) removeAt(index);
+        // Store rows after the deleted one moved up by one; cached cells are unaffected
+        for (int i = 0; i < view.length; i++) {
+            if (view[i] > row) view[i]--;
+        }
+        if (index >= 0) {
+            dropPagesFrom(index);
+            fireTableRowsDeleted(index, index);
+        }
+    }
+
+    // --- Internals ---
+
+    private Object[][] page(int page) {
+        Object[][] cells = pages.get(page);
+        if (cells == null) {
+            int start = page * PAGE_SIZE;
+            int end = Math.min(getRowCount(), start + PAGE_SIZE);
+            cells = new Object[end - start][];
+            for (int row = start; row < end; row++) cells[row - start] = store.getRow(toStoreRow(row));
+            pages.put(page, cells);
+        }
+        return cells;
+    }
+
+    private void dropPagesFrom(int row) {
+        int firstPage = row / PAGE_SIZE;
+        pages.keySet().removeIf(page -> page >= firstPage);
+    }
+
+    private void rebuildView() {
+        pages.clear();
+        if (sortColumn < 0 && matchColumn < 0 && slotFilter == null) {
+            view = null;
+        } else {
+            int matchCode = matchColumn < 0 ? -1 : store.codeOf(matchColumn, matchValue);
+            int[] rows = new int[store.size()];
+            int count = 0;
+            for (int row = 0; row < store.size(); row++) {
+                if (matchColumn >= 0 && (matchCode < 0 || store.getCode(row, matchColumn) != matchCode)) continue;
+                if (slotFilter != null && !slotFilter.get(store.slotAt(row))) continue;
+                rows[count++] = row;
+            }
+            view = Arrays.copyOf(rows, count);
+            if (sortColumn >= 0) sortView();
+        }
+        fireTableDataChanged();
+    }
+
+    /** Whether the store row passes the match and slot filters. */
+    private boolean inView(int row) {
+        if (matchColumn >= 0) {
+            int matchCode = store.codeOf(matchColumn, matchValue);
+            if (matchCode < 0 || store.getCode(row, matchColumn) != matchCode) return false;
+        }
+        return slotFilter == null || slotFilter.get(store.slotAt(row));
+    }
+
+    /** View index of the store row, or -1 when it is filtered out. */
+    private int indexOf(int row) {
+        if (sortColumn < 0) {
+            int index = Arrays.binarySearch(view, row);
+            return index < 0 ? -1 : index;
+        }
+        for (int i = 0; i < view.length; i++) {
+            if (view[i] == row) return i;
+        }
+        return -1;
+    }
+
+    /** Where the store row belongs in the view: after every row that sorts before it. */
+    private int insertionPoint(int row, int[] ranks) {
+        long key = sortKey(row, ranks);
+        int low = 0;
+        int high = view.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(sortKey(view[mid], ranks), view[mid], key, row) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private void insertAt(int index, int row) {
+        int[] grown = new int[view.length + 1];
+        System.arraycopy(view, 0, grown, 0, index);
+        grown[index] = row;
+        System.arraycopy(view, index, grown, index + 1, view.length - index);
+        view = grown;
+    }
+
+    private void removeAt(int index) {
+        int[] shrunk = new int[view.length - 1];
+        System.arraycopy(view, 0, shrunk, 0, index);
+        System.arraycopy(view, index + 1, shrunk, index, shrunk.length - index);
+        view = shrunk;
+    }
+
+    /** View order: by sort key in the sort direction, then by store row either way. */
+    private int compare(long keyA, int rowA, long keyB, int rowB) {
+        if (sortColumn >= 0 && keyA != keyB) return ascending ? Long.compare(keyA, keyB) : Long.compare(keyB, keyA);
+        return Integer.compare(rowA, rowB);
+    }
+
+    private int[] textRanks() {
+        return sortColumn >= 0 && store.getColumnType(sortColumn) == ColumnarLogStore.ColumnType.TEXT
+            ? store.textRanks(sortColumn) : null;
+    }
+
+    /** Full-width key that orders like the sort column's values; 0 when unsorted. */
+    private long sortKey(int row, int[] ranks) {
+        if (sortColumn < 0) return 0;
+        switch (store.getColumnType(sortColumn)) {
+            case NUMBER:
+                long bits = Double.doubleToLongBits(store.getNumber(row, sortColumn));
+                return bits ^ ((bits >> 63) & 0x7fffffffffffffffL); // orders like the double value
+            case DATE:
+                return store.getDay(row, sortColumn);
+            default:
+                return ranks[store.getCode(row, sortColumn)];
+        }
+    }
+
+    /**
+     * Sorts the view (in store order on entry) with a stable merge sort of positions by
+     * precomputed keys, so equal keys keep store order in either direction.
+     */
+    private void sortView() {
+        int[] ranks = textRanks();
+        long[] keys = new long[view.length];
+        int[] order = new int[view.length];
+        for (int i = 0; i < view.length; i++) {
+            keys[i] = sortKey(view[i], ranks);
+            order[i] = i;
+        }
+        mergeSort(order, new int[order.length], keys, 0, order.length);
+        int[] sorted = new int[view.length];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = view[order[i]];
+        view = sorted;
+    }
+
+    private void mergeSort(int[] order, int[] scratch, long[] keys, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        mergeSort(order, scratch, keys, from, mid);
+        mergeSort(order, scratch, keys, mid, to);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            // Positions are store order, so comparing them breaks ties stably
+            if (right >= to || (left < mid && compare(keys[order[left]], order[left], keys[order[right]], order[right]) <= 0)) {
+                scratch[i] = order[left++];
+            } else {
+                scratch[i] = order[right++];
+            }
+        }
+        System.arraycopy(scratch, from, order, from, to - from);
+    }
+}
@@ -0,0 +1,18 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Newest-first, incrementally loaded view of the login history. */
+public interface LoginHistoryCursor extends Closeable {
+
+    /** Number of entries loaded so far. */
+    int indexed();
+
+    /** True once the oldest entry has been loaded. */
+    boolean isComplete();
+
+    /** Loads up to the given number of further (older) entries; returns how many were added. */
+    int indexMore(int entries) throws IOException;
+
+    /** The entry at the given index, 0 being the newest. */
+    String line(int index) throws IOException;
+}
@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads line-per-entry log files newest-first through a memory-mapped window.
+ *
+ * Files are given newest first and each is read from its end. Line boundaries are found
+ * by scanning backwards only as far as callers ask for ({@link #indexMore}), so opening
+ * any amount of history costs nothing up front. Only the offsets of lines already
+ * served are kept on heap; the text itself is decoded from the mapping on demand. The
+ * reader sees each file as it was when the reader reached it.
+ */
+public class LoginHistoryReader implements LoginHistoryCursor {
+
+    private static final long WINDOW_SIZE = 8L * 1024 * 1024;
+
+    private final List<Path> files;
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final List<Long> lengths = new ArrayList<>();
+
+    private MappedByteBuffer window;
+    private int windowFile = -1;
+    private long windowStart;
+
+    private int[] lineFiles = new int[256]; // newest first
+    private long[] lineStarts = new long[256];
+    private int[] lineLengths = new int[256];
+    private int count;
+
+    private int scanFile = -1; // file being scanned, -1 before the first
+    private long scanPos;      // everything before this offset in scanFile is not yet indexed
+
+    private LoginHistoryReader(List<Path> files) {
+        this.files = new ArrayList<>(files);
+    }
+
+    /** Opens a single file, or an empty reader when it does not exist. */
+    public static LoginHistoryReader open(Path file) {
+        return open(Arrays.asList(file));
+    }
+
+    /** Opens several files read one after the other, newest file first; missing files are skipped. */
+    public static LoginHistoryReader open(List<Path> newestFirst) {
+        return new LoginHistoryReader(newestFirst);
+    }
+
+    /** Number of lines indexed so far. */
+    @Override
+    public int indexed() {
+        return count;
+    }
+
+    /** True once every line of every file has been indexed. */
+    @Override
+    public boolean isComplete() {
+        return scanPos == 0 && scanFile >= files.size() - 1;
+    }
+
+    /** Indexes up to the given number of further (older) non-blank lines; returns how many were added. */
+    @Override
+    public int indexMore(int lines) throws IOException {
+        int added = 0;
+        while (added < lines) {
+            if (scanPos == 0) {
+                if (scanFile >= files.size() - 1) break;
+                scanFile++;
+                scanPos = length(scanFile);
+                continue;
+            }
+            long end = scanPos;
+            // Skip the line terminator(s) directly before the scan position
+            while (end > 0 && isLineBreak(byteAt(scanFile, end - 1))) end--;
+            long start = end;
+            while (start > 0 && !isLineBreak(byteAt(scanFile, start - 1))) start--;
+            scanPos = start;
+            if (end > start && !isBlank(scanFile, start, end)) {
+                if (count == lineStarts.length) {
+                    lineFiles = Arrays.copyOf(lineFiles, count * 2);
+                    lineStarts = Arrays.copyOf(lineStarts, count * 2);
+                    lineLengths = Arrays.copyOf(lineLengths, count * 2);
+                }
+                lineFiles[count] = scanFile;
+                lineStarts[count] = start;
+                lineLengths[count] = (int) (end - start);
+                count++;
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /** The line at the given index, 0 being the newest. */
+    @Override
+    public String line(int index) throws IOException {
+        if (index >= count) throw new IndexOutOfBoundsException("Line " + index + " not indexed (indexed " + count + ")");
+        byte[] bytes = new byte[lineLengths[index]];
+        long start = lineStarts[index];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = byteAt(lineFiles[index], start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        for (FileChannel channel : channels) {
+            if (channel != null) channel.close();
+        }
+        channels.clear();
+    }
+
+    /** Opens the file on first use and returns its length at that moment (0 if missing). */
+    private long length(int file) throws IOException {
+        while (channels.size() <= file) {
+            Path path = files.get(channels.size());
+            if (Files.exists(path)) {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                channels.add(channel);
+                lengths.add(channel.size());
+            } else {
+                channels.add(null);
+                lengths.add(0L);
+            }
+        }
+        return lengths.get(file);
+    }
+
+    private byte byteAt(int file, long pos) throws IOException {
+        if (window == null || file != windowFile || pos < windowStart || pos >= windowStart + window.limit()) {
+            // Centre the window on the position; scans mostly move backwards
+            long length = length(file);
+            long start = Math.max(0, Math.min(pos - WINDOW_SIZE / 2, length - WINDOW_SIZE));
+            long size = Math.min(WINDOW_SIZE, length - start);
+            window = channels.get(file).map(FileChannel.MapMode.READ_ONLY, start, size);
+            windowFile = file;
+            windowStart = start;
+        }
+        return window.get((int) (pos - windowStart));
+    }
+
+    private boolean isBlank(int file, long start, long end) throws IOException {
+        for (long p = start; p < end; p++) {
+            byte b = byteAt(file, p);
+            if (b != ' ' && b != '\t') return false;
+        }
+        return true;
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,262 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Login history split into one segment file per month.
+ *
+ * Each segment (logins-2025-01.txt) holds "yyyy-MM-dd HH:mm:ss - activity" lines and has
+ * a sparse index beside it (logins-2025-01.idx): a [long epochSecond][long offset] pair
+ * for the first line written after every {@link #INDEX_INTERVAL} bytes. A time range
+ * query opens only the segments of the months it covers and seeks each one to the last
+ * indexed line at or before the range start. Lines are appended as logins happen, so
+ * within a segment they are in time order; the index relies on that.
+ *
+ * Months before a cutoff can be moved to archive/ as gzip files without touching the
+ * segment currently being written.
+ */
+public class LoginHistoryStore {
+
+    private static final long INDEX_INTERVAL = 4096;
+    private static final int INDEX_ENTRY_SIZE = 16;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final Path dir;
+    private YearMonth openMonth;
+    private FileChannel data;
+    private FileChannel index;
+    private long lastIndexed;
+
+    public LoginHistoryStore(Path dir) throws IOException {
+        this.dir = dir;
+        if (!Files.exists(dir)) Files.createDirectories(dir);
+    }
+
+    /** Appends entries (lines without terminator) to their months' segments and syncs them. */
+    public synchronized void append(List<String> entries) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        int i = 0;
+        while (i < entries.size()) {
+            YearMonth month = YearMonth.from(timestampOf(entries.get(i), now));
+            if (!month.equals(openMonth)) openSegment(month);
+            // Gather the run of entries belonging to this month into one write
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            ByteBuffer marks = ByteBuffer.allocate(INDEX_ENTRY_SIZE * 8);
+            long offset = data.size();
+            while (i < entries.size()) {
+                String entry = entries.get(i);
+                LocalDateTime ts = timestampOf(entry, now);
+                if (!YearMonth.from(ts).equals(month)) break;
+                byte[] line = (entry + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+                if (offset - lastIndexed >= INDEX_INTERVAL) {
+                    if (!marks.hasRemaining()) {
+                        ByteBuffer bigger = ByteBuffer.allocate(marks.capacity() * 2);
+                        marks.flip();
+                        marks = bigger.put(marks);
+                    }
+                    marks.putLong(ts.toEpochSecond(ZoneOffset.UTC)).putLong(offset);
+                    lastIndexed = offset;
+                }
+                text.write(line, 0, line.length);
+                offset += line.length;
+                i++;
+            }
+            writeFully(data, ByteBuffer.wrap(text.toByteArray()));
+            marks.flip();
+            if (marks.hasRemaining()) writeFully(index, marks);
+            data.force(false);
+            index.force(false);
+        }
+    }
+
+    /** Entries with timestamps in [from, to], oldest first. */
+    public synchronized List<String> between(LocalDateTime from, LocalDateTime to) throws IOException {
+        List<String> result = new ArrayList<>();
+        long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+        long firstSecond = fromSecond + (from.getNano() > 0 ? 1 : 0); // stamps are whole seconds
+        long lastSecond = to.toEpochSecond(ZoneOffset.UTC);
+        PipeFileParser parser = new PipeFileParser('|', 1);
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            Path segment = segmentFile(month);
+            if (!Files.exists(segment)) continue;
+            long start = seekOffset(indexFile(month), fromSecond);
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                // Only lines in the range are decoded
+                parser.parse(in, start, line -> {
+                    long second = line.timestamp();
+                    if (second < firstSecond) return true; // also lines without a stamp
+                    if (second > lastSecond) return false;
+                    result.add(line.line());
+                    return true;
+                });
+            }
+        }
+        return result;
+    }
+
+    /** The newest n entries, newest first. */
+    public List<String> last(int n) throws IOException {
+        List<String> result = new ArrayList<>(Math.min(n, 1024));
+        try (LoginHistoryReader reader = openReader()) {
+            reader.indexMore(n);
+            for (int i = 0; i < reader.indexed(); i++) result.add(reader.line(i));
+        }
+        return result;
+    }
+
+    /** Reader over every live segment, newest entry first; the caller closes it. */
+    public synchronized LoginHistoryReader openReader() throws IOException {
+        List<Path> segments = listSegments();
+        Collections.reverse(segments);
+        return LoginHistoryReader.open(segments);
+    }
+
+    /**
+     * Gzips every segment older than the cutoff month into archive/ and removes it and
+     * its index from the live directory. Returns the number of segments archived.
+     */
+    public synchronized int archiveBefore(YearMonth cutoff) throws IOException {
+        Path archive = dir.resolve("archive");
+        int archived = 0;
+        for (Path segment : listSegments()) {
+            YearMonth month = monthOf(segment);
+            if (!month.isBefore(cutoff) || month.equals(openMonth)) continue;
+            if (!Files.exists(archive)) Files.createDirectories(archive);
+            Path target = archive.resolve(segment.getFileName() + ".gz");
+            Path temp = archive.resolve(segment.getFileName() + ".gz.tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                Files.copy(segment, out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(segment);
+            Files.deleteIfExists(indexFile(month));
+            archived++;
+        }
+        return archived;
+    }
+
+    /**
+     * Splits a single-file login history (the old logins.txt) into segments, then renames
+     * it to *.migrated so it is not imported twice.
+     */
+    public void migrateLegacy(Path legacyFile) throws IOException {
+        if (!Files.exists(legacyFile)) return;
+        List<String> batch = new ArrayList<>();
+        new PipeFileParser('|', 1).parse(legacyFile, line -> {
+            batch.add(line.line());
+            if (batch.size() == 1000) {
+                append(batch);
+                batch.clear();
+            }
+            return true;
+        });
+        append(batch);
+        Files.move(legacyFile, legacyFile.resolveSibling(legacyFile.getFileName() + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public synchronized void close() throws IOException {
+        closeSegment();
+    }
+
+    /** Timestamp at the start of an entry, or the fallback when it has none. */
+    static LocalDateTime timestampOf(String entry, LocalDateTime fallback) {
+        if (entry.length() < 19) return fallback;
+        try {
+            return LocalDateTime.parse(entry.substring(0, 19), TIMESTAMP);
+        } catch (DateTimeParseException ex) {
+            return fallback;
+        }
+    }
+
+    private void openSegment(YearMonth month) throws IOException {
+        closeSegment();
+        data = FileChannel.open(segmentFile(month), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        index = FileChannel.open(indexFile(month), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Drop a torn trailing index entry, then continue from the last one
+        long entries = index.size() / INDEX_ENTRY_SIZE;
+        index.truncate(entries * INDEX_ENTRY_SIZE);
+        index.position(entries * INDEX_ENTRY_SIZE);
+        lastIndexed = -INDEX_INTERVAL;
+        if (entries > 0) {
+            ByteBuffer last = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            index.read(last, (entries - 1) * INDEX_ENTRY_SIZE);
+            lastIndexed = last.getLong(8);
+        }
+        openMonth = month;
+    }
+
+    private void closeSegment() throws IOException {
+        if (data != null) data.close();
+        if (index != null) index.close();
+        data = null;
+        index = null;
+        openMonth = null;
+    }
+
+    /** Offset of the last indexed line stamped at or before the second, or 0. */
+    private static long seekOffset(Path indexFile, long second) throws IOException {
+        if (!Files.exists(indexFile)) return 0;
+        try (FileChannel in = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            long lo = 0;
+            long hi = in.size() / INDEX_ENTRY_SIZE - 1;
+            long offset = 0;
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+            while (lo <= hi) {
+                long mid = (lo + hi) >>> 1;
+                entry.clear();
+                in.read(entry, mid * INDEX_ENTRY_SIZE);
+                if (entry.getLong(0) <= second) {
+                    offset = entry.getLong(8);
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return offset;
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "logins-*.txt")) {
+            for (Path p : stream) segments.add(p);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private Path segmentFile(YearMonth month) {
+        return dir.resolve("logins-" + month.format(MONTH) + ".txt");
+    }
+
+    private Path indexFile(YearMonth month) {
+        return dir.resolve("logins-" + month.format(MONTH) + ".idx");
+    }
+
+    private static YearMonth monthOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return YearMonth.parse(name.substring("logins-".length(), name.length() - ".txt".length()), MONTH);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) channel.write(bytes);
+    }
+}
@@ -0,0 +1,71 @@
+import java.io.IOException;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Timestamp | Activity view over a {@link LoginHistoryCursor}, newest entry first.
+ * Starts with one page of rows and indexes the next page when the table asks for rows
+ * near the end, so the history is read only as far as the admin scrolls.
+ */
+public class LoginHistoryTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_SIZE = 200;
+    private static final String[] COLUMNS = {"Timestamp", "Activity"};
+
+    private final LoginHistoryCursor reader;
+    private boolean loadPending;
+
+    public LoginHistoryTableModel(LoginHistoryCursor reader) throws IOException {
+        this.reader = reader;
+        reader.indexMore(PAGE_SIZE);
+    }
+
+    @Override
+    public int getRowCount() {
+        return reader.indexed();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (row >= reader.indexed() - PAGE_SIZE / 2) requestMore();
+        String entry;
+        try {
+            entry = reader.line(row);
+        } catch (IOException ex) {
+            System.err.println("Failed to read login history: " + ex.getMessage());
+            return "";
+        }
+        // "yyyy-MM-dd HH:mm:ss - rest"
+        int idx = entry.indexOf(" - ");
+        if (column == 0) return idx > 0 ? entry.substring(0, idx) : "";
+        return idx > 0 ? entry.substring(idx + 3) : entry;
+    }
+
+    /** Indexes the next page after the current paint, not in the middle of it. */
+    private void requestMore() {
+        if (loadPending || reader.isComplete()) return;
+        loadPending = true;
+        SwingUtilities.invokeLater(() -> {
+            loadPending = false;
+            int first = reader.indexed();
+            try {
+                int added = reader.indexMore(PAGE_SIZE);
+                if (added > 0) fireTableRowsInserted(first, first + added - 1);
+            } catch (IOException ex) {
+                System.err.println("Failed to read login history: " + ex.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends login entries to the login history from a background thread.
+ *
+ * {@link #record} only queues the entry. A writer thread wakes every flush interval,
+ * or as soon as a batch worth of entries is waiting, and hands everything pending to
+ * the {@link StorageBackend} as one batch (for file storage one write and one fsync per
+ * segment touched, for JDBC one batched insert). The queue is a lock-free linked queue, so any number of threads can record
+ * at once without contending on a lock. It is bounded by a counter; callers only wait
+ * when the disk has fallen that far behind. A caller interrupted while waiting still
+ * queues its entry, past the bound, rather than lose it.
+ *
+ * A batch the storage refuses is kept and retried every flush interval ahead of newer
+ * entries; kept entries still count against the bound, so a storage outage slows
+ * logins down instead of losing them. Only entries still unwritten at close are lost,
+ * and that is logged.
+ *
+ * Tuning (system properties): bsk.logins.flushMillis (default 250),
+ * bsk.logins.flushEntries (default 64), bsk.logins.queueSize (default 4096).
+ */
+public class LoginRecorder {
+
+    private static final Metrics.Histogram APPEND_LOGINS = Metrics.histogram("bsk_storage_seconds",
+        "Time spent in user and login storage calls", "op", "append_logins");
+    private static final Metrics.Counter LOGINS_WRITTEN = Metrics.counter("bsk_logins_written_total",
+        "Login entries written to the login history");
+    private static final Metrics.Counter STORAGE_ERRORS = Metrics.counter("bsk_storage_errors_total",
+        "User and login storage calls that failed");
+
+    private final StorageBackend store;
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final int queueSize;
+    private final long flushMillis;
+    private final int flushEntries;
+    private final Object signal = new Object();
+    private final Object writeLock = new Object();
+    private final List<String> unwritten = new ArrayList<>(); // guarded by writeLock: taken from the queue, not yet stored
+    private volatile boolean failing;                          // the last write failed
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public LoginRecorder(StorageBackend store, int queueSize, long flushMillis, int flushEntries) {
+        this.store = store;
+        this.queueSize = Math.max(1, queueSize);
+        this.flushMillis = Math.max(1, flushMillis);
+        this.flushEntries = Math.max(1, flushEntries);
+        writer = new Thread(this::runWriter, "login-recorder");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "login-recorder-shutdown"));
+    }
+
+    /** Recorder for the given storage configured from the bsk.logins.* system properties. */
+    public static LoginRecorder fromSystemProperties(StorageBackend store) {
+        return new LoginRecorder(store,
+            Integer.getInteger("bsk.logins.queueSize", 4096),
+            Long.getLong("bsk.logins.flushMillis", 250L),
+            Integer.getInteger("bsk.logins.flushEntries", 64));
+    }
+
+    /** Queues one entry (a line without terminator). */
+    public void record(String entry) {
+        if (!running) {
+            System.err.println("Login recorder: entry after close ignored");
+            return;
+        }
+        // Reserve a place in the queue; when full, wake the writer and wait for it to drain
+        while (pendingCount.incrementAndGet() > queueSize) {
+            if (Thread.currentThread().isInterrupted()) break; // keep the place: over the bound, but not lost
+            pendingCount.decrementAndGet();
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+            LockSupport.parkNanos(1_000_000L);
+        }
+        pending.add(entry);
+        if (pendingCount.get() >= flushEntries) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes and syncs everything queued so far before returning. If the storage refuses
+     * it, the entries are kept for the next flush.
+     */
+    public void flush() {
+        try {
+            writePending();
+            if (failing) {
+                failing = false;
+                System.err.println("Login recorder: writes recovered");
+            }
+        } catch (IOException ex) {
+            STORAGE_ERRORS.increment();
+            if (!failing) System.err.println("Failed to persist login entries, kept for retry: " + ex.getMessage());
+            failing = true;
+        }
+    }
+
+    /** Flushes and stops the writer; later entries are ignored. The storage stays open. */
+    public void close() {
+        if (!running) return;
+        running = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        try {
+            writer.join(5000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (writeLock) {
+            if (!unwritten.isEmpty()) System.err.println("Login recorder: " + unwritten.size() + " login entries lost at close");
+        }
+    }
+
+    private void runWriter() {
+        while (running) {
+            synchronized (signal) {
+                if (running && (failing || pendingCount.get() < flushEntries)) {
+                    try {
+                        signal.wait(flushMillis);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            }
+            flush();
+        }
+    }
+
+    /**
+     * Drains and writes under one lock, so entries reach the file in queue order. Entries
+     * leave {@link #unwritten} (and the bound) only once they are stored.
+     */
+    private void writePending() throws IOException {
+        synchronized (writeLock) {
+            String entry;
+            while ((entry = pending.poll()) != null) unwritten.add(entry);
+            if (unwritten.isEmpty()) return;
+            long start = System.nanoTime();
+            store.appendLogins(unwritten);
+            APPEND_LOGINS.observeSince(start);
+            LOGINS_WRITTEN.add(unwritten.size());
+            pendingCount.addAndGet(-unwritten.size());
+            unwritten.clear();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide counters, gauges and latency histograms, read by the System Health
+ * dialog and written in Prometheus text format by {@link MetricsExporter}.
+ *
+ * Metrics are registered once, usually into a static final field next to the code
+ * they measure, and updating one never locks: counters and histogram buckets are
+ * LongAdders, so threads recording at the same time do not contend. Registering the
+ * same name and labels again returns the existing metric (a gauge gets the new supplier).
+ * Labels are given as name, value pairs: {@code histogram("bsk_storage_seconds", "...", "op", "save_user")}.
+ */
+public final class Metrics {
+
+    /** Histogram bucket upper bounds in seconds, as the Prometheus client libraries use. */
+    private static final double[] BOUNDS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+    private static final long[] BOUND_NANOS = new long[BOUNDS.length];
+
+    // Families by name, sorted so the exposition is stable between scrapes
+    private static final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) BOUND_NANOS[i] = Math.round(BOUNDS[i] * 1e9);
+        gauge("bsk_jvm_heap_used_bytes", "Heap in use",
+            () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        gauge("bsk_uptime_seconds", "Time since the JVM started",
+            () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    private Metrics() {}
+
+    public static Counter counter(String name, String help, String... labels) {
+        return (Counter) register(name, help, "counter", labels, null);
+    }
+
+    public static Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) register(name, help, "histogram", labels, null);
+    }
+
+    /** Reports the supplier's value whenever the metrics are read. */
+    public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        register(name, help, "gauge", labels, value);
+    }
+
+    private static Metric register(String name, String help, String type, String[] labels, DoubleSupplier value) {
+        if (labels.length % 2 != 0) throw new IllegalArgumentException("Labels come in name, value pairs: " + name);
+        Family family = families.computeIfAbsent(name, n -> new Family(n, help, type));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type);
+        }
+        String labelText = formatLabels(labels);
+        Metric metric = family.members.computeIfAbsent(labelText, l -> {
+            switch (type) {
+                case "counter": return new Counter(name, l);
+                case "histogram": return new Histogram(name, l);
+                default: return new Gauge(name, l);
+            }
+        });
+        if (metric instanceof Gauge) ((Gauge) metric).value = value;
+        return metric;
+    }
+
+    private static String formatLabels(String[] labels) {
+        if (labels.length == 0) return "";
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) sb.append(',');
+            sb.append(labels[i]).append("=\"");
+            for (char c : labels[i + 1].toCharArray()) {
+                if (c == '\\' || c == '"') sb.append('\\').append(c);
+                else if (c == '\n') sb.append("\\n");
+                else sb.append(c);
+            }
+            sb.append('"');
+        }
+        return sb.append('}').toString();
+    }
+
+    /** Every registered metric, grouped by name. */
+    public static List<Metric> all() {
+        List<Metric> all = new ArrayList<>();
+        for (Family family : families.values()) all.addAll(family.members.values());
+        return all;
+    }
+
+    /** The help text registered with the metric's name. */
+    public static String help(Metric metric) {
+        Family family = families.get(metric.name);
+        return family == null ? "" : family.help;
+    }
+
+    /** Writes every metric in the Prometheus text exposition format (version 0.0.4). */
+    public static void writePrometheus(Appendable out) throws IOException {
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ')
+                .append(family.help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Metric metric : family.members.values()) metric.writePrometheus(out);
+        }
+    }
+
+    private static String number(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (Double.isInfinite(value)) return value > 0 ? "+Inf" : "-Inf";
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString(); // 0.0005, not 5.0E-4
+    }
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final String type;
+        final Map<String, Metric> members = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    /** One time series: a name plus its labels. */
+    public abstract static class Metric {
+        final String name;
+        final String labels;
+
+        Metric(String name, String labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Labels as written in the exposition, e.g. {op="save_user"}; empty when there are none. */
+        public String getLabels() {
+            return labels;
+        }
+
+        abstract void writePrometheus(Appendable out) throws IOException;
+    }
+
+    /** A count that only goes up. */
+    public static final class Counter extends Metric {
+        private final LongAdder count = new LongAdder();
+
+        Counter(String name, String labels) {
+            super(name, labels);
+        }
+
+        public void increment() {
+            count.increment();
+        }
+
+        public void add(long n) {
+            count.add(n);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+
+        @Override
+        void writePrometheus(Appendable out) throws IOException {
+            out.append(name).append(labels).append(' ').append(Long.toString(get())).append('\n');
+        }
+    }
+
+    /** A value read when the metrics are, such as the number of users. */
+    public static final class Gauge extends Metric {
+        private volatile DoubleSupplier value;
+
+        Gauge(String name, String labels) {
+            super(name, labels);
+        }
+
+        public double get() {
+            try {
+                return value.getAsDouble();
+            } catch (RuntimeException ex) {
+                return Double.NaN; // a gauge must not break the scrape
+            }
+        }
+
+        @Override
+        void writePrometheus(Appendable out) throws IOException {
+            out.append(name).append(labels).append(' ').append(number(get())).append('\n');
+        }
+    }
+
+    /**
+     * Latencies in fixed buckets from 0.5 ms to 30 s. Recording is a bucket search over
+     * 15 bounds and three adds; quantiles are estimated by interpolating inside the
+     * bucket the rank falls in, so they are as fine as the buckets.
+     */
+    public static final class Histogram extends Metric {
+        private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1]; // last one is +Inf
+        private final LongAdder sumNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Histogram(String name, String labels) {
+            super(name, labels);
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        /** Records the time since {@code startNanos}, a System.nanoTime() reading. */
+        public void observeSince(long startNanos) {
+            observeNanos(System.nanoTime() - startNanos);
+        }
+
+        public void observeNanos(long nanos) {
+            if (nanos < 0) nanos = 0;
+            int i = 0;
+            while (i < BOUND_NANOS.length && nanos > BOUND_NANOS[i]) i++;
+            buckets[i].increment();
+            sumNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) max = maxNanos.get();
+        }
+
+        public long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) count += bucket.sum();
+            return count;
+        }
+
+        /** Mean in seconds, or NaN before the first observation. */
+        public double mean() {
+            long count = count();
+            return count == 0 ? Double.NaN : sumNanos.sum() / 1e9 / count;
+        }
+
+        /** Slowest observation in seconds. */
+        public double max() {
+            return maxNanos.get() / 1e9;
+        }
+
+        /** Estimated q-quantile (0..1) in seconds, or NaN before the first observation. */
+        public double quantile(double q) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) total += counts[i] = buckets[i].sum();
+            if (total == 0) return Double.NaN;
+            double rank = q * total;
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0 && seen + counts[i] >= rank) {
+                    double max = max();
+                    double lower = i == 0 ? 0 : BOUNDS[i - 1];
+                    double upper = i < BOUNDS.length ? Math.min(BOUNDS[i], Math.max(max, lower)) : max;
+                    return lower + (upper - lower) * (rank - seen) / counts[i];
+                }
+                seen += counts[i];
+            }
+            return max();
+        }
+
+        @Override
+        void writePrometheus(Appendable out) throws IOException {
+            String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                String le = i < BOUNDS.length ? number(BOUNDS[i]) : "+Inf";
+                out.append(name).append("_bucket").append(prefix).append("le=\"").append(le).append("\"} ")
+                    .append(Long.toString(cumulative)).append('\n');
+            }
+            out.append(name).append("_sum").append(labels).append(' ')
+                .append(String.format(Locale.ROOT, "%.9f", sumNanos.sum() / 1e9)).append('\n');
+            out.append(name).append("_count").append(labels).append(' ').append(Long.toString(cumulative)).append('\n');
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link Metrics} for Prometheus (or anyone with a text editor): a metrics.prom
+ * file in the data directory rewritten every interval, for node_exporter's textfile
+ * collector, and optionally GET /metrics on a localhost-only port.
+ *
+ * Configuration (system properties): bsk.metrics.file (default data/metrics.prom, empty
+ * to disable), bsk.metrics.intervalSeconds (default 15), bsk.metrics.port (default 0,
+ * no endpoint). The endpoint is bound to the loopback address; the portal has no
+ * authentication for it.
+ */
+public class MetricsExporter {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static ScheduledExecutorService scheduler;
+    private static HttpServer http;
+    private static Path file;
+
+    private MetricsExporter() {}
+
+    /** The metrics file from bsk.metrics.file (default data/metrics.prom), or null when disabled. */
+    public static Path configuredFile() {
+        String fileName = System.getProperty("bsk.metrics.file",
+            Paths.get(System.getProperty("bsk.dataDir", "data"), "metrics.prom").toString());
+        return fileName.isEmpty() ? null : Paths.get(fileName);
+    }
+
+    /** Starts the configured outputs; later calls do nothing until {@link #stop}. */
+    public static synchronized void start() {
+        if (scheduler != null) return;
+        file = configuredFile();
+        long interval = Math.max(1, Long.getLong("bsk.metrics.intervalSeconds", 15L));
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-exporter");
+            t.setDaemon(true);
+            return t;
+        });
+        if (file != null) scheduler.scheduleWithFixedDelay(MetricsExporter::writeFile, interval, interval, TimeUnit.SECONDS);
+
+        int port = Integer.getInteger("bsk.metrics.port", 0);
+        if (port > 0) {
+            try {
+                http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+                http.createContext("/metrics", ex -> {
+                    try {
+                        if (!"GET".equals(ex.getRequestMethod())) {
+                            ex.sendResponseHeaders(405, -1);
+                            return;
+                        }
+                        StringBuilder text = new StringBuilder(4096);
+                        Metrics.writePrometheus(text);
+                        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+                        ex.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                        ex.sendResponseHeaders(200, body.length);
+                        try (OutputStream out = ex.getResponseBody()) {
+                            out.write(body);
+                        }
+                    } finally {
+                        ex.close();
+                    }
+                });
+                http.setExecutor(scheduler); // scrapes are rare; the exporter thread serves them
+                http.start();
+                System.err.println("Metrics on http://localhost:" + port + "/metrics");
+            } catch (IOException ex) {
+                System.err.println("Failed to start metrics endpoint on port " + port + ": " + ex.getMessage());
+                http = null;
+            }
+        }
+    }
+
+    /** Writes a last snapshot and stops the outputs. */
+    public static synchronized void stop() {
+        if (scheduler == null) return;
+        if (http != null) http.stop(0);
+        http = null;
+        scheduler.shutdownNow();
+        scheduler = null;
+        if (file != null) writeFile();
+    }
+
+    /** Replaces the file in one move, so a collector never reads half of it. */
+    private static void writeFile() {
+        Path target = file;
+        if (target == null) return;
+        try {
+            Path dir = target.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, "metrics", ".tmp");
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                Metrics.writePrometheus(out);
+            } catch (IOException ex) {
+                Files.deleteIfExists(temp);
+                throw ex;
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            System.err.println("Failed to write metrics: " + ex.getMessage());
+        }
+    }
+}
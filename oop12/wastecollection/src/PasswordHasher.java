@@ -0,0 +1,98 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2 (HMAC-SHA256) password hashing.
+ *
+ * Hashes are stored as pbkdf2$iterations$salt$hash (salt and hash in Base64), so each
+ * account keeps the cost it was hashed with and the cost can be raised later: a hash
+ * below the current cost, or a legacy plaintext password, {@link #needsRehash needs a
+ * rehash}, which happens on the user's next successful login. The current cost comes
+ * from the bsk.auth.iterations system property; pick it with the authenticateUser
+ * benchmark in UserDirectoryBenchmark, which times a whole DatabaseManager login.
+ */
+public final class PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 120_000;
+
+    private static final String PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private PasswordHasher() {}
+
+    /** Iterations used for new hashes. */
+    public static int iterations() {
+        return Math.max(1, Integer.getInteger("bsk.auth.iterations", DEFAULT_ITERATIONS));
+    }
+
+    public static String hash(String password) {
+        return hash(password, iterations());
+    }
+
+    public static String hash(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+    }
+
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    /**
+     * Checks a password against a stored hash in constant time. Stored values without the
+     * pbkdf2$ prefix are legacy plaintext and compared directly.
+     */
+    public static boolean verify(String password, String stored) {
+        if (stored == null || password == null) return false;
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(derive(password, salt, iterations), expected);
+        } catch (IllegalArgumentException ex) {
+            System.err.println("Unreadable password hash: " + ex.getMessage());
+            return false;
+        }
+    }
+
+    /** True for plaintext or hashes made with fewer iterations than the current setting. */
+    public static boolean needsRehash(String stored) {
+        if (!isHashed(stored)) return true;
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations();
+        } catch (NumberFormatException ex) {
+            return true;
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException ex) {
+            // Every Java 8+ runtime ships PBKDF2WithHmacSHA256
+            throw new IllegalStateException(ex);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
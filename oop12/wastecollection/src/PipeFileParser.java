@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Streaming byte-level reader for the line-oriented data files (users.txt, users.log,
+ * the login segments and the legacy logins.txt).
+ *
+ * The file is read through one reused buffer and each line is cut into fields in
+ * place: only the start and end offsets of the fields are recorded, in reused arrays,
+ * so scanning allocates nothing. A handler sees one line at a time and decodes just
+ * the fields it keeps ({@link #field}); checksums and timestamps are read straight
+ * from the bytes. Lines end with \n or \r\n, blank lines are skipped, and
+ * {@link #where} gives the line number and byte offset for error messages.
+ *
+ * Not thread-safe; use one parser per file being read.
+ */
+public final class PipeFileParser {
+
+    /** Receives each non-blank line; the parser's field accessors are valid only during the call. */
+    public interface LineHandler {
+        /** Returns false to stop reading. */
+        boolean line(PipeFileParser line) throws IOException;
+    }
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final byte delimiter;
+    private final int[] starts;
+    private final int[] ends;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private byte[] bytes = buffer.array();
+    private int fieldCount;
+    private int lineStart;
+    private int lineEnd;
+    private long lineNumber;
+    private long lineOffset;
+
+    /**
+     * Splits lines on the delimiter into at most maxFields fields; the last field keeps
+     * any further delimiters, like String.split with a limit. maxFields 1 keeps the line whole.
+     */
+    public PipeFileParser(char delimiter, int maxFields) {
+        this.delimiter = (byte) delimiter;
+        this.starts = new int[maxFields];
+        this.ends = new int[maxFields];
+    }
+
+    /** Reads the whole file; a missing file has no lines. Returns the number of lines handled. */
+    public long parse(Path file, LineHandler handler) throws IOException {
+        if (!Files.exists(file)) return 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(in, 0, handler);
+        }
+    }
+
+    /** Reads from the byte offset to the end of the channel, or until the handler stops. */
+    public long parse(FileChannel in, long offset, LineHandler handler) throws IOException {
+        buffer.clear();
+        long bufferOffset = offset; // file offset of bytes[0]
+        long handled = 0;
+        lineNumber = 0;
+        boolean first = offset == 0;
+        long position = offset;
+        while (true) {
+            int read = in.read(buffer, position);
+            if (read > 0) position += read;
+            int limit = buffer.position();
+            int start = 0;
+            if (first && limit >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) {
+                start = 3; // UTF-8 byte order mark
+            }
+            if (limit > 0) first = false;
+            int scan = start;
+            while (true) {
+                int newline = indexOfNewline(scan, limit);
+                if (newline < 0) {
+                    if (read >= 0 || start == limit) break;
+                    newline = limit; // last line without a terminator
+                }
+                lineNumber++;
+                if (cut(start, newline)) {
+                    lineOffset = bufferOffset + start;
+                    handled++;
+                    if (!handler.line(this)) return handled;
+                }
+                start = Math.min(limit, newline + 1);
+                scan = start;
+                if (newline == limit) break;
+            }
+            if (read < 0) return handled;
+            // Keep the partial line, growing the buffer when one line fills it
+            int remaining = limit - start;
+            if (start == 0 && remaining == bytes.length) {
+                ByteBuffer bigger = ByteBuffer.allocate(bytes.length * 2);
+                bigger.put(bytes, 0, remaining);
+                buffer = bigger;
+                bytes = bigger.array();
+            } else {
+                System.arraycopy(bytes, start, bytes, 0, remaining);
+                buffer.clear().position(remaining);
+            }
+            bufferOffset += start;
+        }
+    }
+
+    private int indexOfNewline(int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            if (bytes[i] == '\n') return i;
+        }
+        return -1;
+    }
+
+    /** Records the fields of bytes[start, end); returns false for a blank line. */
+    private boolean cut(int start, int end) {
+        if (end > start && bytes[end - 1] == '\r') end--;
+        boolean blank = true;
+        for (int i = start; i < end && blank; i++) blank = bytes[i] == ' ' || bytes[i] == '\t';
+        if (blank) return false;
+        lineStart = start;
+        lineEnd = end;
+        fieldCount = 0;
+        int fieldStart = start;
+        for (int i = start; i < end && fieldCount < starts.length - 1; i++) {
+            if (bytes[i] == delimiter) {
+                starts[fieldCount] = fieldStart;
+                ends[fieldCount++] = i;
+                fieldStart = i + 1;
+            }
+        }
+        starts[fieldCount] = fieldStart;
+        ends[fieldCount++] = end;
+        return true;
+    }
+
+    // --- The current line ---
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /** The field decoded as UTF-8. */
+    public String field(int index) {
+        return new String(bytes, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8);
+    }
+
+    /** The whole line decoded as UTF-8, without its terminator. */
+    public String line() {
+        return new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    /** The field's text read as "true" (ignoring case), like Boolean.parseBoolean. */
+    public boolean booleanField(int index) {
+        int start = starts[index];
+        if (ends[index] - start != 4) return false;
+        return (bytes[start] | 0x20) == 't' && (bytes[start + 1] | 0x20) == 'r'
+            && (bytes[start + 2] | 0x20) == 'u' && (bytes[start + 3] | 0x20) == 'e';
+    }
+
+    /** The field read as a hexadecimal number, or -1 when it is not one. */
+    public long hexField(int index) {
+        int start = starts[index];
+        int end = ends[index];
+        if (end == start || end - start > 16) return -1;
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(bytes[i], 16);
+            if (digit < 0) return -1;
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /** CRC32 of the line's bytes from the start of the field to the end of the line. */
+    public long checksumFrom(int index) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, starts[index], lineEnd - starts[index]);
+        return crc.getValue();
+    }
+
+    /**
+     * The "yyyy-MM-dd HH:mm:ss" stamp at the start of the line as a UTC epoch second,
+     * or {@link Long#MIN_VALUE} when the line does not start with one.
+     */
+    public long timestamp() {
+        int p = lineStart;
+        if (lineEnd - p < 19 || bytes[p + 4] != '-' || bytes[p + 7] != '-' || bytes[p + 10] != ' '
+                || bytes[p + 13] != ':' || bytes[p + 16] != ':') return NO_TIME;
+        int year = digits(p, 4);
+        int month = digits(p + 5, 2);
+        int day = digits(p + 8, 2);
+        int hour = digits(p + 11, 2);
+        int minute = digits(p + 14, 2);
+        int second = digits(p + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) return NO_TIME;
+        return epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + second;
+    }
+
+    /** "line N (byte offset X)" of the current line, for error messages. */
+    public String where() {
+        return "line " + lineNumber + " (byte offset " + lineOffset + ")";
+    }
+
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /** File offset of the first byte of the current line. */
+    public long lineOffset() {
+        return lineOffset;
+    }
+
+    private int digits(int at, int count) {
+        int value = 0;
+        for (int i = at; i < at + count; i++) {
+            int d = bytes[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /** Days since 1970-01-01 (proleptic Gregorian), as LocalDate.toEpochDay computes it. */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
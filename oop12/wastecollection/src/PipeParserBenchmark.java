@@ -0,0 +1,163 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Compares {@link PipeFileParser} with the line-by-line String parsing the data files
+ * used before (Files.readAllLines, then split("\\|", -1) for users and indexOf(" - ")
+ * plus LocalDateTime.parse for logins), on synthetic files.
+ *
+ *   java -Xmx3g PipeParserBenchmark [usersMB] [loginsMB] [rounds]
+ *
+ * Defaults: 64 MB of users, 256 MB of logins, 3 rounds. Prints the median time,
+ * throughput and bytes allocated per round for each parser; "result" (accounts loaded,
+ * or a sum of login timestamps) is there to check that both parsers read the same thing.
+ */
+public class PipeParserBenchmark {
+
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static void main(String[] args) throws Exception {
+        long usersBytes = (args.length > 0 ? Long.parseLong(args[0]) : 64) << 20;
+        long loginsBytes = (args.length > 1 ? Long.parseLong(args[1]) : 256) << 20;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Path dir = Files.createTempDirectory("bsk-parser-bench");
+        Path users = dir.resolve("users.txt");
+        Path logins = dir.resolve("logins.txt");
+        try {
+            writeUsers(users, usersBytes);
+            writeLogins(logins, loginsBytes);
+            System.out.printf("%-28s %10s %10s %12s %12s%n", "parser", "result", "median ms", "MB/s", "alloc MB");
+            run("users: readAllLines+split", users, rounds, () -> legacyUsers(users));
+            run("users: PipeFileParser", users, rounds, () -> parsedUsers(users));
+            run("logins: readAllLines+parse", logins, rounds, () -> legacyLogins(logins));
+            run("logins: PipeFileParser", logins, rounds, () -> parsedLogins(logins));
+        } finally {
+            Files.deleteIfExists(users);
+            Files.deleteIfExists(logins);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // --- Before: as initializeDatabase read users.txt and logins.txt ---
+
+    private static long legacyUsers(Path file) throws IOException {
+        Map<String, UserInfo> users = new HashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty()) continue;
+            String[] parts = line.split("\\|", -1);
+            if (parts.length >= 6) {
+                users.put(parts[0], new UserInfo(parts[2], parts[3], parts[4], parts[0], parts[1], Boolean.parseBoolean(parts[5])));
+            } else if (parts.length >= 5) {
+                users.put(parts[0], new UserInfo(parts[2], parts[3], parts[4], parts[0], parts[1], false));
+            }
+        }
+        return users.size();
+    }
+
+    private static long legacyLogins(Path file) throws IOException {
+        long checksum = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int idx = line.indexOf(" - ");
+            if (idx <= 0) continue;
+            checksum += LocalDateTime.parse(line.substring(0, idx), STAMP).toEpochSecond(ZoneOffset.UTC);
+        }
+        return checksum;
+    }
+
+    // --- After ---
+
+    private static long parsedUsers(Path file) throws IOException {
+        Map<String, UserInfo> users = new HashMap<>();
+        new PipeFileParser('|', 7).parse(file, line -> {
+            if (line.fieldCount() < 5) return true;
+            boolean suspended = line.fieldCount() >= 6 && line.booleanField(5);
+            String username = line.field(0);
+            users.put(username, new UserInfo(line.field(2), line.field(3), line.field(4), username, line.field(1), suspended));
+            return true;
+        });
+        return users.size();
+    }
+
+    private static long parsedLogins(Path file) throws IOException {
+        long[] checksum = {0};
+        new PipeFileParser('|', 1).parse(file, line -> {
+            long second = line.timestamp();
+            if (second != Long.MIN_VALUE) checksum[0] += second;
+            return true;
+        });
+        return checksum[0];
+    }
+
+    // --- Harness ---
+
+    private static void run(String name, Path file, int rounds, Callable<Long> parse) throws Exception {
+        parse.call(); // warm-up
+        double[] millis = new double[rounds];
+        long allocated = 0;
+        long result = 0;
+        for (int i = 0; i < rounds; i++) {
+            System.gc();
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            result = parse.call();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+            allocated = allocatedBytes() - bytesBefore;
+        }
+        Arrays.sort(millis);
+        double median = millis[rounds / 2];
+        double mb = Files.size(file) / (double) (1 << 20);
+        System.out.printf("%-28s %10d %10.0f %12.1f %12s%n", name, result, median, mb / (median / 1000),
+            allocated < 0 ? "n/a" : String.valueOf(allocated >> 20));
+    }
+
+    /** Bytes allocated by this thread so far, or -1 when the JVM does not report it. */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void writeUsers(Path file, long bytes) throws IOException {
+        List<String> roles = List.of("Administrator", "Garbage Collector", "Barangay Official");
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (int i = 0; written < bytes; i++) {
+                String line = "user" + i + "|pbkdf2-sha256$120000$c2FsdHNhbHQ" + (i % 97) + "$aGFzaGhhc2hoYXNoaGFzaA" + i
+                    + "|Juan Dela Cruz " + i + "|BRGY-" + String.format("%04d", i % 10000) + "|" + roles.get(i % 3)
+                    + (i % 10 == 0 ? "" : "|" + (i % 50 == 0)); // every tenth line in the legacy 5-field form
+                out.write(line);
+                out.newLine();
+                written += line.length() + 1;
+            }
+        }
+    }
+
+    private static void writeLogins(Path file, long bytes) throws IOException {
+        LocalDateTime time = LocalDateTime.of(2020, 1, 1, 6, 0);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long written = 0;
+            for (int i = 0; written < bytes; i++) {
+                time = time.plusSeconds(37);
+                String line = time.format(STAMP) + " - Juan Dela Cruz " + (i % 5000) + " (Garbage Collector)";
+                out.write(line);
+                out.newLine();
+                written += line.length() + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Streams Waste Giver or Collection Log records to a CSV or JSON Lines file.
+ *
+ * Rows are read straight from the column store a chunk at a time under the read lock
+ * and encoded into one reused buffer that is written through a FileChannel, so no row is
+ * materialized and memory stays flat however many years are exported. The file is
+ * written under a temporary name and moved into place when complete, so a cancelled or
+ * failed export leaves nothing behind.
+ */
+public class RecordExporter {
+
+    public enum Format {
+        CSV("csv"), JSON_LINES("jsonl");
+
+        public final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /** JSON Lines for .jsonl/.json files, CSV otherwise. */
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(java.util.Locale.ROOT);
+            return name.endsWith(".jsonl") || name.endsWith(".json") ? JSON_LINES : CSV;
+        }
+    }
+
+    // JSON field names, as used by the HTTP API
+    private static final String[] GIVER_KEYS = {"date", "purok", "giverName", "wasteType", "weight", "enteredBy"};
+    private static final String[] COLLECTION_KEYS = {"date", "truckId", "route", "driver", "biodegradable", "recyclable", "residual", "enteredBy"};
+    private static final int CHUNK_ROWS = 4096;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final WasteRecords records;
+    private final ColumnarLogStore store;
+    private final String[] keys;
+    private final Map<Integer, String> dayText = new HashMap<>(); // exports repeat the same dates
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+    private FileChannel channel;
+
+    public RecordExporter(WasteRecords records, byte table) {
+        this.records = records;
+        this.store = records.store(table);
+        this.keys = table == RecordLog.TABLE_GIVER ? GIVER_KEYS : COLLECTION_KEYS;
+    }
+
+    /**
+     * Writes the selected rows and returns how many were written.
+     *
+     * @param rows      store rows in export order (a view snapshot), or null for every row
+     * @param removals  the store's {@link ColumnarLogStore#getRemovalCount} read under the same
+     *                  read lock as {@code rows}; if records are deleted after that, the rows
+     *                  no longer name the same records and the export fails
+     * @param dayRange  inclusive epoch-day range on the Date column, or null for any date
+     * @param enteredBy only rows entered by this user, or null for everyone's
+     */
+    public int export(int[] rows, int removals, int[] dayRange, String enteredBy, Path file, Format format,
+                      IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, "." + file.getFileName(), ".part");
+        int written = 0;
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel = out;
+                buffer.clear();
+                if (format == Format.CSV) writeHeader();
+
+                int enteredByColumn = store.getColumnCount() - 1;
+                int total;
+                records.getLock().readLock().lock();
+                try {
+                    total = rows != null ? rows.length : store.size();
+                } finally {
+                    records.getLock().readLock().unlock();
+                }
+                for (int start = 0; start < total; start += CHUNK_ROWS) {
+                    if (cancelled.getAsBoolean()) return written;
+                    int end = Math.min(total, start + CHUNK_ROWS);
+                    records.getLock().readLock().lock();
+                    try {
+                        // Row numbers shift when records are deleted, so a deletion since the rows
+                        // were taken would silently skip or repeat rows
+                        if (store.getRemovalCount() != removals) throw new IOException("Records were deleted during the export; please export again.");
+                        int userCode = enteredBy == null ? -1 : store.codeOf(enteredByColumn, enteredBy);
+                        for (int i = start; i < end; i++) {
+                            int row = rows != null ? rows[i] : i;
+                            if (row >= store.size()) continue;
+                            if (enteredBy != null && store.getCode(row, enteredByColumn) != userCode) continue;
+                            if (dayRange != null) {
+                                int day = store.getDay(row, 0);
+                                if (day < dayRange[0] || day > dayRange[1]) continue;
+                            }
+                            if (format == Format.CSV) appendCsv(row);
+                            else appendJson(row);
+                            writeLine();
+                            written++;
+                        }
+                    } finally {
+                        records.getLock().readLock().unlock();
+                    }
+                    progress.accept((int) ((long) end * 100 / Math.max(1, total)));
+                }
+                flush();
+                out.force(false);
+            } finally {
+                channel = null;
+            }
+            if (cancelled.getAsBoolean()) return written;
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        line.setLength(0);
+        for (int c = 0; c < store.getColumnCount(); c++) {
+            if (c > 0) line.append(',');
+            appendCsvText(store.getColumnName(c));
+        }
+        writeLine();
+    }
+
+    private void appendCsv(int row) {
+        line.setLength(0);
+        for (int c = 0; c < store.getColumnCount(); c++) {
+            if (c > 0) line.append(',');
+            switch (store.getColumnType(c)) {
+                case DATE: line.append(date(store.getDay(row, c))); break;
+                case NUMBER: line.append(Json.number(store.getNumber(row, c))); break;
+                default: appendCsvText((String) store.getValue(row, c));
+            }
+        }
+    }
+
+    private void appendJson(int row) {
+        line.setLength(0);
+        line.append('{');
+        for (int c = 0; c < store.getColumnCount(); c++) {
+            if (c > 0) line.append(',');
+            line.append('"').append(keys[c]).append("\":");
+            switch (store.getColumnType(c)) {
+                case DATE:
+                    String date = date(store.getDay(row, c));
+                    line.append(date.isEmpty() ? "null" : "\"" + date + "\"");
+                    break;
+                case NUMBER: line.append(Json.number(store.getNumber(row, c))); break;
+                default: line.append(Json.quote((String) store.getValue(row, c)));
+            }
+        }
+        line.append('}');
+    }
+
+    private void appendCsvText(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') line.append('"');
+            line.append(ch);
+        }
+        line.append('"');
+    }
+
+    /** ISO date (yyyy-MM-dd), which every spreadsheet and the CSV import understand. */
+    private String date(int epochDay) {
+        if (epochDay == LogDates.UNKNOWN) return "";
+        return dayText.computeIfAbsent(epochDay, d -> LocalDate.ofEpochDay(d).toString());
+    }
+
+    /** Encodes the current line plus a newline into the buffer, writing the buffer out whenever it fills. */
+    private void writeLine() throws IOException {
+        line.append('\n');
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                flush();
+                continue;
+            }
+            if (result.isError()) result.throwException();
+            break;
+        }
+        while (encoder.flush(buffer).isOverflow()) flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
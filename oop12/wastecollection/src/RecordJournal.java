@@ -0,0 +1,417 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal for the Waste Giver and Collection Log tables.
+ *
+ * Every add/edit/delete is written as one binary record:
+ *   [int payloadLength][int crc32(payload)][payload]
+ * payload = op, table, record id (two longs), field count, then each field as a type
+ * tag + value (dates as epoch days; entries from before dates had a year are stored as
+ * text).
+ *
+ * Records go into numbered segment files (segment-00000001.log, ...) that roll over
+ * at {@link #SEGMENT_SIZE}. Appends are queued and a single writer thread writes every
+ * pending record in one batch followed by one fsync (group commit), so callers on the
+ * EDT never wait on the disk.
+ *
+ * A failed write is cut back to the last good record and the records are kept and
+ * retried every {@link #RETRY_MILLIS}, ahead of anything appended later, so nothing is
+ * dropped and no later record lands behind a torn one. Until a retry succeeds, appends
+ * throw, so callers refuse new changes instead of reporting them saved.
+ */
+public class RecordJournal implements RecordLog {
+
+    static final byte OP_ADD = 1;
+    static final byte OP_UPDATE = 2;
+    static final byte OP_DELETE = 3;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_DOUBLE = 2;
+    private static final byte TAG_DATE = 3;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final long SEGMENT_SIZE = 16L * 1024 * 1024;
+    private static final int MAX_BATCH = 4096;
+    private static final long RETRY_MILLIS = 1000;
+    private static final byte[] STOP = new byte[0];
+
+    private final Path dir;
+    private final BlockingQueue<byte[]> pending = new LinkedBlockingQueue<>();
+    private final Object closeLock = new Object();
+    private FileChannel channel;
+    private int segmentNumber;
+    private long segmentSize;                               // end of the last record known to be on disk
+    private final List<byte[]> unwritten = new ArrayList<>(); // taken from the queue, not yet on disk
+    private volatile IOException failure;                   // last write error, until a retry succeeds
+    private Thread writer;
+    private volatile boolean closed;
+
+    private RecordJournal(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Opens (or creates) the journal in the given directory. Call {@link #replay} before
+     * appending so a torn last record is trimmed first.
+     */
+    public static RecordJournal open(Path dir) throws IOException {
+        if (!Files.exists(dir)) Files.createDirectories(dir);
+        return new RecordJournal(dir);
+    }
+
+    /**
+     * Replays all segments in order and returns the number of records applied.
+     * A partially written or corrupt record ends the replay; the segment is truncated
+     * at that point so new appends continue from the last good record.
+     */
+    public int replay(ReplayHandler handler) throws IOException {
+        List<Path> segments = listSegments();
+        int applied = 0;
+        for (int s = 0; s < segments.size(); s++) {
+            Path segment = segments.get(s);
+            long goodEnd = 0;
+            boolean torn = false;
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = in.size();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while (goodEnd < size) {
+                    header.clear();
+                    if (readFully(in, header, goodEnd) < HEADER_SIZE) { torn = true; break; }
+                    header.flip();
+                    int length = header.getInt();
+                    int crc = header.getInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE || goodEnd + HEADER_SIZE + length > size) { torn = true; break; }
+                    ByteBuffer payload = ByteBuffer.allocate(length);
+                    readFully(in, payload, goodEnd + HEADER_SIZE);
+                    CRC32 check = new CRC32();
+                    check.update(payload.array(), 0, length);
+                    if ((int) check.getValue() != crc) { torn = true; break; }
+                    payload.flip();
+                    apply(payload, handler);
+                    applied++;
+                    goodEnd += HEADER_SIZE + length;
+                }
+                if (torn) {
+                    System.err.println("Journal: discarding torn record in " + segment.getFileName() + " at offset " + goodEnd);
+                    in.truncate(goodEnd);
+                    in.force(true);
+                }
+            }
+            if (torn) {
+                // Anything after a corrupt record cannot be trusted to apply in order
+                for (int later = s + 1; later < segments.size(); later++) {
+                    Files.move(segments.get(later), segments.get(later).resolveSibling(segments.get(later).getFileName() + ".corrupt"));
+                }
+                break;
+            }
+        }
+        openForAppend();
+        return applied;
+    }
+
+    /** Only this process writes the journal. */
+    public boolean isShared() {
+        return false;
+    }
+
+    public int poll(ReplayHandler handler) {
+        return 0;
+    }
+
+    public void appendAdd(byte table, UUID id, Object[] row) throws IOException {
+        append(encode(OP_ADD, table, id, row));
+    }
+
+    public void appendUpdate(byte table, UUID id, Object[] values) throws IOException {
+        append(encode(OP_UPDATE, table, id, values));
+    }
+
+    public void appendDelete(byte table, UUID id) throws IOException {
+        append(encode(OP_DELETE, table, id, new Object[0]));
+    }
+
+    /** Flushes everything queued so far and stops the writer thread. */
+    public void close() {
+        synchronized (closeLock) {
+            if (closed) return;
+            closed = true;
+        }
+        pending.add(STOP);
+        if (writer != null) {
+            try {
+                writer.join(5000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            List<byte[]> rest = drainPending(null);
+            rest.remove(STOP);
+            unwritten.addAll(rest);
+            try {
+                writeUnwritten();
+            } catch (IOException ex) {
+                System.err.println("Journal: failed to flush on close, " + unwritten.size() + " records lost: " + ex.getMessage());
+            }
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException ex) {
+                System.err.println("Journal: failed to close: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void append(byte[] record) throws IOException {
+        if (closed) throw new IOException("Journal is closed");
+        IOException failed = failure;
+        if (failed != null) throw new IOException("Journal cannot write to disk: " + failed.getMessage(), failed);
+        pending.add(record);
+    }
+
+    private void openForAppend() throws IOException {
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            segmentNumber = 1;
+        } else {
+            Path last = segments.get(segments.size() - 1);
+            segmentNumber = segmentNumberOf(last);
+        }
+        openSegment();
+
+        writer = new Thread(this::runWriter, "record-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "record-journal-shutdown"));
+    }
+
+    private void openSegment() throws IOException {
+        Path segment = dir.resolve(String.format("segment-%08d.log", segmentNumber));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentSize = channel.size();
+    }
+
+    private void runWriter() {
+        boolean stop = false;
+        while (!stop) {
+            List<byte[]> batch;
+            try {
+                // While failing, wake up to retry even when nothing new arrives
+                batch = drainPending(failure == null ? pending.take() : pending.poll(RETRY_MILLIS, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException ex) {
+                break;
+            }
+            stop = batch.remove(STOP);
+            synchronized (this) {
+                unwritten.addAll(batch);
+                try {
+                    writeUnwritten();
+                    if (failure != null) {
+                        System.err.println("Journal: writes recovered");
+                        failure = null;
+                    }
+                } catch (IOException ex) {
+                    if (failure == null) {
+                        System.err.println("Journal: write failed, " + unwritten.size() + " records kept for retry: " + ex.getMessage());
+                    }
+                    failure = ex;
+                }
+            }
+        }
+    }
+
+    private List<byte[]> drainPending(byte[] first) {
+        List<byte[]> batch = new ArrayList<>();
+        if (first != null) batch.add(first);
+        pending.drainTo(batch, MAX_BATCH);
+        return batch;
+    }
+
+    /**
+     * Writes {@link #unwritten} from the front, one fsynced chunk per segment, removing
+     * records once they are on disk. On failure the segment is cut back to the last good
+     * record, so a retry appends to a clean end.
+     */
+    private void writeUnwritten() throws IOException {
+        if (unwritten.isEmpty()) return;
+        if (segmentNumber == 0) throw new IOException("Journal was not replayed before appending");
+        reopenAfterFailure();
+        while (!unwritten.isEmpty()) {
+            if (segmentSize >= SEGMENT_SIZE) {
+                channel.close();
+                segmentNumber++;
+                segmentSize = 0;
+                openSegment();
+            }
+            // Gather records up to the segment limit into one write
+            List<ByteBuffer> buffers = new ArrayList<>();
+            long bytes = 0;
+            while (buffers.size() < unwritten.size()
+                    && (buffers.isEmpty() || segmentSize + bytes + unwritten.get(buffers.size()).length <= SEGMENT_SIZE)) {
+                byte[] record = unwritten.get(buffers.size());
+                buffers.add(ByteBuffer.wrap(record));
+                bytes += record.length;
+            }
+            ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+            try {
+                long remaining = bytes;
+                while (remaining > 0) remaining -= channel.write(array);
+                channel.force(false);
+            } catch (IOException ex) {
+                discardTail();
+                throw ex;
+            }
+            segmentSize += bytes;
+            unwritten.subList(0, buffers.size()).clear();
+        }
+    }
+
+    /** Cuts the segment back to the last good record after a failed write. */
+    private void discardTail() {
+        try {
+            channel.truncate(segmentSize);
+            channel.force(false);
+        } catch (IOException ex) {
+            // Retried by reopenAfterFailure before the next write
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already failing
+            }
+            channel = null;
+        }
+    }
+
+    /** Reopens the current segment if a failure closed it, trimming anything past the last good record. */
+    private void reopenAfterFailure() throws IOException {
+        if (channel != null && channel.isOpen()) return;
+        Path segment = dir.resolve(String.format("segment-%08d.log", segmentNumber));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (channel.size() > segmentSize) {
+            channel.truncate(segmentSize);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Encodes one operation as a complete journal record; also the row format of
+     * JdbcStorageBackend. Throws when the record would be over {@link #MAX_RECORD_SIZE},
+     * which replay would take for a torn record.
+     */
+    static byte[] encode(byte op, byte table, UUID id, Object[] values) throws IOException {
+        byte[] record;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0); // length placeholder
+            out.writeInt(0); // crc placeholder
+            out.writeByte(op);
+            out.writeByte(table);
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+            out.writeShort(values.length);
+            for (Object value : values) {
+                if (value == null) {
+                    out.writeByte(TAG_NULL);
+                } else if (value instanceof java.time.LocalDate) {
+                    out.writeByte(TAG_DATE);
+                    out.writeInt((int) ((java.time.LocalDate) value).toEpochDay());
+                } else if (value instanceof Number) {
+                    out.writeByte(TAG_DOUBLE);
+                    out.writeDouble(((Number) value).doubleValue());
+                } else {
+                    byte[] utf = value.toString().getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(TAG_STRING);
+                    out.writeInt(utf.length);
+                    out.write(utf);
+                }
+            }
+            out.flush();
+            record = bytes.toByteArray();
+        } catch (IOException ex) {
+            // ByteArrayOutputStream does not throw
+            throw new IllegalStateException(ex);
+        }
+        int length = record.length - HEADER_SIZE;
+        if (length > MAX_RECORD_SIZE) {
+            throw new IOException("Record of " + length + " bytes is over the " + MAX_RECORD_SIZE + "-byte limit");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record, HEADER_SIZE, length);
+        ByteBuffer.wrap(record).putInt(length).putInt((int) crc.getValue());
+        return record;
+    }
+
+    /** Applies a record produced by {@link #encode}, header included. */
+    static void applyRecord(byte[] record, ReplayHandler handler) {
+        apply(ByteBuffer.wrap(record, HEADER_SIZE, record.length - HEADER_SIZE), handler);
+    }
+
+    private static void apply(ByteBuffer payload, ReplayHandler handler) {
+        byte op = payload.get();
+        byte table = payload.get();
+        UUID id = new UUID(payload.getLong(), payload.getLong());
+        int count = payload.getShort();
+        Object[] values = new Object[count];
+        for (int i = 0; i < count; i++) {
+            byte tag = payload.get();
+            if (tag == TAG_DOUBLE) {
+                values[i] = payload.getDouble();
+            } else if (tag == TAG_DATE) {
+                values[i] = java.time.LocalDate.ofEpochDay(payload.getInt());
+            } else if (tag == TAG_STRING) {
+                byte[] utf = new byte[payload.getInt()];
+                payload.get(utf);
+                values[i] = new String(utf, StandardCharsets.UTF_8);
+            }
+        }
+        switch (op) {
+            case OP_ADD: handler.onAdd(table, id, values); break;
+            case OP_UPDATE: handler.onUpdate(table, id, values); break;
+            case OP_DELETE: handler.onDelete(table, id); break;
+            default: System.err.println("Journal: unknown op " + op + " skipped");
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "segment-*.log")) {
+            for (Path p : stream) segments.add(p);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static int segmentNumberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+
+    private static int readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = in.read(buffer, position + total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+}
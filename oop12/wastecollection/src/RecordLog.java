@@ -0,0 +1,50 @@
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Durable, ordered log of add/edit/delete operations on the Waste Giver and Collection
+ * Log tables. The tables are rebuilt at startup by replaying it.
+ *
+ * Records are named by their id ({@link ColumnarLogStore#idAt}), so edits logged by
+ * different terminals replay onto the right record.
+ */
+public interface RecordLog {
+
+    byte TABLE_GIVER = 1;
+    byte TABLE_COLLECTION = 2;
+
+    /** Receives log records in order during {@link #replay}. */
+    interface ReplayHandler {
+        void onAdd(byte table, UUID id, Object[] row);
+        void onUpdate(byte table, UUID id, Object[] values);
+        void onDelete(byte table, UUID id);
+    }
+
+    /** Replays every record in order and returns the number applied. Call before appending. */
+    int replay(ReplayHandler handler) throws IOException;
+
+    /** Whether other terminals append to the same log, so {@link #poll} finds their changes. */
+    boolean isShared();
+
+    /**
+     * Passes the records appended since the replay or the last poll, in log order, this
+     * terminal's own included; a record may be passed again by a later poll. Returns the
+     * number passed, always 0 for a log that is not shared.
+     */
+    int poll(ReplayHandler handler) throws IOException;
+
+    /*
+     * Appends queue the change for writing. They throw when the log is not storing
+     * changes (closed, or earlier writes are still failing); the caller must then leave
+     * the tables unchanged. Changes queued before a failure are retried, not dropped.
+     */
+
+    void appendAdd(byte table, UUID id, Object[] row) throws IOException;
+
+    void appendUpdate(byte table, UUID id, Object[] values) throws IOException;
+
+    void appendDelete(byte table, UUID id) throws IOException;
+
+    /** Flushes everything appended so far and releases the log. */
+    void close();
+}
@@ -0,0 +1,303 @@
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pre-aggregated waste totals by period (day, week, month) and dimension
+ * (Purok, route, truck), maintained incrementally from both log stores.
+ *
+ * Collection Log rows feed the ROUTE and TRUCK dimensions (and TOTAL); Waste Giver rows
+ * feed PUROK, with the weight counted under its waste type. A range query is answered
+ * from whole-month and whole-week buckets where they fit and day buckets at the edges,
+ * so it touches a few dozen buckets at most regardless of how many rows were logged.
+ * The TOTAL cells are the only per-day collection totals kept; AnalyticsAggregator
+ * answers its date-range totals from them.
+ */
+public class RollupCube {
+
+    public enum Granularity { DAY, WEEK, MONTH }
+
+    public enum Dimension {
+        PUROK("Purok"), ROUTE("Purok/Route"), TRUCK("Truck ID"), TOTAL("All Collections");
+
+        private final String label;
+
+        Dimension(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /** Running sums for one (period, dimension value) cell. */
+    private static final class Cell {
+        double bio, recy, resi;
+        int rows;
+    }
+
+    // dimension -> granularity -> period key -> dimension value -> cell
+    private final Map<Dimension, Map<Granularity, TreeMap<Integer, Map<String, Cell>>>> cells = new EnumMap<>(Dimension.class);
+
+    public RollupCube() {
+        for (Dimension d : Dimension.values()) {
+            Map<Granularity, TreeMap<Integer, Map<String, Cell>>> byGranularity = new EnumMap<>(Granularity.class);
+            for (Granularity g : Granularity.values()) byGranularity.put(g, new TreeMap<>());
+            cells.put(d, byGranularity);
+        }
+    }
+
+    /** Feeds the cube from a Collection Log store (date, truck, route, bio, recy, resi columns). */
+    public void attachCollectionLog(ColumnarLogStore store, int dateColumn, int truckColumn, int routeColumn,
+                                    int bioColumn, int recyColumn, int resiColumn) {
+        Source source = values -> {
+            int day = LogDates.toEpochDay(values[dateColumn]);
+            double bio = number(values[bioColumn]);
+            double recy = number(values[recyColumn]);
+            double resi = number(values[resiColumn]);
+            return new Contribution[]{
+                new Contribution(Dimension.TOTAL, day, Dimension.TOTAL.toString(), bio, recy, resi),
+                new Contribution(Dimension.ROUTE, day, text(values[routeColumn]), bio, recy, resi),
+                new Contribution(Dimension.TRUCK, day, text(values[truckColumn]), bio, recy, resi)
+            };
+        };
+        attach(store, source);
+    }
+
+    /** Feeds the cube from a Waste Giver store (date, Purok, waste type, weight columns). */
+    public void attachGiverLog(ColumnarLogStore store, int dateColumn, int purokColumn, int typeColumn, int weightColumn) {
+        Source source = values -> {
+            double weight = number(values[weightColumn]);
+            String type = text(values[typeColumn]);
+            double bio = "Biodegradable".equalsIgnoreCase(type) ? weight : 0;
+            double recy = "Recyclable".equalsIgnoreCase(type) ? weight : 0;
+            double resi = (bio == 0 && recy == 0) ? weight : 0;
+            return new Contribution[]{
+                new Contribution(Dimension.PUROK, LogDates.toEpochDay(values[dateColumn]), text(values[purokColumn]), bio, recy, resi)
+            };
+        };
+        attach(store, source);
+    }
+
+    /** Totals per dimension value for records dated within [fromDay, toDay], sorted by value. */
+    public TreeMap<String, AnalyticsAggregator.Totals> breakdown(Dimension dimension, int fromDay, int toDay) {
+        Map<String, double[]> sums = new HashMap<>();
+        Map<Granularity, TreeMap<Integer, Map<String, Cell>>> byGranularity = cells.get(dimension);
+        int day = fromDay;
+        while (day <= toDay) {
+            Granularity g;
+            int key;
+            int next;
+            LocalDate date = LocalDate.ofEpochDay(day);
+            int monthEnd = (int) date.withDayOfMonth(date.lengthOfMonth()).toEpochDay();
+            if (date.getDayOfMonth() == 1 && monthEnd <= toDay) {
+                g = Granularity.MONTH; key = periodKey(g, day); next = monthEnd + 1;
+            } else if (weekStart(day) == day && day + 6 <= toDay) {
+                g = Granularity.WEEK; key = day; next = day + 7;
+            } else {
+                g = Granularity.DAY; key = day; next = day + 1;
+            }
+            Map<String, Cell> bucket = byGranularity.get(g).get(key);
+            if (bucket != null) {
+                for (Map.Entry<String, Cell> e : bucket.entrySet()) {
+                    double[] s = sums.computeIfAbsent(e.getKey(), k -> new double[3]);
+                    s[0] += e.getValue().bio;
+                    s[1] += e.getValue().recy;
+                    s[2] += e.getValue().resi;
+                }
+            }
+            day = next;
+        }
+        TreeMap<String, AnalyticsAggregator.Totals> result = new TreeMap<>();
+        for (Map.Entry<String, double[]> e : sums.entrySet()) {
+            double[] s = e.getValue();
+            result.put(e.getKey(), new AnalyticsAggregator.Totals(s[0], s[1], s[2]));
+        }
+        return result;
+    }
+
+    /**
+     * Collection totals per period within [fromDay, toDay], keyed by the first day of each
+     * period. Periods cut by the range edges only count the days inside the range, and are
+     * left out when none of those days has data.
+     */
+    public TreeMap<Integer, AnalyticsAggregator.Totals> series(Granularity granularity, int fromDay, int toDay) {
+        TreeMap<Integer, AnalyticsAggregator.Totals> result = new TreeMap<>();
+        TreeMap<Integer, Map<String, Cell>> periods = cells.get(Dimension.TOTAL).get(granularity);
+        TreeMap<Integer, Map<String, Cell>> days = cells.get(Dimension.TOTAL).get(Granularity.DAY);
+        int firstKey = periodKey(granularity, fromDay);
+        int lastKey = periodKey(granularity, toDay);
+        for (Map.Entry<Integer, Map<String, Cell>> e : periods.subMap(firstKey, true, lastKey, true).entrySet()) {
+            int start = periodStart(granularity, e.getKey());
+            int end = periodEnd(granularity, e.getKey());
+            Cell cell;
+            if (start >= fromDay && end <= toDay) {
+                cell = e.getValue().get(Dimension.TOTAL.toString());
+            } else {
+                cell = null;
+                for (Map<String, Cell> d : days.subMap(Math.max(start, fromDay), true, Math.min(end, toDay), true).values()) {
+                    Cell c = d.get(Dimension.TOTAL.toString());
+                    if (cell == null) cell = new Cell();
+                    cell.bio += c.bio;
+                    cell.recy += c.recy;
+                    cell.resi += c.resi;
+                }
+            }
+            if (cell != null) result.put(start, new AnalyticsAggregator.Totals(cell.bio, cell.recy, cell.resi));
+        }
+        return result;
+    }
+
+    /** Earliest and latest day with any rolled-up data, or null when empty. */
+    public int[] bounds() {
+        TreeMap<Integer, Map<String, Cell>> collectionDays = cells.get(Dimension.TOTAL).get(Granularity.DAY);
+        TreeMap<Integer, Map<String, Cell>> giverDays = cells.get(Dimension.PUROK).get(Granularity.DAY);
+        if (collectionDays.isEmpty() && giverDays.isEmpty()) return null;
+        int from = Integer.MAX_VALUE;
+        int to = Integer.MIN_VALUE;
+        for (TreeMap<Integer, Map<String, Cell>> days : java.util.Arrays.asList(collectionDays, giverDays)) {
+            if (days.isEmpty()) continue;
+            from = Math.min(from, days.firstKey());
+            to = Math.max(to, days.lastKey());
+        }
+        return new int[]{from, to};
+    }
+
+    public static int periodStart(Granularity granularity, int key) {
+        switch (granularity) {
+            case MONTH: return (int) LocalDate.of(key / 12, key % 12 + 1, 1).toEpochDay();
+            default: return key;
+        }
+    }
+
+    public static int periodEnd(Granularity granularity, int key) {
+        switch (granularity) {
+            case MONTH:
+                LocalDate first = LocalDate.of(key / 12, key % 12 + 1, 1);
+                return (int) first.withDayOfMonth(first.lengthOfMonth()).toEpochDay();
+            case WEEK: return key + 6;
+            default: return key;
+        }
+    }
+
+    // --- Maintenance ---
+
+    /** Turns a row's values into the cells it contributes to. */
+    private interface Source {
+        Contribution[] contributions(Object[] values);
+    }
+
+    private static final class Contribution {
+        final Dimension dimension;
+        final int day;
+        final String value;
+        final double bio, recy, resi;
+
+        Contribution(Dimension dimension, int day, String value, double bio, double recy, double resi) {
+            this.dimension = dimension;
+            this.day = day;
+            this.value = value;
+            this.bio = bio;
+            this.recy = recy;
+            this.resi = resi;
+        }
+    }
+
+    private void attach(ColumnarLogStore store, Source source) {
+        for (int row = 0; row < store.size(); row++) apply(source.contributions(store.getRow(row)), 1);
+        store.addListener(new ColumnarLogStore.Listener() {
+            @Override
+            public void rowsInserted(int firstRow, int lastRow) {
+                if (firstRow == lastRow) {
+                    apply(source.contributions(store.getRow(firstRow)), 1);
+                    return;
+                }
+                // Bulk insert: sum the rows per (dimension, day, value) first, then touch each cell once
+                Map<Dimension, Map<Integer, Map<String, Cell>>> sums = new EnumMap<>(Dimension.class);
+                for (int row = firstRow; row <= lastRow; row++) {
+                    for (Contribution c : source.contributions(store.getRow(row))) {
+                        if (c.day == LogDates.UNKNOWN) continue;
+                        Cell sum = sums.computeIfAbsent(c.dimension, d -> new HashMap<>())
+                            .computeIfAbsent(c.day, d -> new HashMap<>())
+                            .computeIfAbsent(c.value, v -> new Cell());
+                        sum.bio += c.bio;
+                        sum.recy += c.recy;
+                        sum.resi += c.resi;
+                        sum.rows++;
+                    }
+                }
+                for (Map.Entry<Dimension, Map<Integer, Map<String, Cell>>> d : sums.entrySet()) {
+                    for (Map.Entry<Integer, Map<String, Cell>> day : d.getValue().entrySet()) {
+                        for (Map.Entry<String, Cell> v : day.getValue().entrySet()) {
+                            Cell sum = v.getValue();
+                            add(d.getKey(), day.getKey(), v.getKey(), sum.bio, sum.recy, sum.resi, sum.rows);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void rowUpdated(int row, Object[] oldValues) {
+                apply(source.contributions(oldValues), -1);
+                apply(source.contributions(store.getRow(row)), 1);
+            }
+
+            @Override
+            public void rowDeleted(int row, int slot, Object[] oldValues) {
+                apply(source.contributions(oldValues), -1);
+            }
+        });
+    }
+
+    private void apply(Contribution[] contributions, int sign) {
+        for (Contribution c : contributions) {
+            if (c.day == LogDates.UNKNOWN) continue;
+            add(c.dimension, c.day, c.value, sign * c.bio, sign * c.recy, sign * c.resi, sign);
+        }
+    }
+
+    /** Adds to the cells of one (dimension, day, value) at every granularity; rows may be negative. */
+    private void add(Dimension dimension, int day, String value, double bio, double recy, double resi, int rows) {
+        for (Granularity g : Granularity.values()) {
+            TreeMap<Integer, Map<String, Cell>> periods = cells.get(dimension).get(g);
+            int key = periodKey(g, day);
+            Map<String, Cell> bucket = periods.computeIfAbsent(key, k -> new HashMap<>());
+            Cell cell = bucket.computeIfAbsent(value, k -> new Cell());
+            cell.bio += bio;
+            cell.recy += recy;
+            cell.resi += resi;
+            cell.rows += rows;
+            if (cell.rows == 0) {
+                bucket.remove(value);
+                if (bucket.isEmpty()) periods.remove(key);
+            }
+        }
+    }
+
+    private static int periodKey(Granularity granularity, int day) {
+        switch (granularity) {
+            case WEEK: return weekStart(day);
+            case MONTH:
+                LocalDate date = LocalDate.ofEpochDay(day);
+                return date.getYear() * 12 + date.getMonthValue() - 1;
+            default: return day;
+        }
+    }
+
+    /** Epoch day of the Monday starting the week (1970-01-01 was a Thursday). */
+    private static int weekStart(int day) {
+        return day - Math.floorMod(day + 3, 7);
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    private static double number(Object value) {
+        return (value instanceof Number) ? ((Number) value).doubleValue() : 0.0;
+    }
+}
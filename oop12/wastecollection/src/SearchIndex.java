@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the searchable text columns of a log store.
+ *
+ * Each record's words go into token postings (sorted lists of slot ids), kept up to date
+ * from store events. A second, much smaller index maps every 3-character substring to
+ * the distinct words containing it. A query term of three or more characters is a
+ * substring match: the trigram index narrows the vocabulary to candidate words, those
+ * are checked, and their postings are merged. Shorter terms match word prefixes. All
+ * terms must match. User input is treated as plain text, never as a regex.
+ */
+public class SearchIndex implements ColumnarLogStore.Listener {
+
+    private final ColumnarLogStore store;
+    private final int[] columns;
+    private final TreeMap<String, IntList> tokens = new TreeMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>(); // trigram -> words containing it
+
+    public SearchIndex(ColumnarLogStore store, int... columns) {
+        this.store = store;
+        this.columns = columns.clone();
+        for (int row = 0; row < store.size(); row++) index(store.getRow(row), store.slotAt(row), true);
+        store.addListener(this);
+    }
+
+    /** Slot ids of records matching every term of the query, or null for a blank query. */
+    public BitSet search(String query) {
+        Set<String> terms = words(query);
+        if (terms.isEmpty()) return null;
+        BitSet result = null;
+        for (String term : terms) {
+            BitSet matches = term.length() < 3 ? prefixMatches(term) : substringMatches(term);
+            if (result == null) result = matches;
+            else result.and(matches);
+            if (result.isEmpty()) break;
+        }
+        return result;
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int lastRow) {
+        if (firstRow == lastRow) {
+            index(store.getRow(firstRow), store.slotAt(firstRow), true);
+            return;
+        }
+        // Bulk insert: tokenize each distinct value once (text columns are dictionary
+        // coded) and append the new slots, which are higher than any already indexed
+        List<Map<Integer, IntList[]>> postingsByCode = new ArrayList<>();
+        for (int k = 0; k < columns.length; k++) postingsByCode.add(new HashMap<>());
+        for (int row = firstRow; row <= lastRow; row++) {
+            int slot = store.slotAt(row);
+            for (int k = 0; k < columns.length; k++) {
+                int column = columns[k];
+                IntList[] postings;
+                if (store.getColumnType(column) == ColumnarLogStore.ColumnType.TEXT) {
+                    int code = store.getCode(row, column);
+                    postings = postingsByCode.get(k).get(code);
+                    if (postings == null) {
+                        postings = postingsFor(store.getValue(row, column));
+                        postingsByCode.get(k).put(code, postings);
+                    }
+                } else {
+                    postings = postingsFor(store.getValue(row, column));
+                }
+                for (IntList list : postings) list.addSorted(slot); // a word in two columns is added once
+            }
+        }
+    }
+
+    @Override
+    public void rowUpdated(int row, Object[] oldValues) {
+        int slot = store.slotAt(row);
+        index(oldValues, slot, false);
+        index(store.getRow(row), slot, true);
+    }
+
+    @Override
+    public void rowDeleted(int row, int slot, Object[] oldValues) {
+        index(oldValues, slot, false);
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet result = new BitSet();
+        for (IntList postings : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            for (int i = 0; i < postings.size(); i++) result.set(postings.get(i));
+        }
+        return result;
+    }
+
+    private BitSet substringMatches(String term) {
+        // Words holding every trigram of the term, smallest set first
+        List<Set<String>> sets = new ArrayList<>();
+        for (String gram : grams(term)) {
+            Set<String> words = trigrams.get(gram);
+            if (words == null) return new BitSet();
+            sets.add(words);
+        }
+        sets.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        BitSet result = new BitSet();
+        for (String word : sets.get(0)) {
+            // Trigrams can sit at different places in a word, so confirm the substring
+            if (!word.contains(term)) continue;
+            IntList postings = tokens.get(word);
+            for (int i = 0; i < postings.size(); i++) result.set(postings.get(i));
+        }
+        return result;
+    }
+
+    /** Postings of each word in the value, creating them (and their trigrams) as needed. */
+    private IntList[] postingsFor(Object value) {
+        if (value == null) return new IntList[0];
+        Set<String> words = words(value.toString());
+        IntList[] postings = new IntList[words.size()];
+        int i = 0;
+        for (String word : words) postings[i++] = postingsOf(word);
+        return postings;
+    }
+
+    private IntList postingsOf(String word) {
+        IntList postings = tokens.get(word);
+        if (postings == null) {
+            postings = new IntList(4);
+            tokens.put(word, postings);
+            for (String gram : grams(word)) trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(word);
+        }
+        return postings;
+    }
+
+    private void index(Object[] values, int slot, boolean add) {
+        Set<String> words = new LinkedHashSet<>();
+        for (int column : columns) {
+            Object value = values[column];
+            if (value != null) words.addAll(words(value.toString()));
+        }
+        for (String word : words) {
+            if (add) {
+                postingsOf(word).addSorted(slot);
+            } else {
+                IntList postings = tokens.get(word);
+                if (postings != null && postings.removeSorted(slot) && postings.isEmpty()) {
+                    // Last record using this word is gone: drop it from the vocabulary too
+                    tokens.remove(word);
+                    for (String gram : grams(word)) {
+                        Set<String> holders = trigrams.get(gram);
+                        if (holders != null && holders.remove(word) && holders.isEmpty()) trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) return words;
+        for (String w : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!w.isEmpty()) words.add(w);
+        }
+        return words;
+    }
+
+    private static List<String> grams(String word) {
+        if (word.length() < 3) return Arrays.asList();
+        List<String> grams = new ArrayList<>(word.length() - 2);
+        for (int i = 0; i + 3 <= word.length(); i++) grams.add(word.substring(i, i + 3));
+        return grams;
+    }
+}
@@ -0,0 +1,90 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Where DatabaseManager keeps accounts, login activity and the record log.
+ *
+ * "file" (the default) stores everything under the data directory; "jdbc" stores it in
+ * a shared SQL database so several terminals can work against the same data. Chosen by
+ * the bsk.storage setting, read from data/storage.properties and overridable with a
+ * system property of the same name (see {@link #fromConfiguration}).
+ */
+public interface StorageBackend {
+
+    /** Adds every stored account to the map. */
+    void loadUsers(Map<String, UserInfo> users) throws IOException;
+
+    /** Whether other terminals change the same accounts, so a copy loaded earlier may be stale. */
+    boolean isShared();
+
+    /** The account as stored now, or null if there is none. Only needed when {@link #isShared}. */
+    UserInfo loadUser(String username) throws IOException;
+
+    /** Stores a new account; fails if the username is already stored. */
+    void addUser(UserInfo user) throws IOException;
+
+    /**
+     * Stores a change to an account, writing only the fields that differ between
+     * {@code before} and {@code after}, so changes other terminals made to the other
+     * fields survive. Returns false, storing nothing, when those fields no longer hold
+     * the {@code before} values (another terminal changed them first).
+     */
+    boolean updateUser(UserInfo before, UserInfo after) throws IOException;
+
+    /** Consolidates stored account changes, where the backend keeps a change log. */
+    void compactUsers() throws IOException;
+
+    /** Stores a batch of login entries ("yyyy-MM-dd HH:mm:ss - activity"). */
+    void appendLogins(List<String> entries) throws IOException;
+
+    /** Logins stamped within [from, to], oldest first. */
+    List<String> loginsBetween(LocalDateTime from, LocalDateTime to) throws IOException;
+
+    /** The newest n logins, newest first. */
+    List<String> lastLogins(int n) throws IOException;
+
+    /** Newest-first cursor over all logins; the caller closes it. */
+    LoginHistoryCursor openLoginHistory() throws IOException;
+
+    /** Opens the record log for the Waste Giver and Collection Log tables. */
+    RecordLog openRecordLog() throws IOException;
+
+    void close() throws IOException;
+
+    /**
+     * Creates the configured backend. Settings come from data/storage.properties, with
+     * system properties taking precedence:
+     *   bsk.storage=file|jdbc
+     *   bsk.jdbc.url, bsk.jdbc.user, bsk.jdbc.password, bsk.jdbc.poolSize
+     */
+    static StorageBackend fromConfiguration(Path dataDir) throws IOException {
+        Properties config = new Properties();
+        Path file = dataDir.resolve("storage.properties");
+        if (Files.exists(file)) {
+            try (InputStream in = new FileInputStream(file.toFile())) {
+                config.load(in);
+            }
+        }
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("bsk.storage") || key.startsWith("bsk.jdbc.")) config.setProperty(key, System.getProperty(key));
+        }
+        String kind = config.getProperty("bsk.storage", "file").trim();
+        if ("jdbc".equalsIgnoreCase(kind)) {
+            String url = config.getProperty("bsk.jdbc.url");
+            if (url == null || url.trim().isEmpty()) throw new IOException("bsk.storage=jdbc needs bsk.jdbc.url");
+            return new JdbcStorageBackend(new ConnectionPool(url.trim(),
+                config.getProperty("bsk.jdbc.user", ""),
+                config.getProperty("bsk.jdbc.password", ""),
+                Integer.parseInt(config.getProperty("bsk.jdbc.poolSize", "8").trim())));
+        }
+        if (!"file".equalsIgnoreCase(kind)) System.err.println("Unknown bsk.storage '" + kind + "', using file storage");
+        return new FileStorageBackend(dataDir);
+    }
+}
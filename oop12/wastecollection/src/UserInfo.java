@@ -5,7 +5,7 @@ public class UserInfo {
     private String role;
     private String username;
     private String password;
-    private boolean suspended;
+    private volatile boolean suspended;
 
     public UserInfo(String fullName, String employeeId, String role,
                     String username, String password) {
@@ -40,11 +40,12 @@ public class UserInfo {
         return username;
     }
 
+    /** Checks the input against the stored PBKDF2 hash (or a legacy plaintext password). */
     public boolean checkPassword(String input) {
-        return password.equals(input);
+        return PasswordHasher.verify(input, password);
     }
 
-    // Expose password for persistence handling (kept internal otherwise)
+    // Expose the stored password hash for persistence handling (kept internal otherwise)
     public String getPassword() {
         return password;
     }
@@ -0,0 +1,166 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary copy of the users.txt snapshot (users.bin), so a large user directory loads
+ * with one bulk read and no text parsing.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   header   magic "BSKU", version, flags, record count, string count,
+ *            size and modified time (ns) of the users.txt it mirrors, CRC32 of the body
+ *   records  one fixed-width record per account: string ids of username, password,
+ *            full name, employee ID and role, then a flags int (bit 0 = suspended)
+ *   strings  string count + 1 end offsets into the UTF-8 bytes, then the bytes;
+ *            each distinct string (roles, mostly) is stored and decoded once
+ * </pre>
+ *
+ * users.txt stays the source of truth. The binary file is only used while its recorded
+ * size and modified time match users.txt; otherwise the caller parses the text and
+ * writes a fresh binary copy, which is also how older installations migrate.
+ */
+public final class UserSnapshot {
+
+    private static final int MAGIC = 0x554B5342; // "BSKU" read little-endian
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final int RECORD_INTS = 6;
+    private static final int RECORD_BYTES = RECORD_INTS * 4;
+    private static final int SUSPENDED = 1;
+
+    private UserSnapshot() {}
+
+    /**
+     * Loads the accounts into the map when the binary file mirrors the text snapshot
+     * with the given attributes; returns false (leaving the map alone) when it is
+     * missing, stale or damaged.
+     */
+    public static boolean read(Path file, BasicFileAttributes text, Map<String, UserInfo> users) {
+        if (!Files.exists(file)) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) return false;
+            // One bulk read rather than a mapping: Windows keeps a mapped file locked until
+            // the buffer is collected, which would block the rename when users.bin is rewritten
+            ByteBuffer in = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while (in.hasRemaining() && channel.read(in) >= 0) { }
+            if (in.hasRemaining()) return false;
+            if (in.getInt(0) != MAGIC || in.getShort(4) != VERSION) return false;
+            int recordCount = in.getInt(8);
+            int stringCount = in.getInt(12);
+            if (in.getLong(16) != text.size() || in.getLong(24) != modifiedNanos(text)) return false;
+
+            ByteBuffer body = in.duplicate().position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != in.getInt(32)) {
+                System.err.println("users.bin is damaged; loading users.txt instead");
+                return false;
+            }
+
+            long stringsAt = HEADER_BYTES + (long) recordCount * RECORD_BYTES;
+            long bytesAt = stringsAt + 4L * (stringCount + 1);
+            if (recordCount < 0 || stringCount < 0 || bytesAt > size) return false;
+            String[] strings = new String[stringCount];
+            int start = 0;
+            for (int i = 0; i < stringCount; i++) {
+                int end = in.getInt((int) stringsAt + 4 * (i + 1));
+                if (end < start || bytesAt + end > size) return false;
+                byte[] utf8 = new byte[end - start];
+                in.get((int) bytesAt + start, utf8);
+                strings[i] = new String(utf8, StandardCharsets.UTF_8);
+                start = end;
+            }
+
+            Map<String, UserInfo> loaded = new HashMap<>(recordCount * 4 / 3 + 1);
+            for (int r = 0; r < recordCount; r++) {
+                int at = HEADER_BYTES + r * RECORD_BYTES;
+                String username = strings[in.getInt(at)];
+                loaded.put(username, new UserInfo(strings[in.getInt(at + 8)], strings[in.getInt(at + 12)],
+                    strings[in.getInt(at + 16)], username, strings[in.getInt(at + 4)],
+                    (in.getInt(at + 20) & SUSPENDED) != 0));
+            }
+            users.putAll(loaded);
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            // A truncated or foreign file shows up as a bad index; the text snapshot still works
+            System.err.println("Failed to read users.bin, loading users.txt instead: " + ex);
+            return false;
+        }
+    }
+
+    /** Writes the accounts as the binary copy of the text snapshot with the given attributes. */
+    public static void write(Path file, Collection<UserInfo> accounts, BasicFileAttributes text) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] records = new int[accounts.size() * RECORD_INTS];
+        int r = 0;
+        for (UserInfo u : accounts) {
+            records[r++] = intern(u.getUsername(), ids, strings);
+            records[r++] = intern(u.getPassword(), ids, strings);
+            records[r++] = intern(u.getFullName(), ids, strings);
+            records[r++] = intern(u.getEmployeeId(), ids, strings);
+            records[r++] = intern(u.getRole(), ids, strings);
+            records[r++] = u.isSuspended() ? SUSPENDED : 0;
+        }
+        long byteCount = 0;
+        for (byte[] s : strings) byteCount += s.length;
+        long total = HEADER_BYTES + 4L * records.length + 4L * (strings.size() + 1) + byteCount;
+        if (total > Integer.MAX_VALUE) throw new IOException("Too many users for users.bin");
+
+        ByteBuffer out = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        out.position(HEADER_BYTES);
+        for (int value : records) out.putInt(value);
+        int end = 0;
+        out.putInt(0);
+        for (byte[] s : strings) out.putInt(end += s.length);
+        for (byte[] s : strings) out.put(s);
+
+        CRC32 crc = new CRC32();
+        crc.update(out.duplicate().flip().position(HEADER_BYTES));
+        out.putInt(0, MAGIC);
+        out.putShort(4, VERSION);
+        out.putShort(6, (short) 0);
+        out.putInt(8, accounts.size());
+        out.putInt(12, strings.size());
+        out.putLong(16, text.size());
+        out.putLong(24, modifiedNanos(text));
+        out.putInt(32, (int) crc.getValue());
+        out.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) channel.write(out);
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int intern(String s, Map<String, Integer> ids, List<byte[]> strings) {
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = strings.size();
+            ids.put(s, id);
+            strings.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+        return id;
+    }
+
+    private static long modifiedNanos(BasicFileAttributes text) {
+        return text.lastModifiedTime().to(java.util.concurrent.TimeUnit.NANOSECONDS);
+    }
+}
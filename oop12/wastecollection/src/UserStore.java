@@ -0,0 +1,282 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Persists user accounts as a snapshot plus a change log.
+ *
+ * users.txt is the snapshot (one username|password|fullName|employeeId|role|suspended
+ * line per account). Every register/update/suspend appends the account's full new
+ * state to users.log as one checksummed line and syncs it, so a change costs the same
+ * with four accounts or four thousand. After enough changes the log is renamed to
+ * users.log.N and a background thread merges the current snapshot with the rotated
+ * logs into a temp file, syncs it and atomically renames it over users.txt; only then
+ * are the rotated logs it covers deleted. Compaction works from the files alone, never
+ * from the in-memory accounts, so it cannot miss a change that is logged but not yet
+ * visible in memory. Loading applies the snapshot, rotated logs in order, then the live log, and
+ * a torn last line is skipped, so a crash at any point keeps every synced change.
+ *
+ * Every snapshot is also written as users.bin ({@link UserSnapshot}), which loading
+ * reads instead of parsing users.txt while it is current. A users.txt without a current
+ * binary copy (older installations, hand edits) is parsed and the copy rewritten in
+ * the background. When loading finds a plaintext password (from before passwords were
+ * hashed) that a later change has replaced with a hash, it compacts right away, so the
+ * plaintext does not linger in the files.
+ */
+public class UserStore {
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Path binaryFile;
+    private final int compactEvery;
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "user-store-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private FileChannel log;
+    private int changesSinceCompaction;
+    private long nextGeneration = 1;
+
+    public UserStore(Path dir, int compactEvery) {
+        this.snapshotFile = dir.resolve("users.txt");
+        this.logFile = dir.resolve("users.log");
+        this.binaryFile = dir.resolve("users.bin");
+        this.compactEvery = Math.max(1, compactEvery);
+    }
+
+    /** Loads every account into the map, replaying any logged changes over the snapshot. */
+    public synchronized void load(Map<String, UserInfo> users) throws IOException {
+        Map<String, UserInfo> snapshot = new LinkedHashMap<>();
+        BasicFileAttributes parsed = readSnapshot(snapshot);
+        users.putAll(snapshot);
+        if (parsed != null) compactor.execute(() -> migrate(snapshot.values(), parsed));
+        Set<String> plaintext = new HashSet<>();
+        for (UserInfo user : snapshot.values()) {
+            if (!PasswordHasher.isHashed(user.getPassword())) plaintext.add(user.getUsername());
+        }
+        for (Path rotated : rotatedLogs(Long.MAX_VALUE)) {
+            changesSinceCompaction += replay(rotated, users, plaintext);
+            nextGeneration = Math.max(nextGeneration, generationOf(rotated) + 1);
+        }
+        changesSinceCompaction += replay(logFile, users, plaintext);
+        for (String username : plaintext) {
+            UserInfo current = users.get(username);
+            if (current != null && PasswordHasher.isHashed(current.getPassword())) {
+                compactor.execute(rotateLog());
+                break;
+            }
+        }
+    }
+
+    /** Records the account's current state. */
+    public synchronized void put(UserInfo user) throws IOException {
+        if (log == null) {
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        String fields = format(user);
+        CRC32 crc = new CRC32();
+        crc.update(fields.getBytes(StandardCharsets.UTF_8));
+        String line = Long.toHexString(crc.getValue()) + "|" + fields + System.lineSeparator();
+        ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) log.write(bytes);
+        log.force(false);
+        changesSinceCompaction++;
+    }
+
+    /** Starts a background compaction once enough changes have been logged. */
+    public synchronized void compactIfDue() {
+        if (compactor.isShutdown()) return;
+        if (changesSinceCompaction >= compactEvery) compactor.execute(rotateLog());
+    }
+
+    /** Writes a fresh snapshot now and clears the log; does nothing once the store is closed. */
+    public void compact() throws IOException {
+        Future<?> done;
+        synchronized (this) {
+            if (compactor.isShutdown()) return;
+            // Queued behind any running compaction so snapshots land in order
+            done = compactor.submit(rotateLog());
+        }
+        try {
+            done.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        compactor.shutdown();
+        if (log != null) log.close();
+        log = null;
+    }
+
+    /**
+     * Reads users.txt, through users.bin when that is current. Returns the attributes of
+     * users.txt when the text had to be parsed, null otherwise.
+     */
+    private BasicFileAttributes readSnapshot(Map<String, UserInfo> users) throws IOException {
+        if (!Files.exists(snapshotFile)) return null;
+        BasicFileAttributes text = Files.readAttributes(snapshotFile, BasicFileAttributes.class);
+        if (UserSnapshot.read(binaryFile, text, users)) return null;
+        new PipeFileParser('|', 7).parse(snapshotFile, line -> {
+            UserInfo user = toUser(line, 0);
+            if (user != null) users.put(user.getUsername(), user);
+            else System.err.println("users.txt: skipping malformed " + line.where());
+            return true;
+        });
+        return text;
+    }
+
+    /** Writes users.bin for a users.txt that was parsed, unless users.txt changed since. */
+    private void migrate(Collection<UserInfo> accounts, BasicFileAttributes parsed) {
+        try {
+            BasicFileAttributes now = Files.readAttributes(snapshotFile, BasicFileAttributes.class);
+            if (now.size() != parsed.size() || !now.lastModifiedTime().equals(parsed.lastModifiedTime())) return;
+            UserSnapshot.write(binaryFile, accounts, parsed);
+        } catch (IOException ex) {
+            System.err.println("Failed to write users.bin: " + ex.getMessage());
+        }
+    }
+
+    /** Moves the live log aside so new changes start a fresh one; returns the snapshot task. */
+    private Runnable rotateLog() {
+        long generation = nextGeneration++;
+        try {
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+            if (Files.exists(logFile)) {
+                Files.move(logFile, logFile.resolveSibling(logFile.getFileName() + "." + generation), StandardCopyOption.ATOMIC_MOVE);
+            }
+            changesSinceCompaction = 0;
+        } catch (IOException ex) {
+            System.err.println("Failed to rotate user log: " + ex.getMessage());
+            return () -> { };
+        }
+        return () -> {
+            try {
+                Map<String, UserInfo> merged = new LinkedHashMap<>();
+                readSnapshot(merged);
+                for (Path rotated : rotatedLogs(generation)) replay(rotated, merged, null);
+                writeSnapshot(merged.values());
+                // The snapshot holds every change up to this rotation
+                for (Path rotated : rotatedLogs(generation)) Files.deleteIfExists(rotated);
+            } catch (IOException ex) {
+                System.err.println("Failed to compact users: " + ex.getMessage());
+            }
+        };
+    }
+
+    /** Rotated logs (users.log.N) up to the given generation, oldest first. */
+    private List<Path> rotatedLogs(long upTo) throws IOException {
+        List<Path> rotated = new ArrayList<>();
+        Path dir = logFile.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, logFile.getFileName() + ".*")) {
+            for (Path p : stream) {
+                long generation = generationOf(p);
+                if (generation > 0 && generation <= upTo) rotated.add(p);
+            }
+        }
+        rotated.sort((a, b) -> Long.compare(generationOf(a), generationOf(b)));
+        return rotated;
+    }
+
+    private long generationOf(Path rotated) {
+        String name = rotated.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(logFile.getFileName().toString().length() + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private void writeSnapshot(Collection<UserInfo> accounts) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (UserInfo u : accounts) sb.append(format(u)).append(System.lineSeparator());
+        Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) out.write(bytes);
+            out.force(true);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try {
+            // Stamped with the new users.txt, so a crash before this leaves the old copy unused
+            UserSnapshot.write(binaryFile, accounts, Files.readAttributes(snapshotFile, BasicFileAttributes.class));
+        } catch (IOException ex) {
+            System.err.println("Failed to write users.bin: " + ex.getMessage());
+        }
+        syncDirectory(snapshotFile.toAbsolutePath().getParent());
+    }
+
+    /** Applies a log to the map; adds to {@code plaintext}, when given, the accounts logged with a plaintext password. */
+    private static int replay(Path file, Map<String, UserInfo> users, Set<String> plaintext) throws IOException {
+        int[] applied = {0};
+        // crc|username|password|fullName|employeeId|role|suspended
+        new PipeFileParser('|', 8).parse(file, line -> {
+            if (line.fieldCount() < 2) return true;
+            long crc = line.hexField(0);
+            if (crc < 0 || crc != line.checksumFrom(1)) {
+                System.err.println("User log: skipping damaged entry in " + file.getFileName() + " at " + line.where());
+                return true;
+            }
+            UserInfo user = toUser(line, 1);
+            if (user != null) {
+                users.put(user.getUsername(), user);
+                if (plaintext != null && !PasswordHasher.isHashed(user.getPassword())) plaintext.add(user.getUsername());
+                applied[0]++;
+            }
+            return true;
+        });
+        return applied[0];
+    }
+
+    // username|password|fullName|employeeId|role|suspended
+    private static String format(UserInfo u) {
+        return String.join("|", u.getUsername(), u.getPassword(), u.getFullName(),
+            u.getEmployeeId(), u.getRole(), String.valueOf(u.isSuspended()));
+    }
+
+    /** The account in the line's fields from the given one on, or null when there are too few. */
+    private static UserInfo toUser(PipeFileParser line, int first) {
+        int count = line.fieldCount() - first;
+        if (count < 5) return null;
+        // Backward compatibility: if no suspended field, assume false
+        boolean suspended = count >= 6 && line.booleanField(first + 5);
+        return new UserInfo(line.field(first + 2), line.field(first + 3), line.field(first + 4),
+            line.field(first), line.field(first + 1), suspended);
+    }
+
+    private static void syncDirectory(Path dir) {
+        // Makes the rename durable on POSIX; not supported on every platform
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // best effort
+        }
+    }
+}
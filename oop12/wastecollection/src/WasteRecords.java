@@ -0,0 +1,388 @@
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The Waste Giver and Collection Log records, their indexes and the record log, shared
+ * by the Swing portal and the headless server.
+ *
+ * Every mutation goes through {@link #add}, {@link #update} or {@link #remove}, which
+ * append it to the record log and then apply it, under the write lock, so the log
+ * replays in the order the changes were applied even when several threads write. When
+ * the log refuses a change (its writes are failing) the method throws IOException and
+ * the tables are left as they were. Readers that need
+ * a consistent view across the stores and indexes (analytics, search) take the read lock.
+ *
+ * When the log is shared with other terminals, {@link #startPolling} brings in their
+ * changes while this one runs.
+ */
+public class WasteRecords {
+
+    public static final String[] WASTE_GIVER_COLUMNS = {"Date", "Purok", "Giver Name", "Waste Type", "Weight (kg)", "Entered By"};
+    public static final String[] COLLECTION_LOG_COLUMNS = {"Date", "Truck ID", "Purok/Route", "Driver", "Biodegradable (kg)", "Recyclable (kg)", "Residual (kg)", "Entered By"};
+    public static final String[] PUROK_OPTIONS = {"Purok 1", "Purok 2", "Purok 3", "Purok 4", "Purok 5", "Purok 6"};
+    public static final String[] WASTE_TYPE_OPTIONS = {"Biodegradable", "Recyclable", "Residual"};
+
+    private static final ColumnarLogStore.ColumnType TEXT = ColumnarLogStore.ColumnType.TEXT;
+    private static final ColumnarLogStore.ColumnType NUMBER = ColumnarLogStore.ColumnType.NUMBER;
+    private static final ColumnarLogStore.ColumnType DATE = ColumnarLogStore.ColumnType.DATE;
+    private static final ColumnarLogStore.ColumnType[] WASTE_GIVER_TYPES = {DATE, TEXT, TEXT, TEXT, NUMBER, TEXT};
+    private static final ColumnarLogStore.ColumnType[] COLLECTION_LOG_TYPES = {DATE, TEXT, TEXT, TEXT, NUMBER, NUMBER, NUMBER, TEXT};
+
+    // Includes waiting for the write lock, which is what the caller (often the EDT) feels
+    private static final String WRITE_SECONDS = "bsk_record_write_seconds";
+    private static final String WRITE_HELP = "Time to apply and log a record change, lock wait included";
+    private static final Metrics.Histogram ADD = Metrics.histogram(WRITE_SECONDS, WRITE_HELP, "op", "add");
+    private static final Metrics.Histogram ADD_ALL = Metrics.histogram(WRITE_SECONDS, WRITE_HELP, "op", "add_all");
+    private static final Metrics.Histogram UPDATE = Metrics.histogram(WRITE_SECONDS, WRITE_HELP, "op", "update");
+    private static final Metrics.Histogram DELETE = Metrics.histogram(WRITE_SECONDS, WRITE_HELP, "op", "delete");
+
+    // Column stores keep weights as primitives and text as dictionary codes
+    private final ColumnarLogStore giverStore = new ColumnarLogStore(WASTE_GIVER_COLUMNS, WASTE_GIVER_TYPES);
+    private final ColumnarLogStore collectionStore = new ColumnarLogStore(COLLECTION_LOG_COLUMNS, COLLECTION_LOG_TYPES);
+    private final DateIndex giverDateIndex = new DateIndex(giverStore, 0);
+    private final DateIndex collectionDateIndex = new DateIndex(collectionStore, 0);
+    private final SearchIndex giverSearchIndex = new SearchIndex(giverStore, 1, 2);                // Purok, Giver Name
+    private final SearchIndex collectionSearchIndex = new SearchIndex(collectionStore, 1, 2, 3);   // Truck ID, Route, Driver
+    private final RollupCube rollups = new RollupCube();
+    private final AnalyticsAggregator analytics;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private RecordLog log;
+    private ScheduledExecutorService poller;
+
+    public WasteRecords() {
+        rollups.attachCollectionLog(collectionStore, 0, 1, 2, 4, 5, 6);
+        rollups.attachGiverLog(giverStore, 0, 1, 3, 4);
+        // Registered after the cube, so its change listeners see the cube already updated
+        analytics = new AnalyticsAggregator(collectionStore, rollups, 4, 5, 6);
+        // The most recently created instance is the one reported
+        Metrics.gauge("bsk_records", "Rows in each log table", giverStore::size, "table", "giver");
+        Metrics.gauge("bsk_records", "Rows in each log table", collectionStore::size, "table", "collection");
+    }
+
+    /**
+     * Opens the configured record log and replays it into the stores. Returns the number
+     * of records replayed; when the log cannot be opened, changes are kept in memory only.
+     */
+    public int open() {
+        try {
+            return open(DatabaseManager.openRecordLog());
+        } catch (IOException ex) {
+            System.err.println("Failed to open record journal: " + ex.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Replays the given log into the stores and logs every later change to it. Edits
+     * naming a record that is no longer there (another terminal deleted it first) are
+     * skipped.
+     */
+    public int open(RecordLog opened) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int replayed = opened.replay(new RecordLog.ReplayHandler() {
+                @Override
+                public void onAdd(byte table, UUID id, Object[] row) {
+                    if (store(table).rowOf(id) >= 0) {
+                        System.err.println("Record log: record " + id + " added twice, later copy skipped");
+                        return;
+                    }
+                    store(table).addRow(id, row);
+                }
+
+                @Override
+                public void onUpdate(byte table, UUID id, Object[] values) {
+                    int row = rowOrWarn(table, id, "edit");
+                    if (row >= 0) store(table).setRow(row, values);
+                }
+
+                @Override
+                public void onDelete(byte table, UUID id) {
+                    int row = rowOrWarn(table, id, "delete");
+                    if (row >= 0) store(table).removeRow(row);
+                }
+            });
+            log = opened;
+            return replayed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * With a shared record log, applies the changes other terminals log, checking every
+     * bsk.records.pollSeconds (default 5). The log is read on a background thread; the
+     * changes are applied under the write lock on {@code applyOn}, which the portal makes
+     * the EDT because its tables listen to the stores. Does nothing for an unshared log.
+     */
+    public synchronized void startPolling(Executor applyOn) {
+        RecordLog polled = log;
+        if (polled == null || !polled.isShared() || poller != null) return;
+        long seconds = Math.max(1, Long.getLong("bsk.records.pollSeconds", 5L));
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "record-log-poller");
+            t.setDaemon(true);
+            return t;
+        });
+        poller.scheduleWithFixedDelay(() -> poll(polled, applyOn), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    private void poll(RecordLog polled, Executor applyOn) {
+        List<Change> changes = new ArrayList<>();
+        try {
+            polled.poll(new RecordLog.ReplayHandler() {
+                @Override
+                public void onAdd(byte table, UUID id, Object[] row) {
+                    changes.add(new Change(Change.ADD, table, id, row));
+                }
+
+                @Override
+                public void onUpdate(byte table, UUID id, Object[] values) {
+                    changes.add(new Change(Change.UPDATE, table, id, values));
+                }
+
+                @Override
+                public void onDelete(byte table, UUID id) {
+                    changes.add(new Change(Change.DELETE, table, id, null));
+                }
+            });
+        } catch (IOException ex) {
+            System.err.println("Record log: failed to read other terminals' changes: " + ex.getMessage());
+            return;
+        }
+        if (!changes.isEmpty()) applyOn.execute(() -> applyPolled(changes));
+    }
+
+    /**
+     * Applies polled changes in log order. This terminal's own changes come back too and
+     * are already applied, so an add of a known id, an edit that changes nothing and a
+     * delete of a missing record are skipped. Runs of adds go in as one batch.
+     */
+    private void applyPolled(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            List<UUID> addIds = new ArrayList<>();
+            List<Object[]> addRows = new ArrayList<>();
+            byte addTable = 0;
+            for (Change change : changes) {
+                ColumnarLogStore store = store(change.table);
+                if (!addIds.isEmpty() && (change.op != Change.ADD || change.table != addTable)) {
+                    store(addTable).addRows(addIds, addRows);
+                    addIds.clear();
+                    addRows.clear();
+                }
+                int row = store.rowOf(change.id);
+                if (change.op == Change.ADD) {
+                    if (row >= 0) continue;
+                    addTable = change.table;
+                    addIds.add(change.id);
+                    addRows.add(change.values);
+                } else if (row < 0) {
+                    continue;
+                } else if (change.op == Change.DELETE) {
+                    store.removeRow(row);
+                } else if (!Arrays.equals(store.getRow(row), change.values)) {
+                    store.setRow(row, change.values);
+                }
+            }
+            if (!addIds.isEmpty()) store(addTable).addRows(addIds, addRows);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** A record log change read by a poll, waiting to be applied. */
+    private static final class Change {
+        static final int ADD = 0;
+        static final int UPDATE = 1;
+        static final int DELETE = 2;
+
+        final int op;
+        final byte table;
+        final UUID id;
+        final Object[] values;
+
+        Change(int op, byte table, UUID id, Object[] values) {
+            this.op = op;
+            this.table = table;
+            this.id = id;
+            this.values = values;
+        }
+    }
+
+    private int rowOrWarn(byte table, UUID id, String what) {
+        int row = store(table).rowOf(id);
+        if (row < 0) System.err.println("Record log: " + what + " of missing record " + id + " skipped");
+        return row;
+    }
+
+    /** Adds the demonstration records shown on a fresh install. */
+    public void addSampleRecords() throws IOException {
+        LocalDate date1 = LocalDate.now().minusDays(1);
+        LocalDate date2 = LocalDate.now().minusDays(2);
+
+        // Records for oya123 (Barangay Official)
+        add(RecordLog.TABLE_GIVER, new Object[]{date1, "Purok 4", "Ana Lopez", "Biodegradable", 5.2, "oya123"});
+        add(RecordLog.TABLE_GIVER, new Object[]{date2, "Purok 5", "Carlos Mendoza", "Recyclable", 2.8, "oya123"});
+
+        LocalDate today = LocalDate.now();
+        add(RecordLog.TABLE_COLLECTION, new Object[]{today, "T-001", "Route A (Puroks 1, 2)", "Ramon Cruz", 125.5, 45.2, 80.0, "jayjay"});
+        add(RecordLog.TABLE_COLLECTION, new Object[]{today, "T-002", "Route B (Puroks 3, 4)", "Liza Morales", 98.0, 31.7, 65.5, "jayjay"});
+        add(RecordLog.TABLE_COLLECTION, new Object[]{date1, "T-003", "Route C (Puroks 5, 6)", "Jose Alvarez", 150.0, 50.0, 70.0, "jayjay"});
+
+        // Records for jayjay (Garbage Collector)
+        add(RecordLog.TABLE_COLLECTION, new Object[]{date1, "T-004", "Route D (Puroks 1, 3)", "Pedro Garcia", 110.0, 40.0, 75.0, "jayjay"});
+        add(RecordLog.TABLE_COLLECTION, new Object[]{date2, "T-005", "Route E (Puroks 2, 4)", "Maria Santos", 95.0, 35.0, 60.0, "jayjay"});
+    }
+
+    // --- Field rules shared by the entry dialogs, the API and CSV import ---
+
+    /** Longest text a record field may hold. */
+    public static final int MAX_TEXT_LENGTH = 200;
+
+    /** A text field as entered: at most {@link #MAX_TEXT_LENGTH} characters. */
+    public static String checkText(String text) throws NumberFormatException {
+        if (text.length() > MAX_TEXT_LENGTH) {
+            throw new NumberFormatException("Text is " + text.length() + " characters; at most " + MAX_TEXT_LENGTH + " are allowed.");
+        }
+        return text;
+    }
+
+    /** A weight as entered: must be a non-negative number. */
+    public static double checkWeight(double value) throws NumberFormatException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) throw new NumberFormatException("Value is not a valid number.");
+        if (value < 0) throw new NumberFormatException("Value cannot be negative.");
+        return value;
+    }
+
+    public static LocalDate parseDate(String text) throws NumberFormatException {
+        LocalDate date = LogDates.parse(text);
+        if (date == null) throw new NumberFormatException("Date must look like Jan 5, 2025 or 2025-01-05.");
+        return date;
+    }
+
+    /** The option matching the text (ignoring case); the dialogs offer these in a dropdown. */
+    public static String checkChoice(String text, String[] options) throws NumberFormatException {
+        for (String option : options) {
+            if (option.equalsIgnoreCase(text.trim())) return option;
+        }
+        throw new NumberFormatException("Must be one of " + String.join(", ", options) + ".");
+    }
+
+    public ColumnarLogStore store(byte table) {
+        return table == RecordLog.TABLE_GIVER ? giverStore : collectionStore;
+    }
+
+    public byte tableOf(ColumnarLogStore store) {
+        return store == giverStore ? RecordLog.TABLE_GIVER : RecordLog.TABLE_COLLECTION;
+    }
+
+    public DateIndex dateIndex(byte table) {
+        return table == RecordLog.TABLE_GIVER ? giverDateIndex : collectionDateIndex;
+    }
+
+    public SearchIndex searchIndex(byte table) {
+        return table == RecordLog.TABLE_GIVER ? giverSearchIndex : collectionSearchIndex;
+    }
+
+    public RollupCube getRollups() {
+        return rollups;
+    }
+
+    /** Running totals over the Collection Log. */
+    public AnalyticsAggregator getAnalytics() {
+        return analytics;
+    }
+
+    /** Guards the stores and everything derived from them. */
+    public ReentrantReadWriteLock getLock() {
+        return lock;
+    }
+
+    // --- Logged mutations: every change to a log table goes through these ---
+    public void add(byte table, Object[] row) throws IOException {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            UUID id = UUID.randomUUID();
+            if (log != null) log.appendAdd(table, id, row);
+            store(table).addRow(id, row);
+        } finally {
+            lock.writeLock().unlock();
+            ADD.observeSince(start);
+        }
+    }
+
+    /**
+     * Adds several rows under one lock acquisition, with one change notification for all
+     * of them. If the log refuses a row, the rows logged before it are still added.
+     */
+    public void addAll(byte table, List<Object[]> rows) throws IOException {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        List<UUID> ids = new ArrayList<>(rows.size());
+        try {
+            for (Object[] row : rows) {
+                UUID id = UUID.randomUUID();
+                if (log != null) log.appendAdd(table, id, row);
+                ids.add(id);
+            }
+        } finally {
+            try {
+                int logged = ids.size();
+                if (logged > 0) store(table).addRows(ids, logged == rows.size() ? rows : rows.subList(0, logged));
+            } finally {
+                lock.writeLock().unlock();
+                ADD_ALL.observeSince(start);
+            }
+        }
+    }
+
+    public void update(byte table, int row, Object[] values) throws IOException {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (log != null) log.appendUpdate(table, store(table).idAt(row), values);
+            store(table).setRow(row, values);
+        } finally {
+            lock.writeLock().unlock();
+            UPDATE.observeSince(start);
+        }
+    }
+
+    public void remove(byte table, int row) throws IOException {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            if (log != null) log.appendDelete(table, store(table).idAt(row));
+            store(table).removeRow(row);
+        } finally {
+            lock.writeLock().unlock();
+            DELETE.observeSince(start);
+        }
+    }
+
+    /** Stops polling and flushes the record log; later changes are not persisted. */
+    public void close() {
+        synchronized (this) {
+            if (poller != null) poller.shutdownNow();
+            poller = null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (log != null) log.close();
+            log = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,473 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless JSON API for handheld clients, started with
+ * {@code java BarangayWasteSystemFull --server [--port 8080]}.
+ *
+ *   POST /api/login              {"username", "password"} -> {"token", ...}
+ *   POST /api/logout
+ *   POST /api/records/collection  one object or an array of them:
+ *        {"date", "truckId", "route", "driver", "biodegradable", "recyclable", "residual"}
+ *   POST /api/records/giver       {"date", "purok", "giverName", "wasteType", "weight"}
+ *   GET  /api/analytics?range=Jan 2025&by=purok|route|truck|day|week|month
+ *   GET  /api/health
+ *
+ * Every call but login and health sends "Authorization: Bearer <token>". Roles follow
+ * the portal: collectors submit collection logs, officials submit giver records,
+ * administrators only read analytics. Records are stamped with the caller as Entered By.
+ *
+ * Each request runs on its own virtual thread when the runtime has them (Java 21+),
+ * otherwise on a fixed pool of bsk.server.threads (default 256) platform threads.
+ * Password checks are deliberately slow, so at most one per CPU runs at a time and the
+ * rest wait rather than starve record submissions. The API is plain HTTP; expose it
+ * beyond the barangay network only behind a TLS proxy.
+ *
+ * With the default file storage the server needs the data directory to itself: it will
+ * not start while a portal has it open, and the portal will not start while the server
+ * runs. Run them side by side on one database with bsk.storage=jdbc.
+ */
+public class WasteServer {
+
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int MAX_RECORDS_PER_REQUEST = 1000;
+    private static final DateTimeFormatter LOGIN_STAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** A request failure reported to the client as {"error": message}. */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static final class Session {
+        final String username;
+        volatile long expiresAt;
+
+        Session(String username, long expiresAt) {
+            this.username = username;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final WasteRecords records;
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Semaphore passwordChecks = new Semaphore(Runtime.getRuntime().availableProcessors());
+    private final long sessionMillis = Long.getLong("bsk.server.sessionMinutes", 480L) * 60_000L;
+
+    public WasteServer(WasteRecords records, InetSocketAddress address) throws IOException {
+        this.records = records;
+        this.http = HttpServer.create(address, Integer.getInteger("bsk.server.backlog", 1024));
+        this.executor = newRequestExecutor(Integer.getInteger("bsk.server.threads", 256));
+        http.setExecutor(executor);
+        route("/api/login", "POST", this::login);
+        route("/api/logout", "POST", this::logout);
+        route("/api/records/collection", "POST", ex -> submit(ex, RecordLog.TABLE_COLLECTION));
+        route("/api/records/giver", "POST", ex -> submit(ex, RecordLog.TABLE_GIVER));
+        route("/api/analytics", "GET", this::analytics);
+        route("/api/health", "GET", this::health);
+    }
+
+    /** Runs the server until the process is stopped. Options: --port N (default bsk.server.port or 8080). */
+    public static void main(String[] args) throws IOException {
+        int port = Integer.getInteger("bsk.server.port", 8080);
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--port".equals(args[i])) port = Integer.parseInt(args[i + 1]);
+        }
+        try {
+            DatabaseManager.initializeDatabase();
+        } catch (IllegalStateException ex) {
+            // most often another portal or server holding the data directory
+            System.err.println("Waste API cannot start: " + ex.getMessage());
+            System.exit(1);
+        }
+        WasteRecords records = new WasteRecords();
+        int replayed = records.open();
+        records.startPolling(Runnable::run);
+        WasteServer server = new WasteServer(records, new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            records.close();
+            DatabaseManager.shutdown();
+            MetricsExporter.stop();
+        }, "waste-server-shutdown"));
+        server.start();
+        MetricsExporter.start();
+        System.err.println("Waste API listening on port " + port + " (" + replayed + " journal records loaded)");
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    /** Stops accepting requests and gives in-flight ones a moment to finish. */
+    public void stop() {
+        http.stop(2);
+        executor.shutdown();
+    }
+
+    /** One virtual thread per request where available, else a fixed pool of platform threads. */
+    static ExecutorService newRequestExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+                Thread t = new Thread(r, "waste-api-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // --- Endpoints ---
+
+    private void login(HttpExchange ex) throws IOException {
+        Map<String, Object> body = asObject(readJson(ex), "Request body");
+        String username = text(body, "username");
+        Object password = body.get("password"); // used as typed, not trimmed
+        if (!(password instanceof String)) throw new ApiException(400, "password must be a string");
+        UserInfo user;
+        passwordChecks.acquireUninterruptibly();
+        try {
+            user = DatabaseManager.authenticateUser(username, (String) password);
+        } finally {
+            passwordChecks.release();
+        }
+        if (user == null) throw new ApiException(401, "Invalid username or password, or the account is suspended");
+
+        DatabaseManager.recordLogin(LocalDateTime.now().format(LOGIN_STAMP) + " - " + user.getFullName()
+            + " (" + user.getRole() + ") via API");
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(s -> s.expiresAt < now);
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user.getUsername(), now + sessionMillis));
+        send(ex, 200, "{\"token\":" + Json.quote(token)
+            + ",\"username\":" + Json.quote(user.getUsername())
+            + ",\"fullName\":" + Json.quote(user.getFullName())
+            + ",\"role\":" + Json.quote(user.getRole())
+            + ",\"expiresInSeconds\":" + sessionMillis / 1000 + "}");
+    }
+
+    private void logout(HttpExchange ex) throws IOException {
+        String token = bearerToken(ex);
+        if (token != null) sessions.remove(token);
+        send(ex, 200, "{\"loggedOut\":true}");
+    }
+
+    private void submit(HttpExchange ex, byte table) throws IOException {
+        UserInfo user = authorize(ex);
+        boolean giver = table == RecordLog.TABLE_GIVER;
+        if (isRole(user, "Administrator")) throw new ApiException(403, "Administrators cannot add records");
+        if (giver && isRole(user, "Garbage Collector")) throw new ApiException(403, "Garbage collectors cannot add Waste Giver records");
+        if (!giver && isRole(user, "Barangay Official")) throw new ApiException(403, "Barangay officials cannot add Collection Log records");
+
+        Object body = readJson(ex);
+        List<?> items = body instanceof List ? (List<?>) body : Collections.singletonList(body);
+        if (items.isEmpty()) throw new ApiException(400, "No records given");
+        if (items.size() > MAX_RECORDS_PER_REQUEST) throw new ApiException(413, "At most " + MAX_RECORDS_PER_REQUEST + " records per request");
+
+        // Validate everything first so a request is applied completely or not at all
+        List<Object[]> rows = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String what = items.size() == 1 ? "Record" : "Record " + i;
+            try {
+                Map<String, Object> item = asObject(items.get(i), what);
+                rows.add(giver ? giverRow(item, user) : collectionRow(item, user));
+            } catch (ApiException bad) {
+                throw new ApiException(bad.status, bad.getMessage().startsWith(what) ? bad.getMessage() : what + ": " + bad.getMessage());
+            }
+        }
+        try {
+            records.addAll(table, rows);
+        } catch (IOException failed) {
+            throw new ApiException(503, "Records cannot be saved right now: " + failed.getMessage());
+        }
+        send(ex, 201, "{\"added\":" + rows.size() + "}");
+    }
+
+    private void analytics(HttpExchange ex) throws IOException {
+        UserInfo user = authorize(ex);
+        if (isRole(user, "Barangay Official")) throw new ApiException(403, "Analytics are not available to barangay officials");
+        Map<String, String> query = query(ex);
+
+        int[] range = null;
+        String rangeText = query.get("range");
+        if (rangeText != null && !rangeText.trim().isEmpty()) {
+            range = LogDates.parseRange(rangeText);
+            if (range == null) throw new ApiException(400, "Unrecognized range: " + rangeText);
+        }
+        String by = query.get("by");
+
+        StringBuilder json = new StringBuilder(256);
+        records.getLock().readLock().lock();
+        try {
+            AnalyticsAggregator analytics = records.getAnalytics();
+            json.append("{\"from\":").append(range == null ? "null" : Json.quote(LocalDate.ofEpochDay(range[0]).toString()))
+                .append(",\"to\":").append(range == null ? "null" : Json.quote(LocalDate.ofEpochDay(range[1]).toString()))
+                .append(",\"totals\":");
+            appendTotals(json, range == null ? analytics.getTotals() : analytics.getTotals(range[0], range[1]));
+            if (by != null && !by.isEmpty()) {
+                json.append(",\"by\":").append(Json.quote(by)).append(",\"breakdown\":[");
+                int[] span = range != null ? range : records.getRollups().bounds();
+                if (span != null) appendBreakdown(json, by, span);
+                json.append(']');
+            }
+            json.append('}');
+        } finally {
+            records.getLock().readLock().unlock();
+        }
+        send(ex, 200, json.toString());
+    }
+
+    private void health(HttpExchange ex) throws IOException {
+        int givers, collections;
+        records.getLock().readLock().lock();
+        try {
+            givers = records.store(RecordLog.TABLE_GIVER).size();
+            collections = records.store(RecordLog.TABLE_COLLECTION).size();
+        } finally {
+            records.getLock().readLock().unlock();
+        }
+        send(ex, 200, "{\"status\":\"ok\",\"giverRecords\":" + givers + ",\"collectionRecords\":" + collections
+            + ",\"sessions\":" + sessions.size() + "}");
+    }
+
+    // --- Records ---
+
+    private static Object[] giverRow(Map<String, Object> item, UserInfo user) {
+        return new Object[]{
+            date(item),
+            choice(item, "purok", WasteRecords.PUROK_OPTIONS),
+            text(item, "giverName"),
+            choice(item, "wasteType", WasteRecords.WASTE_TYPE_OPTIONS),
+            weight(item, "weight"),
+            user.getUsername()
+        };
+    }
+
+    private static Object[] collectionRow(Map<String, Object> item, UserInfo user) {
+        return new Object[]{
+            date(item),
+            text(item, "truckId"),
+            text(item, "route"),
+            text(item, "driver"),
+            weight(item, "biodegradable"),
+            weight(item, "recyclable"),
+            weight(item, "residual"),
+            user.getUsername()
+        };
+    }
+
+    /** The record's date; today when absent. */
+    private static LocalDate date(Map<String, Object> item) {
+        Object value = item.get("date");
+        if (value == null) return LocalDate.now();
+        if (!(value instanceof String)) throw new ApiException(400, "date must be a string");
+        try {
+            return WasteRecords.parseDate((String) value);
+        } catch (NumberFormatException ex) {
+            throw new ApiException(400, "date: " + ex.getMessage());
+        }
+    }
+
+    private static String text(Map<String, Object> item, String field) {
+        Object value = item.get(field);
+        if (!(value instanceof String)) throw new ApiException(400, field + " must be a string");
+        try {
+            return WasteRecords.checkText(((String) value).trim());
+        } catch (NumberFormatException ex) {
+            throw new ApiException(400, field + ": " + ex.getMessage());
+        }
+    }
+
+    private static String choice(Map<String, Object> item, String field, String[] options) {
+        try {
+            return WasteRecords.checkChoice(text(item, field), options);
+        } catch (NumberFormatException ex) {
+            throw new ApiException(400, field + ": " + ex.getMessage());
+        }
+    }
+
+    private static double weight(Map<String, Object> item, String field) {
+        Object value = item.get(field);
+        if (!(value instanceof Number)) throw new ApiException(400, field + " must be a number");
+        try {
+            return WasteRecords.checkWeight(((Number) value).doubleValue());
+        } catch (NumberFormatException ex) {
+            throw new ApiException(400, field + ": " + ex.getMessage());
+        }
+    }
+
+    // --- Analytics output ---
+
+    private static void appendTotals(StringBuilder json, AnalyticsAggregator.Totals t) {
+        json.append("{\"biodegradable\":").append(Json.number(t.getBio()))
+            .append(",\"recyclable\":").append(Json.number(t.getRecy()))
+            .append(",\"residual\":").append(Json.number(t.getResi()))
+            .append(",\"total\":").append(Json.number(t.getTotal())).append('}');
+    }
+
+    private void appendBreakdown(StringBuilder json, String by, int[] span) {
+        Map<String, AnalyticsAggregator.Totals> rows = new LinkedHashMap<>();
+        switch (by.toLowerCase(Locale.ROOT)) {
+            case "purok": rows.putAll(records.getRollups().breakdown(RollupCube.Dimension.PUROK, span[0], span[1])); break;
+            case "route": rows.putAll(records.getRollups().breakdown(RollupCube.Dimension.ROUTE, span[0], span[1])); break;
+            case "truck": rows.putAll(records.getRollups().breakdown(RollupCube.Dimension.TRUCK, span[0], span[1])); break;
+            case "day": series(rows, RollupCube.Granularity.DAY, span); break;
+            case "week": series(rows, RollupCube.Granularity.WEEK, span); break;
+            case "month": series(rows, RollupCube.Granularity.MONTH, span); break;
+            default: throw new ApiException(400, "by must be purok, route, truck, day, week or month");
+        }
+        boolean first = true;
+        for (Map.Entry<String, AnalyticsAggregator.Totals> e : rows.entrySet()) {
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"key\":").append(Json.quote(e.getKey())).append(",\"totals\":");
+            appendTotals(json, e.getValue());
+            json.append('}');
+        }
+    }
+
+    /** Periods keyed by their first day (ISO date). */
+    private void series(Map<String, AnalyticsAggregator.Totals> rows, RollupCube.Granularity granularity, int[] span) {
+        for (Map.Entry<Integer, AnalyticsAggregator.Totals> e : records.getRollups().series(granularity, span[0], span[1]).entrySet()) {
+            rows.put(LocalDate.ofEpochDay(e.getKey()).toString(), e.getValue());
+        }
+    }
+
+    // --- HTTP plumbing ---
+
+    private void route(String path, String method, Handler handler) {
+        http.createContext(path, exchange -> {
+            try {
+                if (!exchange.getRequestURI().getPath().equals(path)) throw new ApiException(404, "Not found");
+                if (!method.equalsIgnoreCase(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", method);
+                    throw new ApiException(405, "Use " + method);
+                }
+                handler.handle(exchange);
+            } catch (ApiException ex) {
+                send(exchange, ex.status, "{\"error\":" + Json.quote(ex.getMessage()) + "}");
+            } catch (RuntimeException ex) {
+                System.err.println("API error on " + path + ": " + ex);
+                send(exchange, 500, "{\"error\":\"Internal error\"}");
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    /** The signed-in, non-suspended account for the request's bearer token. */
+    private UserInfo authorize(HttpExchange ex) {
+        String token = bearerToken(ex);
+        Session session = token == null ? null : sessions.get(token);
+        long now = System.currentTimeMillis();
+        if (session == null || session.expiresAt < now) {
+            if (session != null) sessions.remove(token);
+            throw new ApiException(401, "Sign in first (POST /api/login) and send Authorization: Bearer <token>");
+        }
+        // Re-read with shared storage, so a suspension made on a terminal ends the session
+        boolean suspended = DatabaseManager.isUserSuspended(session.username);
+        UserInfo user = DatabaseManager.getUser(session.username);
+        if (user == null || suspended) {
+            sessions.remove(token);
+            throw new ApiException(401, "Account is no longer active");
+        }
+        session.expiresAt = now + sessionMillis;
+        return user;
+    }
+
+    private static String bearerToken(HttpExchange ex) {
+        String header = ex.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return header.substring(7).trim();
+    }
+
+    private static boolean isRole(UserInfo user, String role) {
+        return role.equalsIgnoreCase(user.getRole());
+    }
+
+    private static Object readJson(HttpExchange ex) throws IOException {
+        byte[] body;
+        try (InputStream in = ex.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) throw new ApiException(413, "Request body over " + MAX_BODY_BYTES + " bytes");
+        try {
+            return Json.parse(new String(body, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException bad) {
+            throw new ApiException(400, "Malformed JSON: " + bad.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value, String what) {
+        if (!(value instanceof Map)) throw new ApiException(400, what + " must be a JSON object");
+        return (Map<String, Object>) value;
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> params = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException bad) { // a stray or truncated % escape
+                throw new ApiException(400, "Malformed query string: " + bad.getMessage());
+            }
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange ex, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}